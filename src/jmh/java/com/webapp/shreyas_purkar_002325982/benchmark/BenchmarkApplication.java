@@ -0,0 +1,46 @@
+package com.webapp.shreyas_purkar_002325982.benchmark;
+
+import com.webapp.shreyas_purkar_002325982.WebApplication;
+import com.webapp.shreyas_purkar_002325982.util.InMemoryS3Client;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Starts the application for the benchmarks against the local database configured by the test
+ * application.properties and an in-process S3 stand-in. The web server listens on a random port.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Method to start the application context
+     *
+     * @param properties additional properties in key=value form
+     * @return started application context
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(WebApplication.class, InMemoryS3Configuration.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("benchmark")
+                .properties("server.port=0")
+                .properties(properties)
+                .run();
+    }
+
+    @Configuration
+    static class InMemoryS3Configuration {
+
+        @Bean
+        @Primary
+        public InMemoryS3Client inMemoryS3Client() {
+            return new InMemoryS3Client();
+        }
+    }
+}
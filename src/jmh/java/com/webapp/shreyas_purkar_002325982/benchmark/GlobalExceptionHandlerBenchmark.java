@@ -0,0 +1,78 @@
+package com.webapp.shreyas_purkar_002325982.benchmark;
+
+import com.webapp.shreyas_purkar_002325982.exception.DatabaseConnectionException;
+import com.webapp.shreyas_purkar_002325982.exception.GlobalExceptionHandler;
+import com.webapp.shreyas_purkar_002325982.exception.PayloadNotAllowedException;
+import com.webapp.shreyas_purkar_002325982.exception.S3ObjectNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Benchmarks for the error paths resolved by GlobalExceptionHandler, from the exception being
+ * thrown by a controller to the response being written
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GlobalExceptionHandlerBenchmark {
+
+    @Param({"notFound", "serviceUnavailable", "badRequest", "methodNotAllowed", "noHandlerFound"})
+    String path;
+
+    MockMvc mockMvc;
+
+    RequestBuilder request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ThrowingController())
+                                 .setControllerAdvice(new GlobalExceptionHandler())
+                                 .build();
+
+        request = switch (path) {
+            case "notFound" -> get("/v2/file/{id}", "not-found");
+            case "serviceUnavailable" -> get("/healthz");
+            case "badRequest" -> get("/v2/file/{id}", "bad-request");
+            case "methodNotAllowed" -> put("/healthz");
+            case "noHandlerFound" -> get("/v2/unknown");
+            default -> throw new IllegalArgumentException(path);
+        };
+    }
+
+    @Benchmark
+    public int handleException() throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse().getStatus();
+    }
+
+    /**
+     * Controller throwing the application exceptions, registered directly with MockMvc so it is not
+     * picked up by component scanning
+     */
+    static class ThrowingController {
+
+        @GetMapping("/healthz")
+        public void healthCheck() {
+            throw new DatabaseConnectionException();
+        }
+
+        @GetMapping("/v2/file/{id}")
+        public void getObject(@PathVariable("id") String id) {
+            if (id.equals("bad-request")) {
+                throw new PayloadNotAllowedException();
+            }
+            throw new S3ObjectNotFoundException();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.webapp.shreyas_purkar_002325982.benchmark;
+
+import com.webapp.shreyas_purkar_002325982.service.HealthCheckService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for HealthCheckServiceImpl.healthCheck against the local database. With an interval of 0s
+ * every probe writes to the database, otherwise probes within the interval share the last result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HealthCheckBenchmark {
+
+    @Param({"0s", "5s"})
+    String interval;
+
+    ConfigurableApplicationContext context;
+
+    HealthCheckService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("health.check.interval=" + interval);
+        service = context.getBean(HealthCheckService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void healthCheck() {
+        service.healthCheck();
+    }
+
+    /**
+     * Concurrent probes, as sent by several load balancer targets at once
+     */
+    @Benchmark
+    @Threads(8)
+    public void healthCheckContended() {
+        service.healthCheck();
+    }
+}
@@ -0,0 +1,49 @@
+package com.webapp.shreyas_purkar_002325982.benchmark;
+
+import com.webapp.shreyas_purkar_002325982.util.RequestFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for RequestFilter.doFilter for requests passed down the chain and requests rejected by the filter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestFilterBenchmark {
+
+    @Param({"GET /v2/file", "GET /healthz", "OPTIONS /healthz"})
+    String request;
+
+    final RequestFilter filter = new RequestFilter();
+
+    final FilterChain chain = (servletRequest, servletResponse) -> {
+    };
+
+    MockHttpServletRequest servletRequest;
+
+    MockHttpServletResponse servletResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] methodAndUri = request.split(" ");
+        servletRequest = new MockHttpServletRequest(methodAndUri[0], methodAndUri[1]);
+        servletResponse = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public int doFilter() throws ServletException, IOException {
+        servletResponse.reset();
+        filter.doFilter(servletRequest, servletResponse, chain);
+        return servletResponse.getStatus();
+    }
+}
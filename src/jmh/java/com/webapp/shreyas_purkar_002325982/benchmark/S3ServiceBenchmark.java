@@ -0,0 +1,159 @@
+package com.webapp.shreyas_purkar_002325982.benchmark;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.service.S3Service;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the S3 object lookup, upload and delete paths of S3ServiceImpl against the
+ * local database and an in-process S3 stand-in
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class S3ServiceBenchmark {
+
+    private static final int SEEDED_OBJECTS = 1000;
+
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class ApplicationState {
+
+        ConfigurableApplicationContext context;
+
+        S3Service service;
+
+        Cache<String, S3ObjectDto> objectCache;
+
+        List<String> objectIds;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            context = BenchmarkApplication.start();
+            service = context.getBean(S3Service.class);
+            objectCache = context.getBean("s3ObjectCache", Cache.class);
+
+            objectIds = new ArrayList<>(SEEDED_OBJECTS);
+            for (int i = 0; i < SEEDED_OBJECTS; i++) {
+                objectIds.add(service.uploadObject(file("seed-" + i + ".txt", new byte[1024])).getObjectId());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            service.deleteObjects(objectIds);
+            context.close();
+        }
+
+        String randomObjectId() {
+            return objectIds.get(ThreadLocalRandom.current().nextInt(objectIds.size()));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UploadState {
+
+        @Param({"1024", "1048576"})
+        int fileSize;
+
+        byte[] content;
+
+        List<String> uploadedIds = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            content = new byte[fileSize];
+            ThreadLocalRandom.current().nextBytes(content);
+        }
+
+        /**
+         * Deletes the objects uploaded during the iteration, so the table does not grow across iterations
+         */
+        @TearDown(Level.Iteration)
+        public void tearDown(ApplicationState application) {
+            if (!uploadedIds.isEmpty()) {
+                application.service.deleteObjects(uploadedIds);
+                uploadedIds.clear();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DeleteState {
+
+        Deque<String> objectIds = new ArrayDeque<>(DELETE_BATCH_SIZE);
+
+        /**
+         * Seeds the objects deleted by the next iteration outside of the measurement
+         */
+        @Setup(Level.Iteration)
+        public void setUp(ApplicationState application) {
+            for (int i = 0; i < DELETE_BATCH_SIZE; i++) {
+                objectIds.add(application.service.uploadObject(file("delete-" + i + ".txt", new byte[1024])).getObjectId());
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown(ApplicationState application) {
+            if (!objectIds.isEmpty()) {
+                application.service.deleteObjects(new ArrayList<>(objectIds));
+                objectIds.clear();
+            }
+        }
+    }
+
+    /**
+     * Lookup served from the in-process cache
+     */
+    @Benchmark
+    public S3ObjectDto getObjectCached(ApplicationState application) {
+        return application.service.getObject(application.objectIds.get(0));
+    }
+
+    /**
+     * Lookup served from the database
+     */
+    @Benchmark
+    public S3ObjectDto getObjectUncached(ApplicationState application) {
+        String objectId = application.randomObjectId();
+        application.objectCache.invalidate(objectId);
+        return application.service.getObject(objectId);
+    }
+
+    @Benchmark
+    public S3ObjectDto uploadObject(ApplicationState application, UploadState upload) {
+        S3ObjectDto object = application.service.uploadObject(file("upload.bin", upload.content));
+        upload.uploadedIds.add(object.getObjectId());
+        return object;
+    }
+
+    /**
+     * Deletes the objects seeded for the iteration, each iteration is one batch of deletes and is reported
+     * as the time of the whole batch
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = DELETE_BATCH_SIZE)
+    @Measurement(iterations = 5, batchSize = DELETE_BATCH_SIZE)
+    public void deleteObject(ApplicationState application, DeleteState delete) {
+        application.service.deleteObject(delete.objectIds.poll());
+    }
+
+    private static MockMultipartFile file(String fileName, byte[] content) {
+        return new MockMultipartFile("file", fileName, "application/octet-stream", content);
+    }
+}
@@ -0,0 +1,57 @@
+package com.webapp.shreyas_purkar_002325982.loadtest;
+
+import com.webapp.shreyas_purkar_002325982.util.S3Config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Load test driver for a running instance. Runs one step per offered rate with a mixed workload against
+ * /v2/file and /healthz and reports throughput against latency percentiles, see LoadTestOptions for the
+ * arguments.
+ */
+public final class LoadTest {
+
+    /**
+     * Error ratio at which the remaining steps are skipped, the service has fallen over
+     */
+    private static final double MAX_ERROR_RATIO = 0.5;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        ExecutorService executor = Executors.newCachedThreadPool(S3Config.namedThreadFactory("loadtest-"));
+        try {
+            WorkloadClient client = new WorkloadClient(options, executor);
+            OpenModelDriver driver = new OpenModelDriver(client, options);
+            SaturationReport report = new SaturationReport(options.kneeFactor());
+
+            System.out.printf("Load test against %s, %s arrivals, mix %s, upload sizes %s%n",
+                              options.baseUrl(), options.arrival(), options.mix(), options.uploadSizes());
+            client.seed(options.seedObjects());
+
+            report.printHeader(System.out);
+            for (int rate : options.rates()) {
+                StepResult step = driver.run(rate);
+                report.add(step);
+                report.printStep(System.out, step);
+
+                if (step.errorRatio() > MAX_ERROR_RATIO) {
+                    System.out.println("More than half of the requests failed, skipping the remaining rates");
+                    break;
+                }
+            }
+
+            report.print(System.out);
+            report.write(options.outputDirectory());
+            System.out.println("Results written to " + options.outputDirectory().toAbsolutePath());
+
+            client.cleanUp();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.webapp.shreyas_purkar_002325982.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options of a load test run, given as key=value arguments. Unset options take the defaults below.
+ *
+ * @param baseUrl of the application under test
+ * @param rates offered request rates per second, one step each, in increasing order
+ * @param stepDuration measured duration of each step
+ * @param warmup unmeasured duration before each step, at the rate of the step
+ * @param arrival of requests, poisson or constant
+ * @param mix of operations, such as get:60,post:20,delete:10,health:10
+ * @param uploadSizes distribution of uploaded file sizes, such as 1KB:70,1MB:25,16MB:5
+ * @param seedObjects uploaded before the first step so GET and DELETE have objects to work with
+ * @param maxInFlight requests before the driver waits for responses, waiting counts towards latency
+ * @param requestTimeout of a single request
+ * @param kneeFactor p99 growth over the first step that marks the knee
+ * @param outputDirectory for the summary and the histogram of each step
+ */
+public record LoadTestOptions(URI baseUrl,
+                              List<Integer> rates,
+                              Duration stepDuration,
+                              Duration warmup,
+                              Arrival arrival,
+                              WeightedDistribution<Operation> mix,
+                              WeightedDistribution<DataSize> uploadSizes,
+                              int seedObjects,
+                              int maxInFlight,
+                              Duration requestTimeout,
+                              double kneeFactor,
+                              Path outputDirectory) {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("baseUrl", "http://localhost:8080"),
+            Map.entry("rates", "25,50,100,200,400"),
+            Map.entry("stepDuration", "60s"),
+            Map.entry("warmup", "10s"),
+            Map.entry("arrival", "poisson"),
+            Map.entry("mix", "get:60,post:20,delete:10,health:10"),
+            Map.entry("uploadSizes", "1KB:70,1MB:25,16MB:5"),
+            Map.entry("seedObjects", "100"),
+            Map.entry("maxInFlight", "2000"),
+            Map.entry("requestTimeout", "30s"),
+            Map.entry("kneeFactor", "3"),
+            Map.entry("outputDirectory", "target/loadtest"));
+
+    /**
+     * Arrival process of the open model, request start times never depend on responses
+     */
+    public enum Arrival {
+        POISSON, CONSTANT
+    }
+
+    /**
+     * Method to parse the options
+     *
+     * @param args key=value arguments
+     * @return parsed options
+     */
+    public static LoadTestOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String key = separator < 0 ? arg : arg.substring(0, separator);
+            if (separator < 0 || !DEFAULTS.containsKey(key)) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            values.put(key, arg.substring(separator + 1));
+        }
+
+        List<Integer> rates = Arrays.stream(values.get("rates").split(","))
+                                    .map(String::trim)
+                                    .map(Integer::parseInt)
+                                    .sorted()
+                                    .toList();
+        if (rates.isEmpty() || rates.get(0) <= 0) {
+            throw new IllegalArgumentException("Rates must be positive");
+        }
+
+        WeightedDistribution<Operation> mix = WeightedDistribution.parse(values.get("mix"), Operation::parse);
+        if (Set.copyOf(mix.values()).equals(Set.of(Operation.DELETE))) {
+            throw new IllegalArgumentException("Mix must not consist of deletes only");
+        }
+
+        return new LoadTestOptions(URI.create(values.get("baseUrl")),
+                                   rates,
+                                   DurationStyle.detectAndParse(values.get("stepDuration")),
+                                   DurationStyle.detectAndParse(values.get("warmup")),
+                                   Arrival.valueOf(values.get("arrival").toUpperCase(Locale.ROOT)),
+                                   mix,
+                                   WeightedDistribution.parse(values.get("uploadSizes"), DataSize::parse),
+                                   Integer.parseInt(values.get("seedObjects")),
+                                   Integer.parseInt(values.get("maxInFlight")),
+                                   DurationStyle.detectAndParse(values.get("requestTimeout")),
+                                   Double.parseDouble(values.get("kneeFactor")),
+                                   Path.of(values.get("outputDirectory")));
+    }
+}
@@ -0,0 +1,133 @@
+package com.webapp.shreyas_purkar_002325982.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open model load driver. Request start times follow the arrival process at the offered rate and never
+ * wait for earlier responses, as with real users. Latency is measured from the intended start time, so
+ * a stalled driver or a full in-flight limit shows up in the results instead of being hidden by
+ * coordinated omission.
+ */
+public class OpenModelDriver {
+
+    private final WorkloadClient client;
+
+    private final LoadTestOptions options;
+
+    private final Semaphore inFlight;
+
+    public OpenModelDriver(WorkloadClient client, LoadTestOptions options) {
+        this.client = client;
+        this.options = options;
+        this.inFlight = new Semaphore(options.maxInFlight());
+    }
+
+    /**
+     * Method to run one step, a warmup followed by the measured duration, at the given rate
+     *
+     * @param rate offered requests per second
+     * @return measurements of the step
+     */
+    public StepResult run(int rate) throws InterruptedException {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+        LongAdder completedInStep = new LongAdder();
+        long sent = 0;
+
+        double meanInterval = TimeUnit.SECONDS.toNanos(1) / (double) rate;
+        long start = System.nanoTime();
+        long measureStart = start + options.warmup().toNanos();
+        long measureEnd = measureStart + options.stepDuration().toNanos();
+
+        double intendedStart = start;
+        while (intendedStart < measureEnd) {
+            long intended = (long) intendedStart;
+            waitUntil(intended);
+            inFlight.acquire();
+
+            boolean measured = intended >= measureStart;
+            if (measured) {
+                sent++;
+            }
+            Operation operation = options.mix().next();
+
+            // Failed requests complete with a response too, so every request releases its permit
+            client.send(operation).thenAccept(response -> {
+                long now = System.nanoTime();
+                inFlight.release();
+                if (!measured) {
+                    return;
+                }
+                // Recorded under the operation actually sent, a GET or DELETE without objects is sent as POST
+                Operation sentOperation = response.operation();
+                recorders.get(sentOperation).recordValue(now - intended);
+                if (!sentOperation.isSuccess(response.status())) {
+                    errors.get(sentOperation).increment();
+                }
+                if (now <= measureEnd) {
+                    completedInStep.increment();
+                }
+            });
+
+            intendedStart += nextInterval(meanInterval);
+        }
+
+        long abandoned = drain();
+
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+        recorders.forEach((operation, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            if (histogram.getTotalCount() > 0) {
+                latencies.put(operation, histogram);
+                errorCounts.put(operation, errors.get(operation).sum());
+            }
+        });
+
+        return new StepResult(rate, options.stepDuration(), sent, completedInStep.sum(), abandoned, latencies, errorCounts);
+    }
+
+    private double nextInterval(double meanInterval) {
+        if (options.arrival() == LoadTestOptions.Arrival.CONSTANT) {
+            return meanInterval;
+        }
+        // Exponentially distributed gaps give Poisson arrivals
+        return -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanInterval;
+    }
+
+    /**
+     * Method to wait for the responses of the step. Requests fail on the client after the request timeout,
+     * any still running after twice that are abandoned, they complete after the step's results are taken.
+     *
+     * @return number of requests abandoned
+     */
+    private long drain() throws InterruptedException {
+        Duration timeout = options.requestTimeout().multipliedBy(2);
+        if (inFlight.tryAcquire(options.maxInFlight(), timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            inFlight.release(options.maxInFlight());
+            return 0;
+        }
+        return options.maxInFlight() - inFlight.availablePermits();
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.webapp.shreyas_purkar_002325982.loadtest;
+
+import java.util.Locale;
+
+/**
+ * Operations of the mixed workload and the status each of them answers with on success
+ */
+public enum Operation {
+    GET(200),
+    POST(201),
+    DELETE(204),
+    HEALTH(200);
+
+    private final int expectedStatus;
+
+    Operation(int expectedStatus) {
+        this.expectedStatus = expectedStatus;
+    }
+
+    public boolean isSuccess(int status) {
+        return status == expectedStatus;
+    }
+
+    public static Operation parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
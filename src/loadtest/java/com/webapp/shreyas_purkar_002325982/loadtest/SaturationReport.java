@@ -0,0 +1,165 @@
+package com.webapp.shreyas_purkar_002325982.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Throughput against latency percentiles for each step of the load test. The knee is the first step
+ * where p99 has grown by the knee factor over the first step, or where the service no longer keeps up
+ * with the offered rate.
+ */
+public class SaturationReport {
+
+    /**
+     * Share of the offered rate below which the service is considered saturated
+     */
+    private static final double MIN_THROUGHPUT_RATIO = 0.95;
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final List<StepResult> steps = new ArrayList<>();
+
+    private final double kneeFactor;
+
+    public SaturationReport(double kneeFactor) {
+        this.kneeFactor = kneeFactor;
+    }
+
+    public void add(StepResult step) {
+        steps.add(step);
+    }
+
+    /**
+     * Method to find the knee
+     *
+     * @return index of the first saturated step or -1 when all steps kept up
+     */
+    public int knee() {
+        if (steps.isEmpty()) {
+            return -1;
+        }
+        double baselineP99 = steps.get(0).overall().getValueAtPercentile(99);
+        for (int i = 0; i < steps.size(); i++) {
+            StepResult step = steps.get(i);
+            boolean latencyKnee = i > 0 && step.overall().getValueAtPercentile(99) > baselineP99 * kneeFactor;
+            boolean throughputKnee = step.throughput() < step.offeredRate() * MIN_THROUGHPUT_RATIO;
+            if (latencyKnee || throughputKnee) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void printHeader(PrintStream out) {
+        out.printf(Locale.ROOT, "%10s %12s %8s %10s %10s %10s %10s %8s %10s%n",
+                   "offered/s", "achieved/s", "sent", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors", "abandoned");
+    }
+
+    public void printStep(PrintStream out, StepResult step) {
+        Histogram overall = step.overall();
+        out.printf(Locale.ROOT, "%10d %12.1f %8d %10.2f %10.2f %10.2f %10.2f %8d %10d%n",
+                   step.offeredRate(),
+                   step.throughput(),
+                   step.sent(),
+                   millis(overall.getValueAtPercentile(50)),
+                   millis(overall.getValueAtPercentile(99)),
+                   millis(overall.getValueAtPercentile(99.9)),
+                   millis(overall.getMaxValue()),
+                   step.totalErrors(),
+                   step.abandoned());
+    }
+
+    /**
+     * Method to print the summary with the percentiles of each operation and the knee
+     */
+    public void print(PrintStream out) {
+        out.println();
+        out.println("Latency by operation (p50 / p99 / p99.9 ms)");
+        for (StepResult step : steps) {
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%10d/s", step.offeredRate()));
+            for (Map.Entry<Operation, Histogram> entry : step.latencies().entrySet()) {
+                Histogram histogram = entry.getValue();
+                line.append(String.format(Locale.ROOT, "   %s %.2f / %.2f / %.2f",
+                                          entry.getKey(),
+                                          millis(histogram.getValueAtPercentile(50)),
+                                          millis(histogram.getValueAtPercentile(99)),
+                                          millis(histogram.getValueAtPercentile(99.9))));
+            }
+            out.println(line);
+        }
+
+        out.println();
+        int knee = knee();
+        if (knee < 0) {
+            out.println("No knee found, the service kept up with all offered rates");
+        } else if (knee == 0) {
+            out.printf(Locale.ROOT, "Saturated at the first step of %d/s, start with a lower rate%n",
+                       steps.get(0).offeredRate());
+        } else {
+            out.printf(Locale.ROOT, "Knee at %d/s, last sustainable rate %d/s at %.1f/s achieved%n",
+                       steps.get(knee).offeredRate(),
+                       steps.get(knee - 1).offeredRate(),
+                       steps.get(knee - 1).throughput());
+        }
+    }
+
+    /**
+     * Method to write a CSV summary and the full latency distribution of every step
+     *
+     * @param directory to write to
+     */
+    public void write(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            int knee = knee();
+
+            List<String> lines = new ArrayList<>();
+            lines.add("offered_rate,achieved_rate,sent,abandoned,errors,operation,count,p50_ms,p99_ms,p999_ms,max_ms,knee");
+            for (int i = 0; i < steps.size(); i++) {
+                StepResult step = steps.get(i);
+                lines.add(csv(step, "ALL", step.overall(), step.totalErrors(), i == knee));
+                for (Map.Entry<Operation, Histogram> entry : step.latencies().entrySet()) {
+                    lines.add(csv(step, entry.getKey().name(), entry.getValue(),
+                                  step.errors().get(entry.getKey()), i == knee));
+                }
+
+                try (PrintStream out = new PrintStream(
+                        Files.newOutputStream(directory.resolve("step-" + step.offeredRate() + ".hgrm")))) {
+                    step.overall().outputPercentileDistribution(out, NANOS_PER_MILLI);
+                }
+            }
+            Files.write(directory.resolve("summary.csv"), lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(StepResult step, String operation, Histogram histogram, long errors, boolean knee) {
+        return String.format(Locale.ROOT, "%d,%.1f,%d,%d,%d,%s,%d,%.3f,%.3f,%.3f,%.3f,%b",
+                             step.offeredRate(),
+                             step.throughput(),
+                             step.sent(),
+                             step.abandoned(),
+                             errors,
+                             operation,
+                             histogram.getTotalCount(),
+                             millis(histogram.getValueAtPercentile(50)),
+                             millis(histogram.getValueAtPercentile(99)),
+                             millis(histogram.getValueAtPercentile(99.9)),
+                             millis(histogram.getMaxValue()),
+                             knee);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
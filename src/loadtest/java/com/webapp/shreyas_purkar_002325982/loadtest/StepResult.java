@@ -0,0 +1,48 @@
+package com.webapp.shreyas_purkar_002325982.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Measurements of one step of the load test. Latencies are in nanoseconds from the intended start of
+ * each request, so time spent queued behind a slow response is counted and not omitted.
+ *
+ * @param offeredRate requests per second the step was scheduled at
+ * @param duration measured duration of the step
+ * @param sent requests sent in the measured duration
+ * @param completedInStep requests that completed within the measured duration
+ * @param abandoned requests still running when the step ended, they are in neither latencies nor errors
+ * @param latencies per operation, only operations that were sent are present
+ * @param errors per operation, responses with an unexpected status and failed requests
+ */
+public record StepResult(int offeredRate,
+                         Duration duration,
+                         long sent,
+                         long completedInStep,
+                         long abandoned,
+                         Map<Operation, Histogram> latencies,
+                         Map<Operation, Long> errors) {
+
+    public double throughput() {
+        return completedInStep / (duration.toNanos() / 1e9);
+    }
+
+    public long totalErrors() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double errorRatio() {
+        return sent == 0 ? 0 : (double) (totalErrors() + abandoned) / sent;
+    }
+
+    /**
+     * Latencies of all operations of the step
+     */
+    public Histogram overall() {
+        Histogram overall = new Histogram(3);
+        latencies.values().forEach(overall::add);
+        return overall;
+    }
+}
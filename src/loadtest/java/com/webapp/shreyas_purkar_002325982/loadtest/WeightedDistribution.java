@@ -0,0 +1,83 @@
+package com.webapp.shreyas_purkar_002325982.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Picks values at random in proportion to their weights, parsed from a value:weight,value:weight list
+ *
+ * @param <T> type of the values
+ */
+public class WeightedDistribution<T> {
+
+    private final List<T> values = new ArrayList<>();
+
+    private final List<Double> cumulativeWeights = new ArrayList<>();
+
+    private double totalWeight;
+
+    /**
+     * Method to parse a distribution
+     *
+     * @param spec value:weight pairs separated by commas, such as 1KB:70,1MB:30
+     * @param parser to convert each value
+     */
+    public static <T> WeightedDistribution<T> parse(String spec, Function<String, T> parser) {
+        WeightedDistribution<T> distribution = new WeightedDistribution<>();
+        for (String entry : spec.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected value:weight but got " + entry);
+            }
+            distribution.add(parser.apply(entry.substring(0, separator).trim()),
+                             Double.parseDouble(entry.substring(separator + 1).trim()));
+        }
+        if (distribution.totalWeight <= 0) {
+            throw new IllegalArgumentException("Weights must add up to more than 0 in " + spec);
+        }
+        return distribution;
+    }
+
+    private void add(T value, double weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative for " + value);
+        }
+        if (weight == 0) {
+            return;
+        }
+        totalWeight += weight;
+        values.add(value);
+        cumulativeWeights.add(totalWeight);
+    }
+
+    public T next() {
+        double point = ThreadLocalRandom.current().nextDouble(totalWeight);
+        for (int i = 0; i < values.size(); i++) {
+            if (point < cumulativeWeights.get(i)) {
+                return values.get(i);
+            }
+        }
+        return values.get(values.size() - 1);
+    }
+
+    public List<T> values() {
+        return List.copyOf(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        double previous = 0;
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            double weight = cumulativeWeights.get(i) - previous;
+            builder.append(values.get(i)).append(' ').append(Math.round(weight * 100 / totalWeight)).append('%');
+            previous = cumulativeWeights.get(i);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,201 @@
+package com.webapp.shreyas_purkar_002325982.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends the operations of the workload to /v2/file and /healthz. Uploaded object ids are kept in a pool
+ * that GET and DELETE pick from, so the number of stored objects stays bounded by the mix.
+ */
+public class WorkloadClient {
+
+    private static final String BOUNDARY = "loadtest-" + UUID.randomUUID();
+
+    private final HttpClient httpClient;
+
+    private final URI baseUrl;
+
+    private final Duration requestTimeout;
+
+    private final WeightedDistribution<DataSize> uploadSizes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<String> objectIds = new ArrayList<>();
+
+    /**
+     * Random content shared by all uploads, each upload sends a prefix of it
+     */
+    private final byte[] content;
+
+    public WorkloadClient(LoadTestOptions options, Executor executor) {
+        this.httpClient = HttpClient.newBuilder()
+                                    .executor(executor)
+                                    .connectTimeout(options.requestTimeout())
+                                    .build();
+        this.baseUrl = options.baseUrl();
+        this.requestTimeout = options.requestTimeout();
+        this.uploadSizes = options.uploadSizes();
+
+        long largest = uploadSizes.values().stream().mapToLong(DataSize::toBytes).max().orElse(0);
+        this.content = new byte[Math.toIntExact(largest)];
+        ThreadLocalRandom.current().nextBytes(content);
+    }
+
+    /**
+     * Method to send one operation. GET and DELETE turn into POST while there are no objects to work on.
+     *
+     * @param operation to send
+     * @return operation actually sent and the status of its response, never completes exceptionally
+     */
+    public CompletableFuture<Response> send(Operation operation) {
+        String objectId = switch (operation) {
+            case GET -> randomObjectId(false);
+            case DELETE -> randomObjectId(true);
+            default -> null;
+        };
+        Operation sent = objectId == null && (operation == Operation.GET || operation == Operation.DELETE)
+                ? Operation.POST
+                : operation;
+
+        CompletableFuture<Integer> status = switch (sent) {
+            case GET -> get(objectId);
+            case DELETE -> delete(objectId);
+            case POST -> upload(uploadSizes.next());
+            case HEALTH -> healthCheck();
+        };
+        return status.handle((code, failure) -> new Response(sent, failure == null ? code : Response.NO_RESPONSE));
+    }
+
+    /**
+     * Response to an operation of the workload
+     *
+     * @param operation actually sent
+     * @param status of the response, NO_RESPONSE when the request failed, e.g. on timeout
+     */
+    public record Response(Operation operation, int status) {
+
+        public static final int NO_RESPONSE = 0;
+    }
+
+    /**
+     * Method to upload objects before the test so GET and DELETE have objects from the start
+     *
+     * @param count of objects to upload
+     */
+    public void seed(int count) {
+        DataSize smallest = uploadSizes.values().stream().min(DataSize::compareTo).orElseThrow();
+        List<CompletableFuture<Integer>> uploads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uploads.add(upload(smallest));
+        }
+        CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Method to delete the objects left over by the test
+     */
+    public void cleanUp() {
+        List<CompletableFuture<Integer>> deletes = new ArrayList<>();
+        String objectId;
+        while ((objectId = randomObjectId(true)) != null) {
+            deletes.add(delete(objectId));
+        }
+        CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private CompletableFuture<Integer> get(String objectId) {
+        return httpClient.sendAsync(request("/v2/file/" + objectId).GET().build(), HttpResponse.BodyHandlers.discarding())
+                         .thenApply(HttpResponse::statusCode);
+    }
+
+    private CompletableFuture<Integer> delete(String objectId) {
+        return httpClient.sendAsync(request("/v2/file/" + objectId).DELETE().build(), HttpResponse.BodyHandlers.discarding())
+                         .thenApply(HttpResponse::statusCode);
+    }
+
+    private CompletableFuture<Integer> healthCheck() {
+        return httpClient.sendAsync(request("/healthz").GET().build(), HttpResponse.BodyHandlers.discarding())
+                         .thenApply(HttpResponse::statusCode);
+    }
+
+    private CompletableFuture<Integer> upload(DataSize size) {
+        String fileName = "loadtest-" + size.toBytes() + ".bin";
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.concat(
+                HttpRequest.BodyPublishers.ofByteArray(head),
+                HttpRequest.BodyPublishers.ofByteArray(content, 0, Math.toIntExact(size.toBytes())),
+                HttpRequest.BodyPublishers.ofByteArray(tail));
+
+        HttpRequest request = request("/v2/file")
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(body)
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                         .thenApply(response -> {
+                             if (Operation.POST.isSuccess(response.statusCode())) {
+                                 addObjectId(response.body());
+                             }
+                             return response.statusCode();
+                         });
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUrl.resolve(path)).timeout(requestTimeout);
+    }
+
+    private void addObjectId(byte[] body) {
+        try {
+            JsonNode objectId = objectMapper.readTree(body).get("objectId");
+            if (objectId != null) {
+                synchronized (objectIds) {
+                    objectIds.add(objectId.asText());
+                }
+            }
+        } catch (Exception e) {
+            // The upload itself succeeded, the object is only left out of the pool
+        }
+    }
+
+    /**
+     * Method to pick a random object id from the pool
+     *
+     * @param remove the id from the pool, for deletes
+     * @return object id or null when the pool is empty
+     */
+    private String randomObjectId(boolean remove) {
+        synchronized (objectIds) {
+            if (objectIds.isEmpty()) {
+                return null;
+            }
+            int index = ThreadLocalRandom.current().nextInt(objectIds.size());
+            if (!remove) {
+                return objectIds.get(index);
+            }
+            // Swap with the last element so removal does not shift the list
+            String objectId = objectIds.get(index);
+            objectIds.set(index, objectIds.get(objectIds.size() - 1));
+            objectIds.remove(objectIds.size() - 1);
+            return objectId;
+        }
+    }
+}
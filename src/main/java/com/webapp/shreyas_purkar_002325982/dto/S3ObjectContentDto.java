@@ -0,0 +1,19 @@
+package com.webapp.shreyas_purkar_002325982.dto;
+
+import com.webapp.shreyas_purkar_002325982.service.StoredObjectContent;
+import lombok.*;
+
+/**
+ * DTO for the content of an S3 object, the content stream must be closed by the caller
+ */
+@Data
+public class S3ObjectContentDto {
+    private String fileName;
+    private String contentType;
+    private Long contentLength;
+    private String contentRange;
+    private String etag;
+    private String contentEncoding;
+    private boolean compressed;
+    private StoredObjectContent content;
+}
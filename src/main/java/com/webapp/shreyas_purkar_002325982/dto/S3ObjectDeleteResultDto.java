@@ -0,0 +1,12 @@
+package com.webapp.shreyas_purkar_002325982.dto;
+
+import lombok.*;
+
+/**
+ * DTO for the result of one Id of a bulk delete
+ */
+@Data
+public class S3ObjectDeleteResultDto {
+    private String objectId;
+    private int status;
+}
@@ -0,0 +1,14 @@
+package com.webapp.shreyas_purkar_002325982.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO for one page of S3 objects, the next cursor is null on the last page
+ */
+@Data
+public class S3ObjectPageDto {
+    private List<S3ObjectDto> items;
+    private String nextCursor;
+}
@@ -0,0 +1,13 @@
+package com.webapp.shreyas_purkar_002325982.dto;
+
+import lombok.*;
+
+/**
+ * DTO for the result of one file of a batch upload
+ */
+@Data
+public class S3ObjectUploadResultDto {
+    private String fileName;
+    private int status;
+    private S3ObjectDto object;
+}
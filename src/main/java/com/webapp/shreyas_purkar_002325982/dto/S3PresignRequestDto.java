@@ -0,0 +1,13 @@
+package com.webapp.shreyas_purkar_002325982.dto;
+
+import lombok.*;
+
+/**
+ * DTO for the file of a presigned upload
+ */
+@Data
+public class S3PresignRequestDto {
+    private String fileName;
+    private String contentType;
+    private Long contentLength;
+}
@@ -0,0 +1,18 @@
+package com.webapp.shreyas_purkar_002325982.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * DTO for a presigned S3 request, the client sends it to S3 directly with the given method and headers
+ */
+@Data
+public class S3PresignedUrlDto {
+    private String objectId;
+    private String method;
+    private String url;
+    private Map<String, String> headers;
+    private Instant expiresAt;
+}
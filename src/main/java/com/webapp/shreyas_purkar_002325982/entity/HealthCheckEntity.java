@@ -19,4 +19,10 @@ public class HealthCheckEntity {
 
     @Column(name = "datetime", nullable = false)
     private Instant dateTime;
+
+    /**
+     * Number of health probes answered by the previous check
+     */
+    @Column(name = "probe_count", nullable = false)
+    private Long probeCount;
 }
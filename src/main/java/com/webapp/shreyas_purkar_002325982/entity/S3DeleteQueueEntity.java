@@ -0,0 +1,38 @@
+package com.webapp.shreyas_purkar_002325982.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Entity class for S3 objects waiting to be deleted
+ */
+@Data
+@Entity
+@Table(name = "s3_delete_queue")
+public class S3DeleteQueueEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "enqueued_at", nullable = false)
+    private Instant enqueuedAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "object_key", nullable = false)
+    private String objectKey;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "claim_token")
+    private UUID claimToken;
+}
@@ -0,0 +1,43 @@
+package com.webapp.shreyas_purkar_002325982.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Entity class for stored objects shared by uploads with the same content
+ */
+@Data
+@Entity
+@Table(name = "s3_object_content")
+public class S3ObjectContentEntity {
+
+    /**
+     * Hex encoded SHA-256 digest of the content
+     */
+    @Id
+    @Column(name = "digest", nullable = false)
+    private String digest;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "content_length", nullable = false)
+    private Long contentLength;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "object_key", nullable = false)
+    private String objectKey;
+
+    @Column(name = "etag")
+    private String etag;
+
+    @Column(name = "content_encoding")
+    private String contentEncoding;
+
+    @Column(name = "stored_length")
+    private Long storedLength;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.Instant;
+import java.util.UUID;
 
 /**
  * Entity class for S3 objects
@@ -14,42 +15,77 @@ import java.time.Instant;
 public class S3ObjectEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "s3_object_metadata_id_seq")
+    @SequenceGenerator(name = "s3_object_metadata_id_seq", sequenceName = "s3_object_metadata_id_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "file_name", nullable = false)
-    private String fileName;
-
-    @Column(name = "object_id", nullable = false)
-    private String objectId;
-
-    @Column(name = "url", nullable = false)
-    private String url;
+    @Column(name = "object_id", nullable = false, unique = true)
+    private UUID objectId;
 
     @Column(name = "upload_date", nullable = false)
     private Instant uploadDate;
 
-    @Column(name = "ContentLength", nullable = false)
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    @Column(name = "content_length", nullable = false)
     private Long contentLength;
 
-    @Column(name = "ContentType", nullable = false)
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type", nullable = false)
     private String contentType;
 
-    @Column(name = "ETag")
+    @Column(name = "etag")
     private String etag;
 
-    @Column(name = "AcceptRanges")
+    @Column(name = "accept_ranges")
     private String acceptRanges;
 
-    @Column(name = "ServerSideEncryption")
+    @Column(name = "server_side_encryption")
     private String serverSideEncryption;
 
-    @Column(name = "LastModified")
-    private String lastModified;
+    @Column(name = "aws_request_id")
+    private String awsRequestId;
 
-    @Column(name = "x-amz-id-2")
+    @Column(name = "extended_request_id")
     private String extendedRequestId;
 
-    @Column(name = "x-amz-request-id")
-    private String awsRequestId;
+    /**
+     * Key of the shared object for deduplicated uploads, null for objects stored under their own key
+     */
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    /**
+     * Hex encoded SHA-256 digest of deduplicated uploads, the reference held on s3_object_content
+     */
+    @Column(name = "content_digest")
+    private String contentDigest;
+
+    /**
+     * Encoding of the stored bytes for compressed uploads, null for uploads stored unchanged
+     */
+    @Column(name = "content_encoding")
+    private String contentEncoding;
+
+    /**
+     * Length of the stored bytes for compressed uploads, contentLength is the length of the upload
+     */
+    @Column(name = "stored_length")
+    private Long storedLength;
+
+    /**
+     * Delete queue entry reserved for the upload of the object, removed when the metadata is inserted
+     */
+    @Transient
+    private Long compensationId;
+
+    /**
+     * Key of the object in the S3 bucket
+     */
+    public String getObjectKey() {
+        return storageKey != null ? storageKey : objectId + "/" + fileName;
+    }
 }
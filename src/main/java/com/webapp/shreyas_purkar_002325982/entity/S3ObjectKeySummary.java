@@ -0,0 +1,18 @@
+package com.webapp.shreyas_purkar_002325982.entity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Projection of the S3 object metadata columns needed for reconciling with the storage backend
+ */
+public interface S3ObjectKeySummary {
+
+    String getObjectKey();
+
+    UUID getObjectId();
+
+    Instant getUploadDate();
+
+    String getContentDigest();
+}
@@ -0,0 +1,27 @@
+package com.webapp.shreyas_purkar_002325982.entity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Projection of the S3 object metadata columns needed for listing
+ */
+public interface S3ObjectSummary {
+
+    Long getId();
+
+    UUID getObjectId();
+
+    String getFileName();
+
+    Instant getUploadDate();
+
+    String getStorageKey();
+
+    /**
+     * Key of the object in the S3 bucket
+     */
+    default String getObjectKey() {
+        return getStorageKey() != null ? getStorageKey() : getObjectId() + "/" + getFileName();
+    }
+}
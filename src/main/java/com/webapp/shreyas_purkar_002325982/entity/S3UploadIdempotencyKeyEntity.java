@@ -0,0 +1,47 @@
+package com.webapp.shreyas_purkar_002325982.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Entity class for idempotency keys of uploads
+ */
+@Data
+@Entity
+@Table(name = "s3_upload_idempotency_key")
+public class S3UploadIdempotencyKeyEntity {
+
+    @Id
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "lease_expires_at", nullable = false)
+    private Instant leaseExpiresAt;
+
+    /**
+     * File name, content type and length of the upload, a key is only replayed for the same upload
+     */
+    @Column(name = "fingerprint", nullable = false)
+    private String fingerprint;
+
+    /**
+     * Token of the request holding the key, generated for each claim
+     */
+    @Column(name = "claim_token")
+    private UUID claimToken;
+
+    /**
+     * Id of the created S3 object, null while the upload is in flight
+     */
+    @Column(name = "object_id")
+    private UUID objectId;
+}
@@ -0,0 +1,9 @@
+package com.webapp.shreyas_purkar_002325982.exception;
+
+/**
+ * Exception to handle failure while reading file content from S3
+ */
+public class FileDownloadException extends RuntimeException {
+
+    public FileDownloadException() {}
+}
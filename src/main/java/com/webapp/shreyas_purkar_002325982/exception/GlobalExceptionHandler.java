@@ -29,6 +29,14 @@ public class GlobalExceptionHandler {
         return getMapResponseEntityForServiceUnavailable();
     }
 
+    /**
+     * Exception to handle an unavailable storage backend
+     */
+    @ExceptionHandler(StorageUnavailableException.class)
+    public ResponseEntity<String> handleStorageUnavailableException() {
+        return getMapResponseEntityForServiceUnavailable();
+    }
+
     private ResponseEntity<String> getMapResponseEntityForServiceUnavailable() {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
     }
@@ -108,6 +116,38 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
+    /**
+     * Exception to handle uploads with a malformed body or an invalid file description
+     */
+    @ExceptionHandler(InvalidUploadException.class)
+    public ResponseEntity<String> handleInvalidUploadException() {
+        return getMapResponseEntityForBadRequest();
+    }
+
+    /**
+     * Exception to handle bulk deletes with too many Ids
+     */
+    @ExceptionHandler(InvalidDeleteRequestException.class)
+    public ResponseEntity<String> handleInvalidDeleteRequestException() {
+        return getMapResponseEntityForBadRequest();
+    }
+
+    /**
+     * Exception to handle malformed pagination cursors
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> handleInvalidCursorException() {
+        return getMapResponseEntityForBadRequest();
+    }
+
+    /**
+     * Exception to handle range requests that are valid but not satisfiable
+     */
+    @ExceptionHandler(InvalidRangeException.class)
+    public ResponseEntity<String> handleInvalidRangeException() {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
+    }
+
     /**
      * Exception to handle incorrect content type (if request body is not multipart/form-data)
      */
@@ -160,6 +200,14 @@ public class GlobalExceptionHandler {
         return getMapResponseEntityForServiceUnavailable();
     }
 
+    /**
+     * Exception to handle file download failure
+     */
+    @ExceptionHandler(FileDownloadException.class)
+    public ResponseEntity<String> handleFileDownloadException() {
+        return getMapResponseEntityForServiceUnavailable();
+    }
+
     /**
      * Exception to handle fetch object metadata failure
      */
@@ -168,6 +216,22 @@ public class GlobalExceptionHandler {
         return getMapResponseEntityForServiceUnavailable();
     }
 
+    /**
+     * Exception to handle an idempotency key reused for a different upload
+     */
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<String> handleIdempotencyKeyMismatchException() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+    }
+
+    /**
+     * Exception to handle a retry whose original upload is still in flight
+     */
+    @ExceptionHandler(IdempotencyKeyInFlightException.class)
+    public ResponseEntity<String> handleIdempotencyKeyInFlightException() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
     /**
      * Exception to handle missing IAM credentials
      */
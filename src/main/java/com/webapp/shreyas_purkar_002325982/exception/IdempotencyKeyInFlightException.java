@@ -0,0 +1,9 @@
+package com.webapp.shreyas_purkar_002325982.exception;
+
+/**
+ * Exception to handle a retry whose original upload is still in flight after waiting for it
+ */
+public class IdempotencyKeyInFlightException extends RuntimeException {
+
+    public IdempotencyKeyInFlightException() {}
+}
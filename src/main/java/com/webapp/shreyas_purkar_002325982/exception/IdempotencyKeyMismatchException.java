@@ -0,0 +1,9 @@
+package com.webapp.shreyas_purkar_002325982.exception;
+
+/**
+ * Exception to handle an idempotency key reused for a different upload
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException() {}
+}
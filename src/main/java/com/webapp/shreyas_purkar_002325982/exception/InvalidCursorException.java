@@ -0,0 +1,9 @@
+package com.webapp.shreyas_purkar_002325982.exception;
+
+/**
+ * Exception to handle a malformed pagination cursor
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException() {}
+}
@@ -0,0 +1,9 @@
+package com.webapp.shreyas_purkar_002325982.exception;
+
+/**
+ * Exception to handle bulk deletes with more Ids than one request accepts
+ */
+public class InvalidDeleteRequestException extends RuntimeException {
+
+    public InvalidDeleteRequestException() {}
+}
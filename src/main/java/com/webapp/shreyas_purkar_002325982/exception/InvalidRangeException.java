@@ -0,0 +1,9 @@
+package com.webapp.shreyas_purkar_002325982.exception;
+
+/**
+ * Exception to handle malformed or unsatisfiable range requests
+ */
+public class InvalidRangeException extends RuntimeException {
+
+    public InvalidRangeException() {}
+}
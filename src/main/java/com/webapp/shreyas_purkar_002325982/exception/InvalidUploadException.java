@@ -0,0 +1,9 @@
+package com.webapp.shreyas_purkar_002325982.exception;
+
+/**
+ * Exception to handle uploads with a malformed body or an invalid file description
+ */
+public class InvalidUploadException extends RuntimeException {
+
+    public InvalidUploadException() {}
+}
@@ -0,0 +1,9 @@
+package com.webapp.shreyas_purkar_002325982.exception;
+
+/**
+ * Exception to handle an unavailable storage backend, such as an S3 outage
+ */
+public class StorageUnavailableException extends RuntimeException {
+
+    public StorageUnavailableException() {}
+}
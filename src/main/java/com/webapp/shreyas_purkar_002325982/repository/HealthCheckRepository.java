@@ -2,11 +2,35 @@ package com.webapp.shreyas_purkar_002325982.repository;
 
 import com.webapp.shreyas_purkar_002325982.entity.HealthCheckEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository to store health check data
  */
 @Repository
 public interface HealthCheckRepository extends JpaRepository<HealthCheckEntity, Long> {
+
+    /**
+     * Method to create the missing daily partitions from today up to days ahead
+     *
+     * @param daysAhead number of days to create partitions for
+     * @return number of created partitions
+     */
+    @Transactional
+    @Query(value = "select ensure_health_check_partitions(:daysAhead)", nativeQuery = true)
+    int ensurePartitions(@Param("daysAhead") int daysAhead);
+
+    /**
+     * Method to roll the partitions older than the retention up into per-minute counts and record them to be
+     * dropped. Expired rows of the default partition are rolled up and deleted.
+     *
+     * @param retentionDays number of days to keep raw health checks for
+     * @return number of rolled up partitions
+     */
+    @Transactional
+    @Query(value = "select roll_up_health_check(:retentionDays)", nativeQuery = true)
+    int rollUpExpiredPartitions(@Param("retentionDays") int retentionDays);
 }
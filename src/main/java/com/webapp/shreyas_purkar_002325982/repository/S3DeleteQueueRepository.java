@@ -0,0 +1,134 @@
+package com.webapp.shreyas_purkar_002325982.repository;
+
+import com.webapp.shreyas_purkar_002325982.entity.S3DeleteQueueEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository to store S3 objects waiting to be deleted
+ */
+@Repository
+public interface S3DeleteQueueRepository extends JpaRepository<S3DeleteQueueEntity, Long> {
+
+    /**
+     * Claim due entries for deletion. Claimed entries are leased by pushing their next attempt into
+     * the future and tagged with the claim token, entries locked by another instance are skipped.
+     *
+     * @param claimToken identifying this claim
+     * @param limit maximum number of entries to claim
+     * @param leaseSeconds after which an unfinished entry is due again
+     * @return number of claimed entries
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update s3_delete_queue set attempts = attempts + 1, claim_token = :claimToken, " +
+            "next_attempt_at = now() + make_interval(secs => :leaseSeconds) " +
+            "where id in (select id from s3_delete_queue where next_attempt_at <= now() " +
+            "order by next_attempt_at limit :limit for update skip locked)", nativeQuery = true)
+    int claimDue(@Param("claimToken") UUID claimToken, @Param("limit") int limit, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Find the entries claimed with a claim token
+     *
+     * @param claimToken of the claim
+     * @return claimed entries
+     */
+    List<S3DeleteQueueEntity> findAllByClaimToken(UUID claimToken);
+
+    /**
+     * Reserve the compensating delete of an upload before the object is stored. The entry only becomes
+     * due after the grace period, an upload removes it together with inserting its metadata.
+     *
+     * @param objectKey of the object to be uploaded
+     * @param graceSeconds after which the object is deleted unless its metadata is persisted
+     * @return id of the entry
+     */
+    @Transactional
+    @Query(value = "insert into s3_delete_queue (object_key, next_attempt_at) " +
+            "values (:objectKey, now() + make_interval(secs => :graceSeconds)) returning id", nativeQuery = true)
+    Long reserve(@Param("objectKey") String objectKey, @Param("graceSeconds") long graceSeconds);
+
+    /**
+     * Delete reserved entries that the reaper has not claimed yet
+     *
+     * @param ids of entries
+     * @return number of deleted entries
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from S3DeleteQueueEntity e where e.id in :ids and e.attempts = 0")
+    int deleteUnclaimed(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Make reserved entries due right away, for uploads that failed
+     *
+     * @param ids of entries
+     * @return number of updated entries
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update s3_delete_queue set next_attempt_at = now() where id in :ids and attempts = 0", nativeQuery = true)
+    int expedite(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Delete the entries of deleted S3 objects
+     *
+     * @param ids of entries
+     * @return number of deleted entries
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from S3DeleteQueueEntity e where e.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Schedule the next attempt of failed entries with exponential backoff on their attempts
+     *
+     * @param ids of entries
+     * @param error of the failed attempt
+     * @param maxBackoffSeconds upper bound of the backoff
+     * @return number of updated entries
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update s3_delete_queue set last_error = :error, " +
+            "next_attempt_at = now() + make_interval(secs => least(power(2, attempts), :maxBackoffSeconds)) " +
+            "where id in :ids", nativeQuery = true)
+    int reschedule(@Param("ids") Collection<Long> ids, @Param("error") String error,
+                   @Param("maxBackoffSeconds") long maxBackoffSeconds);
+
+    /**
+     * Find which of the given keys are queued for deletion
+     *
+     * @param objectKeys of S3 objects
+     * @return queued keys
+     */
+    @Query("select distinct e.objectKey from S3DeleteQueueEntity e where e.objectKey in :objectKeys")
+    List<String> findQueuedKeys(@Param("objectKeys") Collection<String> objectKeys);
+
+    /**
+     * Count the entries of the backlog. Reservations of uploads in progress are not due and never
+     * attempted, they are left out.
+     *
+     * @return number of due or retried entries
+     */
+    @Query("select count(e) from S3DeleteQueueEntity e where e.nextAttemptAt <= current_timestamp or e.attempts > 0")
+    long countBacklog();
+
+    /**
+     * Find the time the oldest entry of the backlog was enqueued at, leaving out reservations of uploads in progress
+     *
+     * @return enqueue time, null when the backlog is empty
+     */
+    @Query("select min(e.enqueuedAt) from S3DeleteQueueEntity e where e.nextAttemptAt <= current_timestamp or e.attempts > 0")
+    Instant findOldestEnqueuedAt();
+}
@@ -0,0 +1,81 @@
+package com.webapp.shreyas_purkar_002325982.repository;
+
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectContentEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository to store the content-addressed index of stored objects
+ */
+@Repository
+public interface S3ObjectContentRepository extends JpaRepository<S3ObjectContentEntity, String> {
+
+    /**
+     * Take a reference on the stored object with given digest, released objects are not shared
+     *
+     * @param digest of the content
+     * @return the referenced object, empty when no object with the digest is stored
+     */
+    @Transactional
+    @Query(value = "update s3_object_content set ref_count = ref_count + 1 " +
+            "where digest = :digest and ref_count > 0 returning *", nativeQuery = true)
+    List<S3ObjectContentEntity> acquire(@Param("digest") String digest);
+
+    /**
+     * Register a newly stored object with one reference. When another upload registered the same
+     * digest first, a reference is taken on that object instead and its key is returned.
+     *
+     * @param digest of the content
+     * @param objectKey of the newly stored object
+     * @param contentLength of the content
+     * @param etag of the newly stored object
+     * @param contentEncoding of the newly stored object, null when stored unchanged
+     * @param storedLength of the newly stored object
+     * @return the referenced object
+     */
+    @Transactional
+    @Query(value = "insert into s3_object_content (digest, content_length, ref_count, object_key, etag, content_encoding, stored_length) " +
+            "values (:digest, :contentLength, 1, :objectKey, :etag, :contentEncoding, :storedLength) " +
+            "on conflict (digest) do update set ref_count = s3_object_content.ref_count + 1, " +
+            "created_at = case when s3_object_content.ref_count = 0 then now() else s3_object_content.created_at end, " +
+            "object_key = case when s3_object_content.ref_count = 0 then excluded.object_key else s3_object_content.object_key end, " +
+            "etag = case when s3_object_content.ref_count = 0 then excluded.etag else s3_object_content.etag end, " +
+            "content_encoding = case when s3_object_content.ref_count = 0 then excluded.content_encoding else s3_object_content.content_encoding end, " +
+            "stored_length = case when s3_object_content.ref_count = 0 then excluded.stored_length else s3_object_content.stored_length end " +
+            "returning *", nativeQuery = true)
+    List<S3ObjectContentEntity> register(@Param("digest") String digest, @Param("objectKey") String objectKey,
+                                         @Param("contentLength") long contentLength, @Param("etag") String etag,
+                                         @Param("contentEncoding") String contentEncoding, @Param("storedLength") long storedLength);
+
+    /**
+     * Release references on the stored object with given digest. The object is queued for deletion in
+     * the same statement that releases its last reference, so it is deleted even when the caller fails
+     * right after.
+     *
+     * @param digest of the content
+     * @param count of references to release
+     * @return number of queued objects
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "with released as (update s3_object_content set ref_count = greatest(ref_count - :count, 0) " +
+            "where digest = :digest and ref_count > 0 returning ref_count, object_key) " +
+            "insert into s3_delete_queue (object_key) select object_key from released where ref_count = 0", nativeQuery = true)
+    int release(@Param("digest") String digest, @Param("count") int count);
+
+    /**
+     * Delete the entries of all released objects, their objects were queued for deletion on release
+     *
+     * @return number of deleted entries
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from S3ObjectContentEntity e where e.refCount = 0")
+    int deleteAllUnreferenced();
+}
@@ -1,8 +1,20 @@
 package com.webapp.shreyas_purkar_002325982.repository;
 
 import com.webapp.shreyas_purkar_002325982.entity.S3ObjectEntity;
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectKeySummary;
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectSummary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Repository to store S3 object metadata
@@ -16,5 +28,127 @@ public interface S3ObjectMetadataRepository extends JpaRepository<S3ObjectEntity
      * @param objectId for object in S3
      * @return S3ObjectEntity
      */
-    S3ObjectEntity findByObjectId(String objectId);
+    S3ObjectEntity findByObjectId(UUID objectId);
+
+    /**
+     * Find the first page of S3 objects, newest first
+     *
+     * @param limit maximum number of objects
+     * @return S3ObjectSummary list
+     */
+    @Query("select e.id as id, e.objectId as objectId, e.fileName as fileName, e.uploadDate as uploadDate, " +
+            "e.storageKey as storageKey " +
+            "from S3ObjectEntity e order by e.uploadDate desc, e.id desc")
+    List<S3ObjectSummary> findFirstPage(Limit limit);
+
+    /**
+     * Find the page of S3 objects after the given position, newest first. Seeks on the
+     * (upload_date, id) index instead of skipping rows, so every page costs the same.
+     *
+     * @param uploadDate of the last object of the previous page
+     * @param id of the last object of the previous page
+     * @param limit maximum number of objects
+     * @return S3ObjectSummary list
+     */
+    @Query("select e.id as id, e.objectId as objectId, e.fileName as fileName, e.uploadDate as uploadDate, " +
+            "e.storageKey as storageKey " +
+            "from S3ObjectEntity e where (e.uploadDate, e.id) < (:uploadDate, :id) order by e.uploadDate desc, e.id desc")
+    List<S3ObjectSummary> findPageAfter(@Param("uploadDate") Instant uploadDate, @Param("id") Long id, Limit limit);
+
+    /**
+     * Find the page of S3 objects after the given position in storage key order, bytewise like
+     * storage listings. Seeks on the (object key, object_id) index, deduplicated objects share a key.
+     *
+     * @param afterKey storage key of the last object of the previous page
+     * @param afterId object Id of the last object of the previous page
+     * @param upperKey storage key before which the page ends
+     * @param limit maximum number of objects
+     * @return S3ObjectKeySummary list
+     */
+    @Query(value = "select coalesce(storage_key, object_id::text || '/' || file_name) as \"objectKey\", " +
+            "object_id as \"objectId\", upload_date as \"uploadDate\", content_digest as \"contentDigest\" " +
+            "from s3_object_metadata " +
+            "where (coalesce(storage_key, object_id::text || '/' || file_name) collate \"C\", object_id) " +
+            "> (cast(:afterKey as text) collate \"C\", cast(:afterId as uuid)) " +
+            "and coalesce(storage_key, object_id::text || '/' || file_name) collate \"C\" < cast(:upperKey as text) collate \"C\" " +
+            "order by coalesce(storage_key, object_id::text || '/' || file_name) collate \"C\", object_id " +
+            "limit :limit", nativeQuery = true)
+    List<S3ObjectKeySummary> findKeyPageAfter(@Param("afterKey") String afterKey, @Param("afterId") UUID afterId,
+                                              @Param("upperKey") String upperKey, @Param("limit") int limit);
+
+    /**
+     * Find the S3 objects for given object Ids
+     *
+     * @param objectIds for objects in S3
+     * @return S3ObjectEntity list
+     */
+    List<S3ObjectEntity> findAllByObjectIdIn(Collection<UUID> objectIds);
+
+    /**
+     * Delete the S3 object metadata for given object Ids in one statement
+     *
+     * @param objectIds for objects in S3
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from S3ObjectEntity e where e.objectId in :objectIds")
+    int deleteAllByObjectIdIn(@Param("objectIds") Collection<UUID> objectIds);
+
+    /**
+     * Update the metadata that is only available from a HEAD call on the S3 object
+     *
+     * @param objectId for object in S3
+     * @param acceptRanges of the object
+     * @param lastModified time of the object
+     * @return number of updated rows
+     */
+    @Modifying
+    @Transactional
+    @Query("update S3ObjectEntity e set e.acceptRanges = :acceptRanges, e.lastModified = :lastModified where e.objectId = :objectId")
+    int updateHeadMetadata(@Param("objectId") UUID objectId,
+                           @Param("acceptRanges") String acceptRanges,
+                           @Param("lastModified") Instant lastModified);
+
+    /**
+     * Delete the S3 object metadata for given object Id and queue its S3 key for deletion,
+     * in one statement. A deduplicated object releases its reference instead, its shared key is
+     * only queued once the last reference is released. The row is locked first, so concurrent
+     * deletes of the same object release its reference once.
+     *
+     * @param objectId for object in S3
+     * @return number of deleted metadata rows
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "with target as (select object_id, content_digest, " +
+            "coalesce(storage_key, object_id::text || '/' || file_name) as object_key " +
+            "from s3_object_metadata where object_id = :objectId for update), " +
+            "released as (update s3_object_content c set ref_count = greatest(c.ref_count - 1, 0) from target t " +
+            "where c.digest = t.content_digest and c.ref_count > 0 returning c.ref_count, c.object_key), " +
+            "queued as (insert into s3_delete_queue (object_key) " +
+            "select object_key from target where content_digest is null " +
+            "union all select object_key from released where ref_count = 0) " +
+            "delete from s3_object_metadata where object_id in (select object_id from target)", nativeQuery = true)
+    int deleteAndQueueObject(@Param("objectId") UUID objectId);
+
+    /**
+     * Delete the S3 object metadata for given object Ids and release their references on deduplicated
+     * objects, in one statement. Shared keys whose last reference is released are queued for deletion,
+     * keys of objects that are not deduplicated are left to the caller.
+     *
+     * @param objectIds for objects in S3
+     * @return number of deleted metadata rows
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "with target as (select object_id, content_digest from s3_object_metadata " +
+            "where object_id in (:objectIds) for update), " +
+            "released as (update s3_object_content c set ref_count = greatest(c.ref_count - r.refs, 0) " +
+            "from (select content_digest, count(*) as refs from target where content_digest is not null " +
+            "group by content_digest) r " +
+            "where c.digest = r.content_digest and c.ref_count > 0 returning c.ref_count, c.object_key), " +
+            "queued as (insert into s3_delete_queue (object_key) select object_key from released where ref_count = 0) " +
+            "delete from s3_object_metadata where object_id in (select object_id from target)", nativeQuery = true)
+    int deleteAndReleaseObjects(@Param("objectIds") Collection<UUID> objectIds);
 }
@@ -0,0 +1,98 @@
+package com.webapp.shreyas_purkar_002325982.repository;
+
+import com.webapp.shreyas_purkar_002325982.entity.S3UploadIdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository to store idempotency keys of uploads
+ */
+@Repository
+public interface S3UploadIdempotencyKeyRepository extends JpaRepository<S3UploadIdempotencyKeyEntity, String> {
+
+    /**
+     * Claim a key for a new upload. Expired keys and keys of uploads whose lease ran out are taken
+     * over, keys held by another upload are left alone.
+     *
+     * @param idempotencyKey sent by the client
+     * @param fingerprint of the upload
+     * @param claimToken identifying this claim
+     * @param ttlSeconds after which the key expires
+     * @param leaseSeconds after which an unfinished upload is considered abandoned
+     * @return the claimed key, empty when the key is held by another upload
+     */
+    @Transactional
+    @Query(value = "insert into s3_upload_idempotency_key (idempotency_key, expires_at, lease_expires_at, fingerprint, claim_token) " +
+            "values (:idempotencyKey, now() + make_interval(secs => :ttlSeconds), " +
+            "now() + make_interval(secs => :leaseSeconds), :fingerprint, :claimToken) " +
+            "on conflict (idempotency_key) do update set created_at = now(), expires_at = excluded.expires_at, " +
+            "lease_expires_at = excluded.lease_expires_at, fingerprint = excluded.fingerprint, " +
+            "claim_token = excluded.claim_token, object_id = null " +
+            "where s3_upload_idempotency_key.expires_at <= now() " +
+            "or (s3_upload_idempotency_key.object_id is null and s3_upload_idempotency_key.lease_expires_at <= now()) " +
+            "returning *", nativeQuery = true)
+    List<S3UploadIdempotencyKeyEntity> claim(@Param("idempotencyKey") String idempotencyKey,
+                                             @Param("fingerprint") String fingerprint,
+                                             @Param("claimToken") UUID claimToken,
+                                             @Param("ttlSeconds") long ttlSeconds,
+                                             @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Extend the leases of uploads still in flight, so long uploads are not taken over by a retry
+     *
+     * @param claimTokens of the claims held by the uploads
+     * @param leaseSeconds after which an unfinished upload is considered abandoned
+     * @return number of renewed keys
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update s3_upload_idempotency_key set lease_expires_at = now() + make_interval(secs => :leaseSeconds) " +
+            "where claim_token in (:claimTokens) and object_id is null", nativeQuery = true)
+    int renew(@Param("claimTokens") Collection<UUID> claimTokens, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Record the S3 object created by the upload of a key, unless the claim was taken over meanwhile
+     *
+     * @param idempotencyKey sent by the client
+     * @param claimToken of the claim held by the upload
+     * @param objectId of the created S3 object
+     * @return number of updated keys
+     */
+    @Modifying
+    @Transactional
+    @Query("update S3UploadIdempotencyKeyEntity e set e.objectId = :objectId " +
+            "where e.idempotencyKey = :idempotencyKey and e.claimToken = :claimToken and e.objectId is null")
+    int complete(@Param("idempotencyKey") String idempotencyKey, @Param("claimToken") UUID claimToken,
+                 @Param("objectId") UUID objectId);
+
+    /**
+     * Release the key of a failed upload so a retry can claim it, unless the claim was taken over meanwhile
+     *
+     * @param idempotencyKey sent by the client
+     * @param claimToken of the claim held by the upload
+     * @return number of deleted keys
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from S3UploadIdempotencyKeyEntity e " +
+            "where e.idempotencyKey = :idempotencyKey and e.claimToken = :claimToken and e.objectId is null")
+    int release(@Param("idempotencyKey") String idempotencyKey, @Param("claimToken") UUID claimToken);
+
+    /**
+     * Delete all expired keys
+     *
+     * @return number of deleted keys
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "delete from s3_upload_idempotency_key where expires_at <= now()", nativeQuery = true)
+    int deleteAllExpired();
+}
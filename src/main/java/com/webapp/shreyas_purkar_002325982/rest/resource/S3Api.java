@@ -1,16 +1,34 @@
 package com.webapp.shreyas_purkar_002325982.rest.resource;
 
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDeleteResultDto;
 import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectPageDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectUploadResultDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignRequestDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignedUrlDto;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface for handling API request for file uploads on s3
  */
 @RequestMapping("/v2/file")
 public interface S3Api {
 
+    /**
+     * API to list S3 objects a page at a time, newest first
+     */
+    @GetMapping
+    ResponseEntity<S3ObjectPageDto> listObjects(@RequestParam(value = "cursor", required = false) String cursor,
+                                                @RequestParam(value = "limit", defaultValue = "100") int limit);
+
     /**
      * API to get S3 object for given Id
      */
@@ -18,14 +36,63 @@ public interface S3Api {
     ResponseEntity<S3ObjectDto> getObject(@PathVariable("id") String id);
 
     /**
-     * API to create S3 object
+     * API to download the content of S3 object for given Id, supports a single byte range.
+     * Compressed objects are sent with their Content-Encoding when the client accepts it.
+     */
+    @GetMapping("/{id}/content")
+    void getObjectContent(@PathVariable("id") String id,
+                          @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                          HttpServletResponse response);
+
+    /**
+     * API to create S3 object, a retry with the same Idempotency-Key returns the object of the first request
      */
     @PostMapping(consumes = "multipart/form-data")
-    ResponseEntity<S3ObjectDto> uploadObject(@RequestParam("file") MultipartFile file);
+    CompletableFuture<ResponseEntity<S3ObjectDto>> uploadObject(@RequestParam("file") MultipartFile file,
+                                                                @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey);
+
+    /**
+     * API to create S3 objects for a batch of files
+     */
+    @PostMapping(value = "/batch", consumes = "multipart/form-data")
+    ResponseEntity<List<S3ObjectUploadResultDto>> uploadObjects(@RequestParam("file") List<MultipartFile> files);
+
+    /**
+     * API to create S3 object by streaming the multipart body straight to S3, a retry with the same
+     * Idempotency-Key returns the object of the first request
+     */
+    @PostMapping(value = "/stream", consumes = "multipart/form-data")
+    ResponseEntity<S3ObjectDto> uploadObjectStream(HttpServletRequest request,
+                                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey);
+
+    /**
+     * API to presign the upload of a new S3 object, the client uploads the content to S3 directly
+     */
+    @PostMapping(value = "/presigned-upload", consumes = "application/json")
+    ResponseEntity<S3PresignedUrlDto> presignUpload(@RequestBody S3PresignRequestDto request);
+
+    /**
+     * API to record an S3 object uploaded with a presigned request
+     */
+    @PostMapping("/{id}/complete")
+    ResponseEntity<S3ObjectDto> completeUpload(@PathVariable("id") String id);
+
+    /**
+     * API to presign the download of S3 object for given Id
+     */
+    @GetMapping("/{id}/presigned-download")
+    ResponseEntity<S3PresignedUrlDto> presignDownload(@PathVariable("id") String id);
 
     /**
      * API to delete S3 object for given Id
      */
     @DeleteMapping("/{id}")
-    ResponseEntity<?> deleteObject(@PathVariable("id") String id);
+    CompletableFuture<ResponseEntity<?>> deleteObject(@PathVariable("id") String id);
+
+    /**
+     * API to delete S3 objects for given Ids
+     */
+    @PostMapping(value = "/delete", consumes = "application/json")
+    ResponseEntity<List<S3ObjectDeleteResultDto>> deleteObjects(@RequestBody List<String> ids);
 }
@@ -3,8 +3,9 @@ package com.webapp.shreyas_purkar_002325982.rest.resource.impl;
 import com.webapp.shreyas_purkar_002325982.exception.PayloadNotAllowedException;
 import com.webapp.shreyas_purkar_002325982.rest.resource.HealthCheckApi;
 import com.webapp.shreyas_purkar_002325982.service.HealthCheckService;
-import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
+import com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics;
+import com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics.Outcome;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,19 +29,23 @@ public class HealthCheckApiImpl implements HealthCheckApi {
     HealthCheckService service;
 
     @Autowired
-    MeterRegistry meterRegistry;
+    OperationMetrics operationMetrics;
+
+    private OperationMetrics.Meters healthCheckMeters;
+
+    @PostConstruct
+    void registerMeters() {
+        healthCheckMeters = operationMetrics.register("api.healthcheck", Outcome.CLIENT_ERROR, Outcome.DB_ERROR);
+    }
 
     /**
      * API to monitor health of application instance
      */
     @Override
     public ResponseEntity<?> healthCheck(String payload) {
-        meterRegistry.counter("api.healthcheck.count").increment();
-        Timer.Sample healthCheckApiTimer = Timer.start(meterRegistry);
-
         log.info("Initializing health check for webapp...");
 
-        try {
+        return healthCheckMeters.record(() -> {
             if (payload != null && !payload.trim().isEmpty()) {
                 log.warn("Payload not allowed for health check: {}", payload);
                 throw new PayloadNotAllowedException();
@@ -54,9 +59,7 @@ public class HealthCheckApiImpl implements HealthCheckApi {
             service.healthCheck();
 
             return ResponseEntity.ok().build();
-        } finally {
-            healthCheckApiTimer.stop(meterRegistry.timer("api.healthcheck.time"));
-        }
+        });
     }
 
     @Override
@@ -1,19 +1,56 @@
 package com.webapp.shreyas_purkar_002325982.rest.resource.impl;
 
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectContentDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDeleteResultDto;
 import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectPageDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectUploadResultDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignRequestDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignedUrlDto;
 import com.webapp.shreyas_purkar_002325982.exception.EmptyFileException;
+import com.webapp.shreyas_purkar_002325982.exception.FileDownloadException;
+import com.webapp.shreyas_purkar_002325982.exception.InvalidDeleteRequestException;
+import com.webapp.shreyas_purkar_002325982.exception.InvalidUploadException;
 import com.webapp.shreyas_purkar_002325982.rest.resource.S3Api;
+import com.webapp.shreyas_purkar_002325982.service.S3AsyncService;
+import com.webapp.shreyas_purkar_002325982.service.S3PresignService;
 import com.webapp.shreyas_purkar_002325982.service.S3Service;
-import io.micrometer.core.instrument.MeterRegistry;
+import com.webapp.shreyas_purkar_002325982.service.StoredObjectContent;
+import com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics;
+import com.webapp.shreyas_purkar_002325982.service.impl.S3UploadIdempotency;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics.Outcome.*;
+
 /**
  * Implementation of S3ObjectUploadApi to handle API requests for S3 objects
  */
@@ -25,8 +62,85 @@ public class S3ApiImpl implements S3Api {
     @Autowired
     S3Service service;
 
+    @Autowired(required = false)
+    S3AsyncService asyncService;
+
+    @Autowired
+    S3PresignService presignService;
+
     @Autowired
-    MeterRegistry meterRegistry;
+    S3UploadIdempotency idempotency;
+
+    @Autowired
+    OperationMetrics operationMetrics;
+
+    @Value("${aws.s3.download.buffer-size:64KB}")
+    private DataSize downloadBufferSize;
+
+    @Value("${spring.servlet.multipart.max-file-size:1MB}")
+    private DataSize maxFileSize;
+
+    @Value("${spring.servlet.multipart.max-request-size:10MB}")
+    private DataSize maxRequestSize;
+
+    @Value("${aws.s3.stream.max-part-count:10}")
+    private long maxPartCount;
+
+    @Value("${aws.s3.delete.max-ids-per-request:1000}")
+    private int maxIdsPerDelete;
+
+    private OperationMetrics.Meters listObjectsMeters;
+
+    private OperationMetrics.Meters getObjectMeters;
+
+    private OperationMetrics.Meters getObjectContentMeters;
+
+    private OperationMetrics.Meters uploadObjectMeters;
+
+    private OperationMetrics.Meters uploadObjectsMeters;
+
+    private OperationMetrics.Meters uploadObjectStreamMeters;
+
+    private OperationMetrics.Meters presignUploadMeters;
+
+    private OperationMetrics.Meters completeUploadMeters;
+
+    private OperationMetrics.Meters presignDownloadMeters;
+
+    private OperationMetrics.Meters deleteObjectMeters;
+
+    private OperationMetrics.Meters deleteObjectsMeters;
+
+    private Counter abortedDownloadCounter;
+
+    @PostConstruct
+    void registerMeters() {
+        listObjectsMeters = operationMetrics.register("api.list-objects", CLIENT_ERROR, DB_ERROR);
+        getObjectMeters = operationMetrics.register("api.get-object", NOT_FOUND, DB_ERROR);
+        getObjectContentMeters = operationMetrics.register("api.get-object-content", NOT_FOUND, CLIENT_ERROR, S3_ERROR, DB_ERROR);
+        uploadObjectMeters = operationMetrics.register("api.file-upload-on-s3", CLIENT_ERROR, S3_ERROR, DB_ERROR);
+        uploadObjectsMeters = operationMetrics.register("api.file-batch-upload-on-s3", CLIENT_ERROR, S3_ERROR, DB_ERROR);
+        uploadObjectStreamMeters = operationMetrics.register("api.file-stream-on-s3", CLIENT_ERROR, S3_ERROR, DB_ERROR);
+        presignUploadMeters = operationMetrics.register("api.presign-upload", CLIENT_ERROR, S3_ERROR);
+        completeUploadMeters = operationMetrics.register("api.complete-upload", NOT_FOUND, S3_ERROR, DB_ERROR);
+        presignDownloadMeters = operationMetrics.register("api.presign-download", NOT_FOUND, S3_ERROR, DB_ERROR);
+        deleteObjectMeters = operationMetrics.register("api.delete-file-on-s3", NOT_FOUND, S3_ERROR, DB_ERROR);
+        deleteObjectsMeters = operationMetrics.register("api.bulk-delete-file-on-s3", CLIENT_ERROR, S3_ERROR, DB_ERROR);
+        abortedDownloadCounter = operationMetrics.counter("api.get-object-content.aborted.count");
+    }
+
+    /**
+     * API to list S3 objects a page at a time, newest first
+     *
+     * @param cursor returned with the previous page, null for the first page
+     * @param limit maximum number of objects on the page
+     */
+    @Override
+    public ResponseEntity<S3ObjectPageDto> listObjects(String cursor, int limit) {
+        log.info("Listing files...");
+
+        return listObjectsMeters.record(() -> ResponseEntity.status(HttpStatus.OK).body(service.listObjects(cursor, limit)));
+    }
 
     /**
      * API to get S3 object for given Id
@@ -35,28 +149,166 @@ public class S3ApiImpl implements S3Api {
      */
     @Override
     public ResponseEntity<S3ObjectDto> getObject(String id) {
-        meterRegistry.counter("api.get-object.count").increment();
-        Timer.Sample getFileApiTimer = Timer.start(meterRegistry);
-
         log.info("Fetching file with id {}...", id);
 
-        try {
+        return getObjectMeters.record(() -> {
             S3ObjectDto dto = service.getObject(id);
             return ResponseEntity.status(HttpStatus.OK).body(dto);
-        } finally {
-            getFileApiTimer.stop(meterRegistry.timer("api.get-object.time"));
+        });
+    }
+
+    /**
+     * API to download the content of S3 object for given Id. Streamed content is copied to the response
+     * through one fixed-size buffer, so memory per download is constant. Content stored in local files is
+     * read from the channel the backend opened, which stays open until the copy finishes. A single byte
+     * range is passed on to the storage backend and answered with 206. Compressed objects are sent as
+     * stored with Content-Encoding to clients accepting it, and decompressed for others.
+     * When the client disconnects the read is aborted.
+     *
+     * @param id of S3 object
+     * @param range header of the request
+     * @param acceptEncoding header of the request
+     * @param response to write the content to
+     */
+    @Override
+    public void getObjectContent(String id, String range, String acceptEncoding, HttpServletResponse response) {
+        log.info("Downloading content of file with id {}...", id);
+
+        getObjectContentMeters.run(() -> {
+            S3ObjectContentDto dto = service.getObjectContent(id, range, acceptEncoding);
+
+            try (StoredObjectContent content = dto.getContent()) {
+                response.setStatus(dto.getContentRange() != null ? HttpStatus.PARTIAL_CONTENT.value() : HttpStatus.OK.value());
+                response.setContentType(dto.getContentType());
+                response.setHeader(HttpHeaders.ACCEPT_RANGES, dto.isCompressed() ? "none" : "bytes");
+                response.setHeader(HttpHeaders.ETAG, dto.getEtag());
+                if (dto.isCompressed()) {
+                    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                }
+                if (dto.getContentEncoding() != null) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, dto.getContentEncoding());
+                }
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                                                                        .filename(dto.getFileName(), StandardCharsets.UTF_8)
+                                                                                        .build()
+                                                                                        .toString());
+                if (dto.getContentRange() != null) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, dto.getContentRange());
+                }
+                if (dto.getContentLength() != null) {
+                    response.setContentLengthLong(dto.getContentLength());
+                }
+
+                if (content.isFile()) {
+                    transferFile(id, content, response);
+                } else {
+                    copyContent(id, content, response);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to close content of file with Id: {}. Error: {}", id, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Method to copy the content of an S3 object to the response. A failed write means the client
+     * went away, the S3 read is aborted then instead of draining the rest of the object.
+     */
+    private void copyContent(String id, StoredObjectContent content, HttpServletResponse response) {
+        byte[] buffer = new byte[(int) downloadBufferSize.toBytes()];
+        OutputStream outputStream;
+        try {
+            outputStream = response.getOutputStream();
+        } catch (IOException e) {
+            content.abort();
+            log.warn("Client disconnected before download of file with Id: {}", id);
+            return;
         }
+
+        long copied = 0;
+        while (true) {
+            int read;
+            try {
+                read = content.getInputStream().read(buffer);
+            } catch (IOException e) {
+                content.abort();
+                log.error("Failed to read content of file with Id: {} from S3 after {} bytes. Error: {}", id, copied, e.getMessage(), e);
+                throw new FileDownloadException();
+            }
+            if (read == -1) {
+                break;
+            }
+
+            try {
+                outputStream.write(buffer, 0, read);
+            } catch (IOException e) {
+                content.abort();
+                abortedDownloadCounter.increment();
+                log.warn("Client disconnected during download of file with Id: {} after {} bytes", id, copied);
+                return;
+            }
+            copied += read;
+        }
+
+        log.info("Downloaded {} bytes of file with Id: {}", copied, id);
     }
 
     /**
-     * API to create S3 object
+     * Method to copy a region of a local file to the response through one fixed-size buffer. The file is
+     * read through the channel the backend opened, a concurrent delete of the file unlinks it without
+     * cutting the download short. Tomcat's sendfile is not used, it reopens the file by name after the
+     * request returns, which fails once the file is deleted.
+     */
+    private void transferFile(String id, StoredObjectContent content, HttpServletResponse response) {
+        FileChannel channel = content.getChannel();
+        ByteBuffer buffer = ByteBuffer.allocate((int) downloadBufferSize.toBytes());
+        long position = content.getPosition();
+        long end = content.getPosition() + content.getContentLength();
+
+        OutputStream outputStream;
+        try {
+            outputStream = response.getOutputStream();
+        } catch (IOException e) {
+            log.warn("Client disconnected before download of file with Id: {}", id);
+            return;
+        }
+
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read;
+            try {
+                read = channel.read(buffer, position);
+            } catch (IOException e) {
+                log.error("Failed to read file with Id: {} after {} bytes. Error: {}", id, position - content.getPosition(), e.getMessage(), e);
+                throw new FileDownloadException();
+            }
+            if (read <= 0) {
+                break;
+            }
+
+            try {
+                outputStream.write(buffer.array(), 0, read);
+            } catch (IOException e) {
+                abortedDownloadCounter.increment();
+                log.warn("Client disconnected during download of file with Id: {} after {} bytes", id, position - content.getPosition());
+                return;
+            }
+            position += read;
+        }
+
+        log.info("Downloaded {} bytes of file with Id: {}", position - content.getPosition(), id);
+    }
+
+    /**
+     * API to create S3 object. With an idempotency key the upload runs at most once, retries get the
+     * object of the first request.
      *
      * @param file to upload on S3
+     * @param idempotencyKey sent by the client, null for an upload without key
      */
     @Override
-    public ResponseEntity<S3ObjectDto> uploadObject(MultipartFile file) {
-        meterRegistry.counter("api.file-upload-on-s3.count").increment();
-        Timer.Sample uploadFileApiTimer = Timer.start(meterRegistry);
+    public CompletableFuture<ResponseEntity<S3ObjectDto>> uploadObject(MultipartFile file, String idempotencyKey) {
+        Timer.Sample uploadFileApiTimer = uploadObjectMeters.start();
 
         log.info("Initializing uploading of file on S3...");
 
@@ -66,31 +318,190 @@ public class S3ApiImpl implements S3Api {
                 throw new EmptyFileException();
             }
 
-            S3ObjectDto dto = service.uploadObject(file);
-            return ResponseEntity.status(HttpStatus.CREATED).body(dto);
-        } finally {
-            uploadFileApiTimer.stop(meterRegistry.timer("api.file-upload-on-s3.time"));
+            CompletableFuture<S3ObjectDto> dto = idempotencyKey == null
+                    ? upload(file)
+                    : idempotency.executeAsync(idempotencyKey,
+                                               S3UploadIdempotency.fingerprint(file.getOriginalFilename(), file.getContentType(), file.getSize()),
+                                               () -> upload(file));
+
+            return dto.thenApply(body -> ResponseEntity.status(HttpStatus.CREATED).body(body))
+                      .whenComplete((response, error) -> uploadObjectMeters.stop(uploadFileApiTimer, error));
+        } catch (RuntimeException e) {
+            uploadObjectMeters.stop(uploadFileApiTimer, e);
+            throw e;
         }
     }
 
+    private CompletableFuture<S3ObjectDto> upload(MultipartFile file) {
+        return asyncService != null
+                ? asyncService.uploadObject(file)
+                : CompletableFuture.completedFuture(service.uploadObject(file));
+    }
+
+    /**
+     * API to create S3 objects for a batch of files. Responds with 201 when all files are created
+     * and with 207 when some of them failed.
+     *
+     * @param files to upload on S3
+     */
+    @Override
+    public ResponseEntity<List<S3ObjectUploadResultDto>> uploadObjects(List<MultipartFile> files) {
+        log.info("Initializing uploading of batch of {} files on S3...", files.size());
+
+        return uploadObjectsMeters.record(() -> {
+            if (files.isEmpty()) {
+                log.warn("Bad Request - No file is uploaded. Please select a valid file");
+                throw new EmptyFileException();
+            }
+
+            List<S3ObjectUploadResultDto> results = service.uploadObjects(files);
+            boolean allCreated = results.stream().allMatch(result -> result.getStatus() == HttpStatus.CREATED.value());
+
+            return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+        });
+    }
+
+    /**
+     * API to create S3 object by streaming the multipart body straight to S3.
+     * The body is parsed on the fly so the file part is never spooled to local disk.
+     *
+     * @param request containing multipart body
+     * @param idempotencyKey sent by the client, null for an upload without key
+     */
+    @Override
+    public ResponseEntity<S3ObjectDto> uploadObjectStream(HttpServletRequest request, String idempotencyKey) {
+        log.info("Initializing streaming of file on S3...");
+
+        return uploadObjectStreamMeters.record(() -> ResponseEntity.status(HttpStatus.CREATED).body(streamUpload(request, idempotencyKey)));
+    }
+
+    /**
+     * Method to upload the first file part of a streamed multipart body. A body that cannot be parsed,
+     * including one over the size limits, is a client error.
+     */
+    private S3ObjectDto streamUpload(HttpServletRequest request, String idempotencyKey) {
+        try {
+            FileItemInputIterator iterator = newStreamingUpload().getItemIterator(request);
+            while (iterator.hasNext()) {
+                FileItemInput item = iterator.next();
+                if (item.isFormField() || !"file".equals(item.getFieldName())) {
+                    continue;
+                }
+
+                try (InputStream inputStream = item.getInputStream()) {
+                    return idempotencyKey == null
+                            ? service.uploadObject(item.getName(), item.getContentType(), inputStream)
+                            : idempotency.execute(idempotencyKey,
+                                                  S3UploadIdempotency.fingerprint(item.getName(), item.getContentType(), -1),
+                                                  () -> service.uploadObject(item.getName(), item.getContentType(), inputStream));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Bad Request - Failed to read multipart body: {}", e.getMessage(), e);
+            throw new InvalidUploadException();
+        }
+
+        log.warn("Bad Request - No file is uploaded. Please select a valid file");
+        throw new EmptyFileException();
+    }
+
+    /**
+     * Method to create the parser of streamed multipart bodies, with the same limits as parsed multipart
+     * requests and a cap on the number of parts
+     */
+    private JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> newStreamingUpload() {
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        upload.setSizeMax(maxRequestSize.toBytes());
+        upload.setFileSizeMax(maxFileSize.toBytes());
+        upload.setFileCountMax(maxPartCount);
+        return upload;
+    }
+
+    /**
+     * API to presign the upload of a new S3 object
+     *
+     * @param request containing file name and content type
+     */
+    @Override
+    public ResponseEntity<S3PresignedUrlDto> presignUpload(S3PresignRequestDto request) {
+        log.info("Presigning upload of file on S3...");
+
+        return presignUploadMeters.record(() -> ResponseEntity.status(HttpStatus.CREATED).body(presignService.presignUpload(request)));
+    }
+
+    /**
+     * API to record an S3 object uploaded with a presigned request
+     *
+     * @param id of S3 object
+     */
+    @Override
+    public ResponseEntity<S3ObjectDto> completeUpload(String id) {
+        log.info("Completing presigned upload of file with id {}...", id);
+
+        return completeUploadMeters.record(() -> ResponseEntity.status(HttpStatus.CREATED).body(presignService.completeUpload(id)));
+    }
+
+    /**
+     * API to presign the download of S3 object for given Id
+     *
+     * @param id of S3 object
+     */
+    @Override
+    public ResponseEntity<S3PresignedUrlDto> presignDownload(String id) {
+        log.info("Presigning download of file with id {}...", id);
+
+        return presignDownloadMeters.record(() -> ResponseEntity.status(HttpStatus.OK).body(presignService.presignDownload(id)));
+    }
+
     /**
      * API to delete S3 object for given Id
      *
      * @param id of S3 object
      */
     @Override
-    public ResponseEntity<?> deleteObject(String id) {
-        meterRegistry.counter("api.delete-file-on-s3.count").increment();
-        Timer.Sample deleteFileApiTimer = Timer.start(meterRegistry);
+    public CompletableFuture<ResponseEntity<?>> deleteObject(String id) {
+        Timer.Sample deleteFileApiTimer = deleteObjectMeters.start();
 
         log.info("Initializing deleting file with id {}...", id);
 
         try {
-            service.deleteObject(id);
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
-        } finally {
-            deleteFileApiTimer.stop(meterRegistry.timer("api.delete-file-on-s3.time"));
+            CompletableFuture<Void> deletion;
+            if (asyncService != null) {
+                deletion = asyncService.deleteObject(id);
+            } else {
+                service.deleteObject(id);
+                deletion = CompletableFuture.completedFuture(null);
+            }
+
+            return deletion.<ResponseEntity<?>>thenApply(ignored -> ResponseEntity.status(HttpStatus.NO_CONTENT).build())
+                           .whenComplete((response, error) -> deleteObjectMeters.stop(deleteFileApiTimer, error));
+        } catch (RuntimeException e) {
+            deleteObjectMeters.stop(deleteFileApiTimer, e);
+            throw e;
         }
+    }
+
+    /**
+     * API to delete S3 objects for given Ids. Responds with 200 when all objects are deleted
+     * and with 207 when some of them were not found or failed. Responds with 400 when more Ids are
+     * given than one request accepts.
+     *
+     * @param ids of S3 objects
+     */
+    @Override
+    public ResponseEntity<List<S3ObjectDeleteResultDto>> deleteObjects(List<String> ids) {
+        log.info("Initializing deleting of {} files...", ids.size());
+
+        return deleteObjectsMeters.record(() -> {
+            if (ids.size() > maxIdsPerDelete) {
+                log.error("Bulk delete of {} files exceeds the limit of {} per request", ids.size(), maxIdsPerDelete);
+                throw new InvalidDeleteRequestException();
+            }
+
+            List<S3ObjectDeleteResultDto> results = service.deleteObjects(ids);
+            boolean allDeleted = results.stream().allMatch(result -> result.getStatus() == HttpStatus.NO_CONTENT.value());
 
+            return ResponseEntity.status(allDeleted ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(results);
+        });
     }
 }
@@ -0,0 +1,12 @@
+package com.webapp.shreyas_purkar_002325982.service;
+
+/**
+ * Service class to maintain the partitioned health check history
+ */
+public interface HealthCheckMaintenanceService {
+
+    /**
+     * Method to create upcoming partitions and roll up and drop expired ones
+     */
+    void maintainPartitions();
+}
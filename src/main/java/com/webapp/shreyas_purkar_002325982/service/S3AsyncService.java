@@ -0,0 +1,28 @@
+package com.webapp.shreyas_purkar_002325982.service;
+
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service class for managing S3 objects without blocking request threads on S3 calls
+ */
+public interface S3AsyncService {
+
+    /**
+     * Method to create S3 object
+     *
+     * @param file to upload on S3
+     * @return future completed with the created object
+     */
+    CompletableFuture<S3ObjectDto> uploadObject(MultipartFile file);
+
+    /**
+     * Method to delete S3 object for given Id
+     *
+     * @param id of S3 object
+     * @return future completed once the object is deleted
+     */
+    CompletableFuture<Void> deleteObject(String id);
+}
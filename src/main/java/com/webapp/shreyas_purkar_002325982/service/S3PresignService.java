@@ -0,0 +1,35 @@
+package com.webapp.shreyas_purkar_002325982.service;
+
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignRequestDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignedUrlDto;
+
+/**
+ * Service class for transferring S3 object content directly between clients and S3
+ */
+public interface S3PresignService {
+
+    /**
+     * Method to presign the upload of a new S3 object
+     *
+     * @param request containing file name, content type and content length
+     * @return presigned PUT request for a new object Id
+     */
+    S3PresignedUrlDto presignUpload(S3PresignRequestDto request);
+
+    /**
+     * Method to record an S3 object uploaded with a presigned request
+     *
+     * @param id of S3 object
+     * @return dto for the recorded object
+     */
+    S3ObjectDto completeUpload(String id);
+
+    /**
+     * Method to presign the download of S3 object for given Id
+     *
+     * @param id of S3 object
+     * @return presigned GET request
+     */
+    S3PresignedUrlDto presignDownload(String id);
+}
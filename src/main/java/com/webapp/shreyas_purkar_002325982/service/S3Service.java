@@ -1,8 +1,15 @@
 package com.webapp.shreyas_purkar_002325982.service;
 
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectContentDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDeleteResultDto;
 import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectPageDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectUploadResultDto;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.List;
+
 /**
  * Service class for managing S3 objects
  */
@@ -15,6 +22,25 @@ public interface S3Service {
      */
     S3ObjectDto getObject(String id);
 
+    /**
+     * Method to list S3 objects a page at a time, newest first
+     *
+     * @param cursor returned with the previous page, null for the first page
+     * @param limit maximum number of objects on the page
+     * @return page of S3 objects
+     */
+    S3ObjectPageDto listObjects(String cursor, int limit);
+
+    /**
+     * Method to open the content of S3 object for given Id
+     *
+     * @param id of S3 object
+     * @param range of bytes to read as an HTTP Range header, null for the whole object
+     * @param acceptEncoding header of the request, compressed objects are decompressed unless it accepts their encoding
+     * @return content of the object, the stream must be closed by the caller
+     */
+    S3ObjectContentDto getObjectContent(String id, String range, String acceptEncoding);
+
     /**
      * Method to create S3 object
      *
@@ -22,10 +48,35 @@ public interface S3Service {
      */
     S3ObjectDto uploadObject(MultipartFile file);
 
+    /**
+     * Method to create S3 objects for a batch of files
+     *
+     * @param files to upload on S3
+     * @return result for each file, in the order of the files
+     */
+    List<S3ObjectUploadResultDto> uploadObjects(List<MultipartFile> files);
+
+    /**
+     * Method to create S3 object from a stream without buffering it locally
+     *
+     * @param fileName of the uploaded file
+     * @param contentType of the uploaded file
+     * @param inputStream containing file content
+     */
+    S3ObjectDto uploadObject(String fileName, String contentType, InputStream inputStream);
+
     /**
      * Method to delete S3 object for given Id
      *
      * @param id of S3 object
      */
     void deleteObject(String id);
+
+    /**
+     * Method to delete S3 objects for given Ids
+     *
+     * @param ids of S3 objects
+     * @return result for each distinct Id, in the order of the Ids
+     */
+    List<S3ObjectDeleteResultDto> deleteObjects(List<String> ids);
 }
@@ -0,0 +1,82 @@
+package com.webapp.shreyas_purkar_002325982.service;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage for the content of uploaded objects, selected with storage.backend. Backends report failures
+ * with the application exceptions: S3ObjectNotFoundException for missing objects, InvalidRangeException
+ * for unsatisfiable ranges, FileUploadException for unreadable uploads, AwsAuthorizationException for
+ * missing credentials and StorageUnavailableException when the storage is unavailable.
+ */
+public interface StorageBackend {
+
+    /**
+     * Method to store an object, replacing any object with the same key
+     *
+     * @param key of the object
+     * @param inputStream containing object content
+     * @param contentLength of the content, -1 when unknown
+     * @return metadata returned by the store, with the ETag, ServerSideEncryption, x-amz-request-id
+     * and x-amz-id-2 entries where the backend has them
+     */
+    Map<String, Object> putObject(String key, InputStream inputStream, long contentLength);
+
+    /**
+     * Method to open the content of an object
+     *
+     * @param key of the object
+     * @param range of bytes to read as a single HTTP byte range, null for the whole object
+     * @return content of the object, must be closed by the caller
+     */
+    StoredObjectContent getObject(String key, String range);
+
+    /**
+     * Method to read the attributes of an object that are not returned when it is stored
+     *
+     * @param key of the object
+     * @return attributes of the object
+     */
+    ObjectAttributes headObject(String key);
+
+    /**
+     * Method to delete an object, deleting a missing object succeeds
+     *
+     * @param key of the object
+     */
+    void deleteObject(String key);
+
+    /**
+     * Method to delete several objects with as few calls as the backend allows
+     *
+     * @param keys of the objects
+     * @return error for each key that could not be deleted, empty when all were deleted
+     */
+    Map<String, String> deleteObjects(Collection<String> keys);
+
+    /**
+     * Method to list a page of objects in ascending key order, keys are compared by code point which is
+     * the UTF-8 binary order of S3 listings
+     *
+     * @param prefix of the keys to list
+     * @param startAfter key after which the page starts, null for the first page
+     * @param maxKeys maximum number of objects on the page
+     * @return objects on the page, fewer than maxKeys on the last page
+     */
+    List<ListedObject> listObjects(String prefix, String startAfter, int maxKeys);
+
+    /**
+     * Attributes of a stored object
+     */
+    record ObjectAttributes(String acceptRanges, Instant lastModified) {
+    }
+
+    /**
+     * Object returned by a listing
+     */
+    record ListedObject(String key, Instant lastModified) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.webapp.shreyas_purkar_002325982.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Content of a stored object opened by a storage backend, either a stream or a region of a local
+ * file. File regions are read through a channel that stays open while the content is sent, even when
+ * the file is deleted meanwhile.
+ */
+public class StoredObjectContent implements Closeable {
+
+    private final InputStream inputStream;
+
+    private final Runnable abort;
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final long position;
+
+    private final long contentLength;
+
+    private final String contentRange;
+
+    private final String etag;
+
+    private StoredObjectContent(InputStream inputStream, Runnable abort, Path file, FileChannel channel, long position,
+                                long contentLength, String contentRange, String etag) {
+        this.inputStream = inputStream;
+        this.abort = abort;
+        this.file = file;
+        this.channel = channel;
+        this.position = position;
+        this.contentLength = contentLength;
+        this.contentRange = contentRange;
+        this.etag = etag;
+    }
+
+    /**
+     * Method to create content read from a stream
+     *
+     * @param inputStream containing the content
+     * @param abort to stop the read without draining the rest of the stream
+     * @param contentLength of the content
+     * @param contentRange of the content within the object, null for the whole object
+     * @param etag of the object
+     */
+    public static StoredObjectContent ofStream(InputStream inputStream, Runnable abort, long contentLength,
+                                               String contentRange, String etag) {
+        return new StoredObjectContent(inputStream, abort, null, null, 0, contentLength, contentRange, etag);
+    }
+
+    /**
+     * Method to create content served from a region of a local file
+     *
+     * @param file containing the content
+     * @param channel open on the file, closed with the content
+     * @param position of the first byte of the content in the file
+     * @param contentLength of the content
+     * @param contentRange of the content within the object, null for the whole object
+     * @param etag of the object
+     */
+    public static StoredObjectContent ofFile(Path file, FileChannel channel, long position, long contentLength,
+                                             String contentRange, String etag) {
+        return new StoredObjectContent(null, null, file, channel, position, contentLength, contentRange, etag);
+    }
+
+    /**
+     * Method to check if the content is a region of a local file
+     */
+    public boolean isFile() {
+        return file != null;
+    }
+
+    /**
+     * Method to get the content of a stream, null for file regions which are read through their channel
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public String getContentRange() {
+        return contentRange;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Method to stop reading the content, the rest of a stream is discarded instead of being drained
+     */
+    public void abort() {
+        if (abort != null) {
+            abort.run();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isFile()) {
+            channel.close();
+        } else {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.exception.InvalidRangeException;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single HTTP byte range resolved against the size of an object, for backends that serve ranges themselves
+ *
+ * @param start first byte of the range
+ * @param end last byte of the range, inclusive
+ * @param size of the whole object
+ */
+record ByteRange(long start, long end, long size) {
+
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(?:(\\d+)-(\\d*)|-(\\d+))");
+
+    /**
+     * Method to check if a range header is a single valid byte range. Invalid headers are ignored
+     * and the whole object is served, as RFC 9110 asks for.
+     *
+     * @param range header
+     */
+    static boolean isValid(String range) {
+        Matcher matcher = BYTE_RANGE.matcher(range.trim());
+        if (!matcher.matches()) {
+            return false;
+        }
+        return matcher.group(1) == null || matcher.group(2).isEmpty() ||
+                parsePosition(matcher.group(1)) <= parsePosition(matcher.group(2));
+    }
+
+    /**
+     * Method to resolve a range header of the form bytes=first-last, bytes=first- or bytes=-suffix. A
+     * valid range that does not overlap the object is not satisfiable.
+     *
+     * @param range header, null for the whole object
+     * @param size of the object
+     * @return resolved range or null for the whole object, also when the header is not a valid range
+     */
+    static ByteRange resolve(String range, long size) {
+        if (range == null || !isValid(range)) {
+            return null;
+        }
+
+        Matcher matcher = BYTE_RANGE.matcher(range.trim());
+        matcher.matches();
+        long start;
+        long end;
+        if (matcher.group(3) != null) {
+            long suffix = parsePosition(matcher.group(3));
+            if (suffix == 0) {
+                throw new InvalidRangeException();
+            }
+            start = Math.max(0, size - suffix);
+            end = size - 1;
+        } else {
+            start = parsePosition(matcher.group(1));
+            end = matcher.group(2).isEmpty() ? size - 1 : Math.min(parsePosition(matcher.group(2)), size - 1);
+        }
+
+        if (start >= size) {
+            throw new InvalidRangeException();
+        }
+        return new ByteRange(start, end, size);
+    }
+
+    /**
+     * Method to parse a position of the range. Positions beyond the range of long are past the end of
+     * any object, they are read as Long.MAX_VALUE so they resolve like any other such position.
+     *
+     * @param digits of the position
+     */
+    private static long parsePosition(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    long length() {
+        return end - start + 1;
+    }
+
+    /**
+     * Method to format the range as a Content-Range header
+     */
+    String contentRange() {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+}
@@ -0,0 +1,324 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.webapp.shreyas_purkar_002325982.exception.FileDeletionException;
+import com.webapp.shreyas_purkar_002325982.exception.FileUploadException;
+import com.webapp.shreyas_purkar_002325982.exception.S3ObjectNotFoundException;
+import com.webapp.shreyas_purkar_002325982.exception.StorageUnavailableException;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import com.webapp.shreyas_purkar_002325982.service.StoredObjectContent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Storage backend keeping objects as files under a local root directory, for edge sites with local or
+ * attached disks and for running without AWS. Uploads are written with a FileChannel to a temporary file
+ * and moved into place once complete, so readers never see a partial object. Reads are served as file
+ * regions of an open channel, so deleting an object does not cut short a download in progress.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "filesystem")
+public class FileSystemStorageBackend implements StorageBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSystemStorageBackend.class);
+
+    private static final String TEMPORARY_SUFFIX = ".upload";
+
+    private final Path root;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int bufferSize;
+
+    private final Cache<String, List<String>> directoryListings = Caffeine.newBuilder()
+                                                                         .maximumSize(1024)
+                                                                         .expireAfterAccess(Duration.ofMinutes(5))
+                                                                         .build();
+
+    public FileSystemStorageBackend(@Value("${storage.filesystem.root}") Path root,
+                                    @Value("${storage.filesystem.buffer-size:256KB}") DataSize bufferSize,
+                                    MeterRegistry meterRegistry) throws IOException {
+        this.root = Files.createDirectories(root).toRealPath();
+        this.bufferSize = (int) bufferSize.toBytes();
+        this.meterRegistry = meterRegistry;
+
+        log.info("Storing files in directory: {}", this.root);
+    }
+
+    /**
+     * Method to write the object to a temporary file and move it into place. The file is forced to disk
+     * before the move so a stored object survives a crash once its metadata is persisted.
+     *
+     * @param key of the object
+     * @param inputStream containing object content
+     * @param contentLength of the content, -1 when unknown
+     * @return metadata with the ETag of the file
+     */
+    @Override
+    public Map<String, Object> putObject(String key, InputStream inputStream, long contentLength) {
+        Path file = resolve(key);
+        Path temporary = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + TEMPORARY_SUFFIX);
+
+        Timer.Sample putTimer = Timer.start(meterRegistry);
+
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[bufferSize];
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    byteBuffer.clear().limit(read);
+                    while (byteBuffer.hasRemaining()) {
+                        channel.write(byteBuffer);
+                    }
+                }
+                channel.force(false);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("ETag", etag(Files.readAttributes(file, BasicFileAttributes.class)));
+
+            log.info("Object stored successfully at path: {}", key);
+            return metadata;
+        } catch (IOException e) {
+            log.error("Failed to store the file at path: {}. Error: {}", key, e.getMessage(), e);
+            deleteQuietly(temporary);
+            throw new FileUploadException();
+        } catch (RuntimeException e) {
+            deleteQuietly(temporary);
+            throw e;
+        } finally {
+            putTimer.stop(meterRegistry.timer("storage.filesystem.put.time"));
+        }
+    }
+
+    /**
+     * Method to open the object as a region of its file, the range is served from the file directly
+     *
+     * @param key of the object
+     * @param range of bytes to read as a single HTTP byte range, null for the whole object
+     * @return content of the object
+     */
+    @Override
+    public StoredObjectContent getObject(String key, String range) {
+        Path file = resolve(key);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+            ByteRange byteRange = ByteRange.resolve(range, channel.size());
+            if (byteRange == null) {
+                return StoredObjectContent.ofFile(file, channel, 0, channel.size(), null, etag(attributes));
+            }
+            return StoredObjectContent.ofFile(file, channel, byteRange.start(), byteRange.length(),
+                                              byteRange.contentRange(), etag(attributes));
+        } catch (NoSuchFileException e) {
+            closeQuietly(channel);
+            log.error("No file found at path: {}", key);
+            throw new S3ObjectNotFoundException();
+        } catch (IOException e) {
+            closeQuietly(channel);
+            log.error("Failed to read file at path: {}. Error: {}", key, e.getMessage(), e);
+            throw new StorageUnavailableException();
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    @Override
+    public ObjectAttributes headObject(String key) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return new ObjectAttributes("bytes", attributes.lastModifiedTime().toInstant());
+        } catch (NoSuchFileException e) {
+            throw new S3ObjectNotFoundException();
+        } catch (IOException e) {
+            log.error("Failed to read attributes of file at path: {}. Error: {}", key, e.getMessage(), e);
+            throw new StorageUnavailableException();
+        }
+    }
+
+    /**
+     * Method to delete the file of the object and its directory once empty
+     *
+     * @param key of the object
+     */
+    @Override
+    public void deleteObject(String key) {
+        Path file = resolve(key);
+        try {
+            Files.deleteIfExists(file);
+            deleteEmptyParents(file.getParent());
+
+            log.info("Successfully deleted file at path: {}", key);
+        } catch (IOException e) {
+            log.error("Failed to delete file at path: {}. Error: {}", key, e.getMessage(), e);
+            throw new FileDeletionException();
+        }
+    }
+
+    @Override
+    public Map<String, String> deleteObjects(Collection<String> keys) {
+        Map<String, String> errors = new HashMap<>();
+        for (String key : keys) {
+            try {
+                deleteObject(key);
+            } catch (FileDeletionException e) {
+                errors.put(key, "DeleteFailed");
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Method to list a page of stored files in key order. The top level directories of the prefix are read
+     * once on the first page and kept for the following pages of the listing, so listing all pages reads
+     * the root directory once instead of once per page. Directories created during the listing are not
+     * listed, directories deleted during the listing are skipped.
+     *
+     * @param prefix of the keys to list
+     * @param startAfter key after which the page starts, null for the first page
+     * @param maxKeys maximum number of objects on the page
+     * @return objects on the page
+     */
+    @Override
+    public List<ListedObject> listObjects(String prefix, String startAfter, int maxKeys) {
+        List<String> directories = startAfter == null ? null : directoryListings.getIfPresent(prefix);
+        if (directories == null) {
+            directories = listDirectories(prefix);
+            directoryListings.put(prefix, directories);
+        }
+
+        int first = 0;
+        if (startAfter != null) {
+            String startDirectory = startAfter.substring(0, Math.max(startAfter.indexOf('/'), 0));
+            int index = Collections.binarySearch(directories, startDirectory, ObjectKeys::compare);
+            first = index >= 0 ? index : -index - 1;
+        }
+
+        List<ListedObject> page = new ArrayList<>();
+        for (String directory : directories.subList(first, directories.size())) {
+            try (Stream<Path> files = Files.walk(root.resolve(directory))) {
+                files.filter(Files::isRegularFile)
+                     .filter(file -> !file.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+                     .map(this::toListedObject)
+                     .filter(object -> object.key().startsWith(prefix))
+                     .filter(object -> startAfter == null || ObjectKeys.compare(object.key(), startAfter) > 0)
+                     .sorted((left, right) -> ObjectKeys.compare(left.key(), right.key()))
+                     .limit(maxKeys - page.size())
+                     .forEach(page::add);
+            } catch (NoSuchFileException e) {
+                log.debug("Storage directory: {} was deleted during the listing", directory);
+            } catch (UncheckedIOException e) {
+                if (!(e.getCause() instanceof NoSuchFileException)) {
+                    log.error("Failed to list storage directory: {}. Error: {}", directory, e.getMessage(), e);
+                    throw new StorageUnavailableException();
+                }
+                log.debug("Storage directory: {} was deleted during the listing", directory);
+            } catch (IOException e) {
+                log.error("Failed to list storage directory: {}. Error: {}", directory, e.getMessage(), e);
+                throw new StorageUnavailableException();
+            }
+            if (page.size() == maxKeys) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Method to read the top level directories holding keys of the prefix in key order
+     */
+    private List<String> listDirectories(String prefix) {
+        try (Stream<Path> children = Files.list(root)) {
+            return children.filter(Files::isDirectory)
+                           .map(directory -> directory.getFileName().toString())
+                           .filter(name -> name.startsWith(prefix) || prefix.startsWith(name + "/"))
+                           .sorted(ObjectKeys::compare)
+                           .toList();
+        } catch (IOException e) {
+            log.error("Failed to list storage directory: {}. Error: {}", root, e.getMessage(), e);
+            throw new StorageUnavailableException();
+        }
+    }
+
+    private ListedObject toListedObject(Path file) {
+        String key = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+        try {
+            return new ListedObject(key, Files.getLastModifiedTime(file).toInstant());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to resolve the file of an object. Keys contain the uploaded file name, keys escaping the
+     * root directory cannot exist.
+     */
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            log.warn("Bad Request - Key: {} resolves outside of the storage directory", key);
+            throw new S3ObjectNotFoundException();
+        }
+        return file;
+    }
+
+    private void deleteEmptyParents(Path directory) throws IOException {
+        while (directory != null && !directory.equals(root)) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (DirectoryNotEmptyException e) {
+                return;
+            }
+            directory = directory.getParent();
+        }
+    }
+
+    /**
+     * Method to derive the ETag of a file from its size and modification time, which change with every write
+     */
+    private static String etag(BasicFileAttributes attributes) {
+        return "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary file: {}. Error: {}", file, e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close file channel. Error: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Input stream compressing the bytes of another stream with gzip as they are read, so compressed
+ * content can be handed to a storage backend without buffering the whole object. At most one chunk
+ * of input and its compressed output are held in memory.
+ */
+class GzipCompressingInputStream extends InputStream {
+
+    private final InputStream source;
+
+    private final byte[] chunk;
+
+    private final byte[] single = new byte[1];
+
+    private final Buffer buffer = new Buffer();
+
+    private final GZIPOutputStream gzip;
+
+    private int position;
+
+    private boolean finished;
+
+    GzipCompressingInputStream(InputStream source, int bufferSize, int level) throws IOException {
+        this.source = source;
+        this.chunk = new byte[bufferSize];
+        this.gzip = new GZIPOutputStream(buffer, bufferSize) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        if (length == 0) {
+            return 0;
+        }
+
+        while (position == buffer.size()) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+
+        int read = Math.min(length, buffer.size() - position);
+        System.arraycopy(buffer.array(), position, bytes, offset, read);
+        position += read;
+        return read;
+    }
+
+    /**
+     * Method to compress the next chunk of the source, the deflater may hold small chunks back
+     * so the buffer can stay empty
+     */
+    private void fill() throws IOException {
+        buffer.reset();
+        position = 0;
+
+        int read = source.read(chunk);
+        if (read == -1) {
+            // Closing writes the trailer and releases the deflater, the buffer stays readable
+            gzip.close();
+            finished = true;
+        } else {
+            gzip.write(chunk, 0, read);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            gzip.close();
+        } finally {
+            source.close();
+        }
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
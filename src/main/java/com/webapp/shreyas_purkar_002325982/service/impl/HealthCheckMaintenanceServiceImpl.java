@@ -0,0 +1,179 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.repository.HealthCheckRepository;
+import com.webapp.shreyas_purkar_002325982.service.HealthCheckMaintenanceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Service class implementation to maintain the daily partitions of the health check history.
+ * Expired partitions are rolled up into health_check_rollup, then detached and dropped as a whole.
+ * A concurrent detach is refused while health_check has a default partition, the plain detach waits at
+ * most the detach lock timeout for its lock, so inserts and queries queued behind it are held up no
+ * longer than that. Instances serialize maintenance on an advisory lock.
+ */
+@Service
+public class HealthCheckMaintenanceServiceImpl implements HealthCheckMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthCheckMaintenanceServiceImpl.class);
+
+    private static final String MAINTENANCE_LOCK = "hashtext('health_check_maintenance')";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("health_check_p[0-9]{8}");
+
+    @Autowired
+    HealthCheckRepository repository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${health.check.partitions-ahead:7}")
+    private int partitionsAhead;
+
+    @Value("${health.check.retention:7d}")
+    private Duration retention;
+
+    @Value("${health.check.detach-lock-timeout:2s}")
+    private Duration detachLockTimeout;
+
+    /**
+     * Method to create upcoming partitions and roll up and drop expired ones
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${health.check.maintenance-interval:1h}")
+    public void maintainPartitions() {
+        Timer.Sample dbTimer = Timer.start(meterRegistry);
+        try {
+            int created = repository.ensurePartitions(partitionsAhead);
+            int rolledUp = repository.rollUpExpiredPartitions((int) retention.toDays());
+            int dropped = dropRolledUpPartitions();
+
+            log.info("Health check partitions maintained, created: {}, rolled up: {}, dropped: {}", created, rolledUp, dropped);
+            meterRegistry.counter("db.health-check.partition-dropped.count").increment(dropped);
+        } catch (Exception ex) {
+            log.error("Failed to maintain health check partitions. Error: {}", ex.getMessage(), ex);
+        } finally {
+            dbTimer.stop(meterRegistry.timer("db.maintain-health-partitions.time"));
+        }
+    }
+
+    /**
+     * Method to detach the rolled up partitions and drop them, one transaction per partition on one
+     * connection holding the advisory lock. A partition whose detach times out waiting for its lock is
+     * left for the next run.
+     *
+     * @return number of dropped partitions, 0 while another instance holds the lock
+     */
+    private int dropRolledUpPartitions() {
+        Integer dropped = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                if (!isLocked(statement.executeQuery("select pg_try_advisory_lock(" + MAINTENANCE_LOCK + ")"))) {
+                    log.info("Health check partitions are maintained by another instance, skipping drop");
+                    return 0;
+                }
+                try {
+                    int count = 0;
+                    for (String partition : findRolledUpPartitions(statement)) {
+                        try {
+                            dropPartition(connection, partition);
+                            count++;
+                        } catch (SQLException ex) {
+                            log.warn("Failed to drop rolled up health check partition: {}, retrying on the next run. Error: {}",
+                                     partition, ex.getMessage());
+                        }
+                    }
+                    return count;
+                } finally {
+                    statement.execute("select pg_advisory_unlock(" + MAINTENANCE_LOCK + ")");
+                }
+            }
+        });
+        return dropped != null ? dropped : 0;
+    }
+
+    /**
+     * Method to find the partitions waiting to be dropped
+     */
+    private static List<String> findRolledUpPartitions(Statement statement) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery("select partition_name from health_check_rolled_up order by partition_name")) {
+            while (resultSet.next()) {
+                String partition = resultSet.getString(1);
+                if (PARTITION_NAME.matcher(partition).matches()) {
+                    partitions.add(partition);
+                } else {
+                    log.warn("Skipping unexpected rolled up health check partition: {}", partition);
+                }
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Method to detach one rolled up partition and drop it in one transaction, waiting at most the detach
+     * lock timeout for the locks
+     */
+    private void dropPartition(Connection connection, String partition) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("set local lock_timeout = " + detachLockTimeout.toMillis());
+
+            boolean attached;
+            try (PreparedStatement inheritance = connection.prepareStatement(
+                    "select 1 from pg_inherits where inhparent = 'health_check'::regclass and inhrelid = to_regclass(?)")) {
+                inheritance.setString(1, partition);
+                try (ResultSet resultSet = inheritance.executeQuery()) {
+                    attached = resultSet.next();
+                }
+            }
+
+            if (attached) {
+                statement.execute("alter table health_check detach partition " + partition);
+            }
+            statement.execute("drop table if exists " + partition);
+
+            try (PreparedStatement forget = connection.prepareStatement("delete from health_check_rolled_up where partition_name = ?")) {
+                forget.setString(1, partition);
+                forget.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        log.info("Dropped rolled up health check partition: {}", partition);
+    }
+
+    /**
+     * Method to read the result of an advisory lock attempt
+     */
+    private static boolean isLocked(ResultSet resultSet) throws SQLException {
+        try (resultSet) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+}
@@ -4,22 +4,32 @@ import com.webapp.shreyas_purkar_002325982.entity.HealthCheckEntity;
 import com.webapp.shreyas_purkar_002325982.exception.DatabaseConnectionException;
 import com.webapp.shreyas_purkar_002325982.repository.HealthCheckRepository;
 import com.webapp.shreyas_purkar_002325982.service.HealthCheckService;
-import io.micrometer.core.instrument.MeterRegistry;
+import com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics.Outcome;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessResourceUsageException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.CannotCreateTransactionException;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Service class implementation to monitor health of application instance
+ * Service class implementation to monitor health of application instance. The database is checked
+ * at most once per health.check.interval and the result is shared by all probes in between. Probes
+ * wait at most health.check.lock-timeout for a check in progress, a database that hangs fails them
+ * instead of piling up request threads.
  */
 @Service
 public class HealthCheckServiceImpl implements HealthCheckService {
@@ -30,31 +40,129 @@ public class HealthCheckServiceImpl implements HealthCheckService {
     HealthCheckRepository repository;
 
     @Autowired
-    MeterRegistry meterRegistry;
+    OperationMetrics operationMetrics;
+
+    @Value("${health.check.interval:5s}")
+    private Duration interval;
+
+    @Value("${health.check.lock-timeout:2s}")
+    private Duration lockTimeout;
+
+    private final ReentrantLock checkLock = new ReentrantLock();
+
+    private final AtomicLong pendingProbes = new AtomicLong();
+
+    private volatile CheckResult lastResult;
+
+    private OperationMetrics.Meters persistHealthRecordMeters;
+
+    private Counter coalescedCounter;
+
+    private Counter lockTimeoutCounter;
+
+    @PostConstruct
+    void registerMeters() {
+        persistHealthRecordMeters = operationMetrics.registerTimer("db.persist-health-record.time", Outcome.DB_ERROR);
+        coalescedCounter = operationMetrics.counter("db.health-check.coalesced.count");
+        lockTimeoutCounter = operationMetrics.counter("db.health-check.lock-timeout.count");
+    }
 
     /**
      * Method to monitor health of application instance
      */
     @Override
     public void healthCheck() {
+        pendingProbes.incrementAndGet();
+
+        CheckResult result = lastResult;
+        if (isFresh(result)) {
+            coalescedCounter.increment();
+        } else if (tryLock()) {
+            try {
+                result = lastResult;
+                if (!isFresh(result)) {
+                    result = checkDatabase();
+                    lastResult = result;
+                }
+            } finally {
+                checkLock.unlock();
+            }
+        } else {
+            // The check in progress did not finish in time, its result is used only if it completed meanwhile
+            result = lastResult;
+            if (!isFresh(result)) {
+                lockTimeoutCounter.increment();
+                log.error("Health check failed. No database check completed within: {}", lockTimeout);
+                throw new DatabaseConnectionException();
+            }
+            coalescedCounter.increment();
+        }
+
+        if (!result.healthy()) {
+            throw new DatabaseConnectionException();
+        }
+    }
+
+    /**
+     * Method to wait for the check lock up to the lock timeout
+     *
+     * @return whether the lock was acquired
+     */
+    private boolean tryLock() {
+        try {
+            return checkLock.tryLock(lockTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Method to check if a health check result can still be shared
+     */
+    private boolean isFresh(CheckResult result) {
+        return result != null && System.nanoTime() - result.checkedAt() < interval.toNanos();
+    }
+
+    /**
+     * Method to check the database by persisting one record for all probes since the previous check
+     */
+    private CheckResult checkDatabase() {
+        long probes = pendingProbes.getAndSet(0);
+
         HealthCheckEntity entity = new HealthCheckEntity();
         entity.setDateTime(Instant.now());
+        entity.setProbeCount(probes);
 
-        Timer.Sample dbTimer = Timer.start(meterRegistry);
+        Timer.Sample dbTimer = persistHealthRecordMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
         try {
             repository.save(entity);
 
             log.info("Health check successful: {}", entity);
+            outcome = Outcome.SUCCESS;
+            return new CheckResult(System.nanoTime(), true);
         } catch (CannotCreateTransactionException | InvalidDataAccessResourceUsageException |
                  DataIntegrityViolationException | DataAccessResourceFailureException |
                  PersistenceException ex) {
             log.error("Health check failed. Error: {}", ex.getMessage(), ex);
-            throw new DatabaseConnectionException();
+            pendingProbes.addAndGet(probes);
+            return new CheckResult(System.nanoTime(), false);
         } catch (Exception ex) {
             log.error("Unexpected error during health check. Error:{}", ex.getMessage(), ex);
-            throw new DatabaseConnectionException();
+            pendingProbes.addAndGet(probes);
+            return new CheckResult(System.nanoTime(), false);
         }  finally {
-            dbTimer.stop(meterRegistry.timer("db.persist-health-record.time"));
+            persistHealthRecordMeters.stop(dbTimer, outcome);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Result of a database health check
+     *
+     * @param checkedAt nano time of the check
+     * @param healthy whether the database was reachable
+     */
+    private record CheckResult(long checkedAt, boolean healthy) {
+    }
+}
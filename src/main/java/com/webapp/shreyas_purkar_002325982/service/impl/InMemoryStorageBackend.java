@@ -0,0 +1,111 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.exception.FileUploadException;
+import com.webapp.shreyas_purkar_002325982.exception.S3ObjectNotFoundException;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import com.webapp.shreyas_purkar_002325982.service.StoredObjectContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Storage backend keeping objects in memory, for tests and local runs. Objects are lost on restart.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "memory")
+public class InMemoryStorageBackend implements StorageBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryStorageBackend.class);
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, Object> putObject(String key, InputStream inputStream, long contentLength) {
+        byte[] content;
+        try {
+            content = inputStream.readAllBytes();
+        } catch (IOException e) {
+            log.error("Failed to store the file at path: {}. Error: {}", key, e.getMessage(), e);
+            throw new FileUploadException();
+        }
+
+        StoredObject object = new StoredObject(content, Instant.now());
+        objects.put(key, object);
+
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("ETag", object.etag());
+        return metadata;
+    }
+
+    @Override
+    public StoredObjectContent getObject(String key, String range) {
+        StoredObject object = find(key);
+
+        ByteRange byteRange = ByteRange.resolve(range, object.content().length);
+        if (byteRange == null) {
+            return StoredObjectContent.ofStream(new ByteArrayInputStream(object.content()), null,
+                                                object.content().length, null, object.etag());
+        }
+        return StoredObjectContent.ofStream(new ByteArrayInputStream(object.content(), (int) byteRange.start(), (int) byteRange.length()),
+                                            null, byteRange.length(), byteRange.contentRange(), object.etag());
+    }
+
+    @Override
+    public ObjectAttributes headObject(String key) {
+        return new ObjectAttributes("bytes", find(key).lastModified());
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        objects.remove(key);
+    }
+
+    @Override
+    public Map<String, String> deleteObjects(Collection<String> keys) {
+        keys.forEach(objects::remove);
+        return Map.of();
+    }
+
+    @Override
+    public List<ListedObject> listObjects(String prefix, String startAfter, int maxKeys) {
+        return objects.entrySet()
+                      .stream()
+                      .filter(entry -> entry.getKey().startsWith(prefix))
+                      .filter(entry -> startAfter == null || ObjectKeys.compare(entry.getKey(), startAfter) > 0)
+                      .sorted(Map.Entry.comparingByKey(ObjectKeys::compare))
+                      .limit(maxKeys)
+                      .map(entry -> new ListedObject(entry.getKey(), entry.getValue().lastModified()))
+                      .toList();
+    }
+
+    /**
+     * Number of objects currently stored
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    private StoredObject find(String key) {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            log.error("No file found at path: {}", key);
+            throw new S3ObjectNotFoundException();
+        }
+        return object;
+    }
+
+    private record StoredObject(byte[] content, Instant lastModified) {
+
+        String etag() {
+            return "\"" + Integer.toHexString(Arrays.hashCode(content)) + "\"";
+        }
+    }
+}
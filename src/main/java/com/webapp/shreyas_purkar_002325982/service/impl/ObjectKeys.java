@@ -0,0 +1,35 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+/**
+ * Ordering of object keys shared by storage listings and the metadata table. Keys are compared by
+ * code point, which matches the UTF-8 binary order of S3 listings and the "C" collation of Postgres.
+ */
+final class ObjectKeys {
+
+    private ObjectKeys() {}
+
+    /**
+     * Method to compare two keys by code point
+     */
+    static int compare(String left, String right) {
+        int i = 0;
+        int j = 0;
+        while (i < left.length() && j < right.length()) {
+            int leftCodePoint = left.codePointAt(i);
+            int rightCodePoint = right.codePointAt(j);
+            if (leftCodePoint != rightCodePoint) {
+                return Integer.compare(leftCodePoint, rightCodePoint);
+            }
+            i += Character.charCount(leftCodePoint);
+            j += Character.charCount(rightCodePoint);
+        }
+        return Integer.compare(left.length() - i, right.length() - j);
+    }
+
+    /**
+     * Method to get the smallest key greater than all keys with given prefix of ASCII characters
+     */
+    static String upperBound(String prefix) {
+        return prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1);
+    }
+}
@@ -0,0 +1,229 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.exception.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the request and database operations on the hot path. The meters of an operation are
+ * registered once for every outcome it can produce, so recording is a field access instead of a registry
+ * lookup. Timers publish percentile histograms with SLO buckets, for latency percentiles across instances,
+ * so outcomes an operation cannot produce are not registered to keep the number of series down.
+ */
+@Component
+public class OperationMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration[] slo;
+
+    private final Duration minimumExpected;
+
+    private final Duration maximumExpected;
+
+    private final Map<String, Meters> registered = new ConcurrentHashMap<>();
+
+    public OperationMetrics(MeterRegistry meterRegistry,
+                            @Value("${metrics.timers.slo:5ms,10ms,25ms,50ms,100ms,250ms,500ms,1s,2500ms,5s,10s}") List<Duration> slo,
+                            @Value("${metrics.timers.minimum-expected:1ms}") Duration minimumExpected,
+                            @Value("${metrics.timers.maximum-expected:30s}") Duration maximumExpected) {
+        this.meterRegistry = meterRegistry;
+        this.slo = slo.toArray(Duration[]::new);
+        this.minimumExpected = minimumExpected;
+        this.maximumExpected = maximumExpected;
+    }
+
+    /**
+     * Method to register the meters of an operation counted and timed per outcome, as name.count and name.time.
+     * Operations recorded in several places share their meters.
+     *
+     * @param name of the operation
+     * @param outcomes the operation can produce besides success and unexpected errors
+     */
+    public Meters register(String name, Outcome... outcomes) {
+        return registered.computeIfAbsent(name + ".time", timerName -> new Meters(timerName, name + ".count", outcomes));
+    }
+
+    /**
+     * Method to register the meters of an operation only timed per outcome
+     *
+     * @param timerName of the operation
+     * @param outcomes the operation can produce besides success and unexpected errors
+     */
+    public Meters registerTimer(String timerName, Outcome... outcomes) {
+        return registered.computeIfAbsent(timerName, name -> new Meters(name, null, outcomes));
+    }
+
+    /**
+     * Method to register a counter without outcome
+     *
+     * @param name of the counter
+     */
+    public Counter counter(String name) {
+        return meterRegistry.counter(name);
+    }
+
+    /**
+     * Outcome of an operation, recorded as the outcome tag
+     */
+    public enum Outcome {
+        SUCCESS, NOT_FOUND, CLIENT_ERROR, S3_ERROR, DB_ERROR, ERROR;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+
+        /**
+         * Method to classify an operation by the error it failed with
+         *
+         * @param error raised by the operation, null when it succeeded
+         */
+        public static Outcome of(Throwable error) {
+            while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+                error = error.getCause();
+            }
+
+            if (error == null) {
+                return SUCCESS;
+            }
+            if (error instanceof S3ObjectNotFoundException) {
+                return NOT_FOUND;
+            }
+            if (error instanceof DatabaseConnectionException) {
+                return DB_ERROR;
+            }
+            if (error instanceof FileUploadException || error instanceof FileDownloadException ||
+                    error instanceof FileDeletionException || error instanceof FetchObjectMetadataException ||
+                    error instanceof AwsAuthorizationException || error instanceof StorageUnavailableException) {
+                return S3_ERROR;
+            }
+            if (error instanceof PayloadNotAllowedException || error instanceof EmptyFileException ||
+                    error instanceof InvalidUploadException || error instanceof InvalidDeleteRequestException ||
+                    error instanceof InvalidCursorException || error instanceof InvalidRangeException ||
+                    error instanceof IdempotencyKeyMismatchException || error instanceof IdempotencyKeyInFlightException) {
+                return CLIENT_ERROR;
+            }
+            return ERROR;
+        }
+    }
+
+    /**
+     * Pre-registered meters of one operation
+     */
+    public class Meters {
+
+        private final String timerName;
+
+        private final String counterName;
+
+        private final Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+
+        private final Map<Outcome, Counter> counters = new EnumMap<>(Outcome.class);
+
+        private Meters(String timerName, String counterName, Outcome... outcomes) {
+            this.timerName = timerName;
+            this.counterName = counterName;
+
+            Set<Outcome> registeredOutcomes = EnumSet.of(Outcome.SUCCESS, Outcome.ERROR);
+            registeredOutcomes.addAll(Arrays.asList(outcomes));
+            for (Outcome outcome : registeredOutcomes) {
+                timers.put(outcome, timer(outcome));
+                if (counterName != null) {
+                    counters.put(outcome, counter(outcome));
+                }
+            }
+        }
+
+        private Timer timer(Outcome outcome) {
+            return Timer.builder(timerName)
+                        .tag("outcome", outcome.tag)
+                        .publishPercentileHistogram()
+                        .serviceLevelObjectives(slo)
+                        .minimumExpectedValue(minimumExpected)
+                        .maximumExpectedValue(maximumExpected)
+                        .register(meterRegistry);
+        }
+
+        private Counter counter(Outcome outcome) {
+            return Counter.builder(counterName).tag("outcome", outcome.tag).register(meterRegistry);
+        }
+
+        /**
+         * Method to start timing the operation
+         */
+        public Timer.Sample start() {
+            return Timer.start(meterRegistry);
+        }
+
+        /**
+         * Method to run the operation and record it with the outcome of the error it failed with
+         *
+         * @param operation to run
+         * @return result of the operation
+         */
+        public <T> T record(Supplier<T> operation) {
+            Timer.Sample sample = start();
+            Throwable failure = null;
+            try {
+                return operation.get();
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                throw e;
+            } finally {
+                stop(sample, failure);
+            }
+        }
+
+        /**
+         * Method to run the operation without result and record it with the outcome of the error it failed with
+         *
+         * @param operation to run
+         */
+        public void run(Runnable operation) {
+            record(() -> {
+                operation.run();
+                return null;
+            });
+        }
+
+        /**
+         * Method to record the operation with the outcome of the error it failed with
+         *
+         * @param sample started with the operation
+         * @param error raised by the operation, null when it succeeded
+         */
+        public void stop(Timer.Sample sample, Throwable error) {
+            stop(sample, Outcome.of(error));
+        }
+
+        /**
+         * Method to record the operation with given outcome. Outcomes not registered for the operation are
+         * looked up in the registry.
+         *
+         * @param sample started with the operation
+         * @param outcome of the operation
+         */
+        public void stop(Timer.Sample sample, Outcome outcome) {
+            Timer timer = timers.get(outcome);
+            sample.stop(timer != null ? timer : timer(outcome));
+            if (counterName != null) {
+                Counter counter = counters.get(outcome);
+                (counter != null ? counter : counter(outcome)).increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectEntity;
+import com.webapp.shreyas_purkar_002325982.exception.*;
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectMetadataRepository;
+import com.webapp.shreyas_purkar_002325982.service.S3AsyncService;
+import com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics.Outcome;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Service class implementation for managing S3 objects on the non-blocking S3 client.
+ * S3 calls never hold a thread while waiting, blocking database work runs on a bounded worker pool.
+ */
+@Service
+@ConditionalOnProperty(name = "aws.s3.async.enabled", havingValue = "true")
+public class S3AsyncServiceImpl implements S3AsyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(S3AsyncServiceImpl.class);
+
+    private final S3ObjectMetadataRepository repository;
+
+    private final S3AsyncClient s3AsyncClient;
+
+    private final ExecutorService workerExecutor;
+
+    private final S3ObjectMetadataEnricher metadataEnricher;
+
+    private final Cache<String, S3ObjectDto> objectCache;
+
+    private final S3DeleteQueue deleteQueue;
+
+    private final OperationMetrics.Meters persistMetadataMeters;
+
+    private final OperationMetrics.Meters queryObjectMeters;
+
+    private final OperationMetrics.Meters deleteMetadataMeters;
+
+    private final OperationMetrics.Meters uploadMeters;
+
+    private final OperationMetrics.Meters deleteMeters;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    public S3AsyncServiceImpl(S3ObjectMetadataRepository repository, S3AsyncClient s3AsyncClient,
+                              @Qualifier("s3AsyncWorkerExecutor") ExecutorService workerExecutor,
+                              S3ObjectMetadataEnricher metadataEnricher,
+                              Cache<String, S3ObjectDto> objectCache,
+                              S3DeleteQueue deleteQueue,
+                              OperationMetrics operationMetrics) {
+        this.repository = repository;
+        this.s3AsyncClient = s3AsyncClient;
+        this.workerExecutor = workerExecutor;
+        this.metadataEnricher = metadataEnricher;
+        this.objectCache = objectCache;
+        this.deleteQueue = deleteQueue;
+
+        this.persistMetadataMeters = operationMetrics.registerTimer("db.persist-file-metadata.time", Outcome.DB_ERROR);
+        this.queryObjectMeters = operationMetrics.registerTimer("db.query-s3-object.time", Outcome.NOT_FOUND, Outcome.DB_ERROR);
+        this.deleteMetadataMeters = operationMetrics.registerTimer("db.delete-file-metadata.time", Outcome.DB_ERROR);
+        this.uploadMeters = operationMetrics.registerTimer("s3.upload-file.time", Outcome.S3_ERROR);
+        this.deleteMeters = operationMetrics.registerTimer("s3.delete-file.time", Outcome.S3_ERROR);
+    }
+
+    /**
+     * Method to create S3 object
+     *
+     * @param file to upload on S3
+     */
+    @Override
+    public CompletableFuture<S3ObjectDto> uploadObject(MultipartFile file) {
+        UUID fileId = UUID.randomUUID();
+        log.info("UUID of the file is {}", fileId);
+
+        String key = fileId + "/" + file.getOriginalFilename();
+        String url = bucketName + "/" + key;
+
+        return CompletableFuture.supplyAsync(() -> deleteQueue.reserve(key), workerExecutor)
+                                .thenCompose(reservation -> uploadObjectToS3(file, fileId, key)
+                                        .whenCompleteAsync((response, error) -> {
+                                            if (error != null) {
+                                                deleteQueue.compensate(List.of(reservation));
+                                            }
+                                        }, workerExecutor)
+                                        .thenApplyAsync(response -> persistObjectMetadata(file, fileId, url, key, reservation, response), workerExecutor));
+    }
+
+    /**
+     * Method to persist S3 object metadata, queueing the reserved delete of the uploaded object if it cannot be saved.
+     * Fields missing from the upload response are filled in later by the metadata enricher.
+     */
+    private S3ObjectDto persistObjectMetadata(MultipartFile file, UUID fileId, String url, String key, Long reservation,
+                                              PutObjectResponse response) {
+        S3ObjectEntity entity = new S3ObjectEntity();
+        entity.setObjectId(fileId);
+        entity.setFileName(file.getOriginalFilename());
+        entity.setUploadDate(Instant.now());
+        entity.setContentLength(file.getSize());
+        entity.setContentType(file.getContentType());
+        entity.setEtag(response.eTag());
+        entity.setServerSideEncryption(response.serverSideEncryptionAsString());
+        entity.setAwsRequestId(response.responseMetadata().requestId());
+        entity.setExtendedRequestId(response.responseMetadata().extendedRequestId());
+        entity.setCompensationId(reservation);
+
+        Timer.Sample dbTimer = persistMetadataMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+        try {
+            deleteQueue.persist(List.of(entity));
+            outcome = Outcome.SUCCESS;
+            metadataEnricher.enrich(entity.getObjectId(), key);
+
+            log.info("Successfully persisted metadata for file with Id: {} in database", fileId);
+            return toDto(entity);
+        } catch (CannotCreateTransactionException | InvalidDataAccessResourceUsageException |
+                 DataIntegrityViolationException | DataAccessResourceFailureException |
+                 PersistenceException ex) {
+            log.error("Failed to persist the metadata for file with Id: {} from S3 bucket: {} at path: {}. Error: {}", fileId, bucketName, url, ex.getMessage(), ex);
+            deleteQueue.compensate(List.of(reservation));
+            throw new DatabaseConnectionException();
+        } catch (Exception ex) {
+            log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
+            deleteQueue.compensate(List.of(reservation));
+            throw new DatabaseConnectionException();
+        } finally {
+            persistMetadataMeters.stop(dbTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to upload S3 object
+     *
+     * @param file to be uploaded
+     * @return future completed once the object is uploaded
+     */
+    private CompletableFuture<PutObjectResponse> uploadObjectToS3(MultipartFile file, UUID fileId, String key) {
+        log.info("Uploading file on S3 bucket: {} with id: {}", bucketName, fileId);
+
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                                                            .bucket(bucketName)
+                                                            .key(key)
+                                                            .build();
+
+        AsyncRequestBody requestBody;
+        try {
+            requestBody = AsyncRequestBody.fromInputStream(file.getInputStream(), file.getSize(), workerExecutor);
+        } catch (IOException e) {
+            log.error("Failed to upload the file with Id: {} on S3 bucket: {} at path: {}. Error: {}", fileId, bucketName, key, e.getMessage(), e);
+            return CompletableFuture.failedFuture(new FileUploadException());
+        }
+
+        Timer.Sample s3PutApiTimer = uploadMeters.start();
+
+        return s3AsyncClient.putObject(putObjectRequest, requestBody)
+                            .whenComplete((response, error) -> uploadMeters.stop(s3PutApiTimer, error == null ? Outcome.SUCCESS : Outcome.S3_ERROR))
+                            .handle((response, error) -> {
+                                if (error == null) {
+                                    log.info("Object with Id: {} uploaded successfully on bucket: {} at path: {}", fileId, bucketName, key);
+                                    return response;
+                                }
+
+                                Throwable cause = unwrap(error);
+                                if (cause instanceof SdkClientException) {
+                                    log.error("Missing AWS credentials. Error: {}", cause.getMessage(), cause);
+                                    throw new AwsAuthorizationException();
+                                }
+                                log.error("S3 is unavailable. Upload failed for file with Id: {}. on S3 bucket: {} at path: {}. Error: {}", fileId, bucketName, key, cause.getMessage(), cause);
+                                throw new StorageUnavailableException();
+                            });
+    }
+
+    /**
+     * Method to delete S3 object for given Id
+     *
+     * @param id of S3 object
+     */
+    @Override
+    public CompletableFuture<Void> deleteObject(String id) {
+        if (deleteQueue.isEnabled()) {
+            return CompletableFuture.runAsync(() -> deleteQueue.enqueue(id), workerExecutor);
+        }
+
+        return CompletableFuture.supplyAsync(() -> findS3Object(id), workerExecutor)
+                                .thenCompose(entity -> {
+                                    if (entity.getContentDigest() != null) {
+                                        // Deduplicated objects are shared, the reference is released with the metadata
+                                        return CompletableFuture.runAsync(() -> deleteS3ObjectMetadata(entity), workerExecutor);
+                                    }
+
+                                    String key = entity.getObjectKey();
+                                    return deleteS3Object(key, id).thenAcceptAsync(ignored -> deleteS3ObjectMetadata(entity), workerExecutor);
+                                });
+    }
+
+    /**
+     * Method to get S3 object metadata
+     *
+     * @param id of S3 object
+     * @return entity containing S3 object metadata
+     */
+    private S3ObjectEntity findS3Object(String id) {
+        log.info("Retrieving file with Id: {} from database...", id);
+
+        Timer.Sample dbTimer = queryObjectMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+
+        S3ObjectEntity entity;
+        try {
+            entity = repository.findByObjectId(UUID.fromString(id));
+            outcome = entity != null ? Outcome.SUCCESS : Outcome.NOT_FOUND;
+        } catch (IllegalArgumentException ex) {
+            entity = null;
+            outcome = Outcome.NOT_FOUND;
+        } catch (Exception ex) {
+            log.error("Failed to retrieve the file with Id: {}. Error: {}", id, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            queryObjectMeters.stop(dbTimer, outcome);
+        }
+
+        if (entity == null) {
+            log.error("No file with Id: {} found in database.", id);
+            throw new S3ObjectNotFoundException();
+        }
+        return entity;
+    }
+
+    /**
+     * Method to map S3 object metadata to its dto
+     *
+     * @param entity containing S3 object metadata
+     */
+    private S3ObjectDto toDto(S3ObjectEntity entity) {
+        S3ObjectDto dto = new S3ObjectDto();
+        dto.setFileName(entity.getFileName());
+        dto.setUrl(bucketName + "/" + entity.getObjectKey());
+        dto.setObjectId(entity.getObjectId().toString());
+        dto.setUploadDate(entity.getUploadDate());
+        return dto;
+    }
+
+    /**
+     * Method to delete S3 object metadata
+     *
+     * @param entity containing S3 object metadata
+     */
+    private void deleteS3ObjectMetadata(S3ObjectEntity entity) {
+        Timer.Sample dbTimer = deleteMetadataMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+        try {
+            repository.deleteAndReleaseObjects(List.of(entity.getObjectId()));
+            objectCache.invalidate(entity.getObjectId().toString());
+            outcome = Outcome.SUCCESS;
+        } catch (Exception ex) {
+            log.error("Failed to delete the metadata for file with Id: {}. Error: {}", entity.getObjectId(), ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            deleteMetadataMeters.stop(dbTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to delete S3 object
+     *
+     * @param key containing object key
+     * @param id of S3 bucket
+     * @return future completed once the object is deleted
+     */
+    private CompletableFuture<DeleteObjectResponse> deleteS3Object(String key, String id) {
+        log.info("Deleting file with id {} from S3 bucket: {} at path: {}", id, bucketName, key);
+        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+                                                                     .bucket(bucketName)
+                                                                     .key(key)
+                                                                     .build();
+
+        Timer.Sample s3DeleteApiTimer = deleteMeters.start();
+
+        return s3AsyncClient.deleteObject(deleteObjectRequest)
+                            .whenComplete((response, error) -> deleteMeters.stop(s3DeleteApiTimer, error == null ? Outcome.SUCCESS : Outcome.S3_ERROR))
+                            .handle((response, error) -> {
+                                if (error == null) {
+                                    log.info("Successfully deleted file with Id: {} from S3 bucket: {} at path: {}", id, bucketName, key);
+                                    return response;
+                                }
+
+                                Throwable cause = unwrap(error);
+                                if (cause instanceof SdkClientException) {
+                                    log.error("Missing AWS credentials. Error: {}", cause.getMessage(), cause);
+                                    throw new AwsAuthorizationException();
+                                }
+                                if (cause instanceof SdkException) {
+                                    log.error("S3 is unavailable. Failed to delete file with Id: {}. on S3 bucket: {} at path: {}. Error: {}", id, bucketName, key, cause.getMessage(), cause);
+                                    throw new StorageUnavailableException();
+                                }
+                                log.error("Unexpected issue while deleting file with Id: {} from S3 bucket: {} at path: {}. Error: {}", id, bucketName, key, cause.getMessage(), cause);
+                                throw new FileDeletionException();
+                            });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
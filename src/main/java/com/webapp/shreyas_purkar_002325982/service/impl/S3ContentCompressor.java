@@ -0,0 +1,165 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.exception.FileDownloadException;
+import com.webapp.shreyas_purkar_002325982.exception.FileUploadException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Transparent compression of uploads that compress well. Uploads with a configured content type
+ * are stored gzip encoded, compressed as they stream to the storage backend. Downloads serve the
+ * stored bytes with Content-Encoding gzip to clients accepting it and decompress them for others.
+ */
+@Component
+public class S3ContentCompressor {
+
+    private static final Logger log = LoggerFactory.getLogger(S3ContentCompressor.class);
+
+    public static final String GZIP = "gzip";
+
+    private final boolean enabled;
+
+    private final List<MimeType> contentTypes;
+
+    private final long minSize;
+
+    private final int level;
+
+    private final int bufferSize;
+
+    private final MeterRegistry meterRegistry;
+
+    public S3ContentCompressor(@Value("${storage.compression.enabled:false}") boolean enabled,
+                               @Value("${storage.compression.content-types:text/*,application/json,application/x-ndjson,application/xml}") List<String> contentTypes,
+                               @Value("${storage.compression.min-size:1KB}") DataSize minSize,
+                               @Value("${storage.compression.level:6}") int level,
+                               @Value("${storage.compression.buffer-size:64KB}") DataSize bufferSize,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.contentTypes = contentTypes.stream().map(String::trim).map(MimeType::valueOf).toList();
+        this.minSize = minSize.toBytes();
+        this.level = level;
+        this.bufferSize = (int) bufferSize.toBytes();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Method to choose the encoding an upload is stored with
+     *
+     * @param contentType of the upload
+     * @param contentLength of the upload, -1 when unknown
+     * @return encoding of the stored content, null to store the upload unchanged
+     */
+    public String selectEncoding(String contentType, long contentLength) {
+        if (!enabled || contentType == null || (contentLength >= 0 && contentLength < minSize)) {
+            return null;
+        }
+
+        MimeType mimeType;
+        try {
+            mimeType = MimeType.valueOf(contentType);
+        } catch (InvalidMimeTypeException e) {
+            return null;
+        }
+        return contentTypes.stream().anyMatch(type -> type.includes(mimeType)) ? GZIP : null;
+    }
+
+    /**
+     * Method to compress an upload as it is read
+     *
+     * @param inputStream containing the upload
+     * @return stream of the compressed upload
+     */
+    public InputStream compress(InputStream inputStream) {
+        try {
+            return new GzipCompressingInputStream(inputStream, bufferSize, level);
+        } catch (IOException e) {
+            log.error("Failed to start compression of upload. Error: {}", e.getMessage(), e);
+            throw new FileUploadException();
+        }
+    }
+
+    /**
+     * Method to decompress stored content for a client not accepting its encoding
+     *
+     * @param inputStream containing the stored content
+     * @return stream of the original content
+     */
+    public InputStream decompress(InputStream inputStream) {
+        try {
+            return new GZIPInputStream(inputStream, bufferSize);
+        } catch (IOException e) {
+            log.error("Failed to start decompression of stored content. Error: {}", e.getMessage(), e);
+            throw new FileDownloadException();
+        }
+    }
+
+    /**
+     * Method to record the bytes saved by compressing an upload
+     *
+     * @param contentLength of the upload
+     * @param storedLength of the compressed upload
+     */
+    public void recordCompression(long contentLength, long storedLength) {
+        meterRegistry.counter("storage.compression.original.bytes").increment(contentLength);
+        meterRegistry.counter("storage.compression.stored.bytes").increment(storedLength);
+    }
+
+    /**
+     * Method to check if an Accept-Encoding header accepts the given encoding. An entry naming the
+     * encoding takes precedence over the * wildcard, so "gzip;q=0, *" rejects gzip.
+     *
+     * @param acceptEncoding header of the request, null when missing
+     * @param encoding of the stored content
+     */
+    public static boolean isAccepted(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            if (name.equalsIgnoreCase(encoding)) {
+                return isAcceptedQuality(parameters);
+            }
+            if (name.equals("*") && wildcard == null) {
+                wildcard = isAcceptedQuality(parameters);
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    /**
+     * Method to check if the parameters of an Accept-Encoding entry leave it acceptable, a quality
+     * of zero or one that cannot be parsed rejects the entry
+     *
+     * @param parameters of the entry, the first one being the coding itself
+     */
+    private static boolean isAcceptedQuality(String[] parameters) {
+        boolean accepted = true;
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    accepted = Double.parseDouble(parameter.substring(2)) != 0;
+                } catch (NumberFormatException e) {
+                    accepted = false;
+                }
+            }
+        }
+        return accepted;
+    }
+}
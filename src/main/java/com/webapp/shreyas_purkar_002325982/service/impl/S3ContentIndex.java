@@ -0,0 +1,178 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectContentEntity;
+import com.webapp.shreyas_purkar_002325982.exception.DatabaseConnectionException;
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectContentRepository;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics.Outcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Content-addressed deduplication of uploads. Stored objects are indexed by the SHA-256 digest of
+ * their content with a reference count, uploads of content that is already stored take a reference
+ * on the existing object instead of storing it again. The object is queued for deletion with its last
+ * reference.
+ */
+@Component
+public class S3ContentIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(S3ContentIndex.class);
+
+    private final S3ObjectContentRepository repository;
+
+    private final StorageBackend storage;
+
+    private final OperationMetrics.Meters acquireMeters;
+
+    private final OperationMetrics.Meters registerMeters;
+
+    private final OperationMetrics.Meters releaseMeters;
+
+    private final Counter hitCounter;
+
+    @Value("${storage.dedup.enabled:false}")
+    private boolean enabled;
+
+    public S3ContentIndex(S3ObjectContentRepository repository, StorageBackend storage, OperationMetrics operationMetrics) {
+        this.repository = repository;
+        this.storage = storage;
+
+        this.acquireMeters = operationMetrics.registerTimer("db.acquire-content.time", Outcome.DB_ERROR);
+        this.registerMeters = operationMetrics.registerTimer("db.register-content.time", Outcome.DB_ERROR);
+        this.releaseMeters = operationMetrics.registerTimer("db.release-content.time", Outcome.DB_ERROR);
+        this.hitCounter = operationMetrics.counter("storage.dedup.hit.count");
+    }
+
+    /**
+     * Method to check if uploads are deduplicated
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Method to create the digest computed over the content of an upload
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Method to encode a computed digest as stored in the index
+     */
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Method to take a reference on the stored object with given digest
+     *
+     * @param digest of the content
+     * @return the referenced object, empty when the content is not stored yet
+     */
+    public Optional<S3ObjectContentEntity> acquire(String digest) {
+        Timer.Sample dbTimer = acquireMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+        try {
+            List<S3ObjectContentEntity> acquired = repository.acquire(digest);
+            outcome = Outcome.SUCCESS;
+            if (acquired.isEmpty()) {
+                return Optional.empty();
+            }
+
+            hitCounter.increment();
+            log.info("Reusing stored object at path: {} for content with digest: {}", acquired.get(0).getObjectKey(), digest);
+            return Optional.of(acquired.get(0));
+        } catch (Exception ex) {
+            log.error("Failed to look up content with digest: {}. Error: {}", digest, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            acquireMeters.stop(dbTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to register a newly stored object. When the same content was registered concurrently,
+     * the newly stored object is deleted and the registered object is used instead.
+     *
+     * @param digest of the content
+     * @param key of the newly stored object
+     * @param contentLength of the content
+     * @param etag of the newly stored object
+     * @param contentEncoding of the newly stored object, null when stored unchanged
+     * @param storedLength of the newly stored object
+     * @return the referenced object
+     */
+    public S3ObjectContentEntity register(String digest, String key, long contentLength, String etag,
+                                          String contentEncoding, long storedLength) {
+        S3ObjectContentEntity registered;
+        Timer.Sample dbTimer = registerMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+        try {
+            registered = repository.register(digest, key, contentLength, etag, contentEncoding, storedLength).get(0);
+            outcome = Outcome.SUCCESS;
+        } catch (Exception ex) {
+            log.error("Failed to register content with digest: {} at path: {}. Error: {}", digest, key, ex.getMessage(), ex);
+            deleteQuietly(key);
+            throw new DatabaseConnectionException();
+        } finally {
+            registerMeters.stop(dbTimer, outcome);
+        }
+
+        if (!registered.getObjectKey().equals(key)) {
+            hitCounter.increment();
+            log.info("Content with digest: {} was stored concurrently at path: {}, deleting duplicate at path: {}", digest, registered.getObjectKey(), key);
+            deleteQuietly(key);
+        }
+        return registered;
+    }
+
+    /**
+     * Method to release references on the stored object with given digest. The object is queued for
+     * deletion with its last reference, the delete reaper deletes it in the background.
+     *
+     * @param digest of the content
+     * @param count of references to release
+     */
+    public void release(String digest, int count) {
+        int queued;
+        Timer.Sample dbTimer = releaseMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+        try {
+            queued = repository.release(digest, count);
+            outcome = Outcome.SUCCESS;
+        } catch (Exception ex) {
+            log.error("Failed to release content with digest: {}. Error: {}", digest, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            releaseMeters.stop(dbTimer, outcome);
+        }
+
+        if (queued > 0) {
+            log.info("Last reference on content with digest: {} released, queued its object for deletion", digest);
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            storage.deleteObject(key);
+        } catch (RuntimeException e) {
+            log.error("Failed to delete duplicate object at path: {}", key, e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectEntity;
+import com.webapp.shreyas_purkar_002325982.exception.DatabaseConnectionException;
+import com.webapp.shreyas_purkar_002325982.exception.S3ObjectNotFoundException;
+import com.webapp.shreyas_purkar_002325982.repository.S3DeleteQueueRepository;
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectMetadataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Deferred delete of S3 objects. The metadata row is deleted and the S3 key is queued in the same
+ * statement, the S3 object itself is deleted later by the S3DeleteReaper.
+ * <p>
+ * The queue is also the outbox of compensating deletes for uploads. A delete is reserved before an
+ * object is stored and removed in the transaction inserting its metadata, so an object whose metadata
+ * is never persisted is deleted by the reaper even when the instance or the database failed meanwhile.
+ */
+@Component
+public class S3DeleteQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(S3DeleteQueue.class);
+
+    private final S3ObjectMetadataRepository repository;
+
+    private final S3DeleteQueueRepository queueRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, S3ObjectDto> objectCache;
+
+    @Value("${aws.s3.deferred-delete.enabled:false}")
+    private boolean enabled;
+
+    @Value("${aws.s3.compensation.grace:1h}")
+    private Duration compensationGrace;
+
+    public S3DeleteQueue(S3ObjectMetadataRepository repository, S3DeleteQueueRepository queueRepository,
+                         MeterRegistry meterRegistry, Cache<String, S3ObjectDto> objectCache) {
+        this.repository = repository;
+        this.queueRepository = queueRepository;
+        this.meterRegistry = meterRegistry;
+        this.objectCache = objectCache;
+    }
+
+    /**
+     * Method to check if deletes are deferred to the delete queue
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Method to delete the metadata of S3 object for given Id and queue the object for deletion
+     *
+     * @param id of S3 object
+     */
+    public void enqueue(String id) {
+        UUID objectId;
+        try {
+            objectId = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            log.error("No file with Id: {} found in database.", id);
+            throw new S3ObjectNotFoundException();
+        }
+
+        int queued;
+        Timer.Sample dbTimer = Timer.start(meterRegistry);
+        try {
+            queued = repository.deleteAndQueueObject(objectId);
+        } catch (Exception ex) {
+            log.error("Failed to queue the file with Id: {} for deletion. Error: {}", id, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            dbTimer.stop(meterRegistry.timer("db.queue-file-deletion.time"));
+        }
+
+        if (queued == 0) {
+            log.error("No file with Id: {} found in database.", id);
+            throw new S3ObjectNotFoundException();
+        }
+
+        objectCache.invalidate(id);
+        log.info("Queued file with Id: {} for deletion", id);
+    }
+
+    /**
+     * Method to reserve the compensating delete of an upload before the object is stored. Without the
+     * database the upload fails before anything is stored.
+     *
+     * @param key of the object to be uploaded
+     * @return id of the reserved entry
+     */
+    public Long reserve(String key) {
+        Timer.Sample dbTimer = Timer.start(meterRegistry);
+        try {
+            return queueRepository.reserve(key, compensationGrace.toSeconds());
+        } catch (Exception ex) {
+            log.error("Failed to reserve compensating delete for path: {}. Error: {}", key, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            dbTimer.stop(meterRegistry.timer("db.reserve-compensation.time"));
+        }
+    }
+
+    /**
+     * Method to insert the metadata of uploaded objects and remove their reserved deletes in one
+     * transaction. When the reaper has claimed a reservation already, its object is being deleted
+     * and the insert is rolled back.
+     *
+     * @param entities containing S3 object metadata
+     */
+    @Transactional
+    public void persist(List<S3ObjectEntity> entities) {
+        List<Long> reservations = entities.stream().map(S3ObjectEntity::getCompensationId).filter(Objects::nonNull).toList();
+        if (!reservations.isEmpty() && queueRepository.deleteUnclaimed(reservations) != reservations.size()) {
+            throw new IllegalStateException("Compensating delete of an upload was claimed before its metadata was persisted");
+        }
+        repository.saveAll(entities);
+    }
+
+    /**
+     * Method to make the reserved deletes of failed uploads due right away. When the database is
+     * unavailable the deletes become due after the grace period instead.
+     *
+     * @param reservations ids of the reserved entries
+     */
+    public void compensate(Collection<Long> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+
+        try {
+            queueRepository.expedite(reservations);
+            meterRegistry.counter("s3.compensation.queued.count").increment(reservations.size());
+            log.info("Queued {} compensating deletes of failed uploads", reservations.size());
+        } catch (Exception ex) {
+            log.warn("Failed to expedite {} compensating deletes, they are due after {}. Error: {}",
+                     reservations.size(), compensationGrace, ex.getMessage());
+        }
+    }
+
+    /**
+     * Method to drop the reserved delete of an object owned by the content index
+     *
+     * @param reservation id of the reserved entry
+     */
+    public void cancel(Long reservation) {
+        Timer.Sample dbTimer = Timer.start(meterRegistry);
+        try {
+            if (queueRepository.deleteUnclaimed(List.of(reservation)) == 0) {
+                throw new IllegalStateException("Compensating delete was claimed before it was cancelled");
+            }
+        } catch (Exception ex) {
+            log.error("Failed to cancel compensating delete: {}. Error: {}", reservation, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            dbTimer.stop(meterRegistry.timer("db.cancel-compensation.time"));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.entity.S3DeleteQueueEntity;
+import com.webapp.shreyas_purkar_002325982.repository.S3DeleteQueueRepository;
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectContentRepository;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background reaper draining the S3 delete queue with batched deletes on the storage backend.
+ * Failed keys are retried with exponential backoff, entries are claimed with SKIP LOCKED
+ * so several instances can drain the queue at once. The queue holds deferred deletes as well as
+ * the compensating deletes of uploads whose metadata was never persisted.
+ * <p>
+ * Without deferred deletes nothing in the queue is urgent, compensating deletes only become due after
+ * their grace period. The queue is then polled at the idle interval instead of the poll interval.
+ */
+@Component
+public class S3DeleteReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(S3DeleteReaper.class);
+
+    private final S3DeleteQueueRepository repository;
+
+    private final StorageBackend storage;
+
+    private final S3ObjectContentRepository contentRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong backlogDepth = new AtomicLong();
+
+    private final AtomicLong backlogAgeSeconds = new AtomicLong();
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${aws.s3.delete-queue.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${aws.s3.delete-queue.lease:5m}")
+    private Duration lease;
+
+    @Value("${aws.s3.delete-queue.max-backoff:1h}")
+    private Duration maxBackoff;
+
+    @Value("${aws.s3.deferred-delete.enabled:false}")
+    private boolean deferredDeletes;
+
+    @Value("${aws.s3.delete-queue.idle-poll-interval:1m}")
+    private Duration idlePollInterval;
+
+    private Instant nextIdlePoll = Instant.MIN;
+
+    public S3DeleteReaper(S3DeleteQueueRepository repository, StorageBackend storage,
+                          S3ObjectContentRepository contentRepository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.storage = storage;
+        this.contentRepository = contentRepository;
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge("s3.delete-queue.depth", backlogDepth);
+        meterRegistry.gauge("s3.delete-queue.oldest-age.seconds", backlogAgeSeconds);
+    }
+
+    /**
+     * Method to drain the queue on schedule, only every idle interval while deletes are not deferred
+     */
+    @Scheduled(fixedDelayString = "${aws.s3.delete-queue.poll-interval:5s}")
+    public void poll() {
+        if (!deferredDeletes) {
+            Instant now = Instant.now();
+            if (now.isBefore(nextIdlePoll)) {
+                return;
+            }
+            nextIdlePoll = now.plus(idlePollInterval);
+        }
+        drain();
+    }
+
+    /**
+     * Method to delete all due entries of the queue, a batch at a time
+     */
+    public void drain() {
+        try {
+            int claimed;
+            do {
+                // Entries rescheduled by a batch keep its token, every batch claims with a token of its own
+                UUID claimToken = UUID.randomUUID();
+                claimed = repository.claimDue(claimToken, batchSize, lease.toSeconds());
+                if (claimed > 0) {
+                    deleteBatch(repository.findAllByClaimToken(claimToken));
+                }
+            } while (claimed == batchSize);
+
+            // Deduplicated objects released by queued deletes are queued themselves, their index entries can go
+            contentRepository.deleteAllUnreferenced();
+            updateBacklogMetrics();
+        } catch (Exception ex) {
+            log.error("Failed to drain the S3 delete queue. Error: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Method to delete one claimed batch from S3 and remove the entries of the deleted keys
+     */
+    private void deleteBatch(List<S3DeleteQueueEntity> batch) {
+        Map<String, List<Long>> keys = new HashMap<>();
+        batch.forEach(entry -> keys.computeIfAbsent(entry.getObjectKey(), key -> new ArrayList<>()).add(entry.getId()));
+
+        Set<String> deleted = new HashSet<>(keys.keySet());
+        try {
+            Map<String, String> errors = storage.deleteObjects(keys.keySet());
+
+            errors.forEach((key, code) -> {
+                log.warn("Failed to delete queued file at path: {} from bucket: {}. Error: {}", key, bucketName, code);
+                deleted.remove(key);
+                repository.reschedule(keys.get(key), code, maxBackoff.toSeconds());
+            });
+        } catch (RuntimeException e) {
+            log.error("Storage is unavailable. Failed to delete {} queued files from bucket: {}. Error: {}", keys.size(), bucketName, e.getClass().getSimpleName(), e);
+            repository.reschedule(batch.stream().map(S3DeleteQueueEntity::getId).toList(), e.getClass().getSimpleName(), maxBackoff.toSeconds());
+            meterRegistry.counter("s3.delete-queue.failed.count").increment(keys.size());
+            return;
+        }
+
+        meterRegistry.counter("s3.delete-queue.failed.count").increment(keys.size() - deleted.size());
+        if (!deleted.isEmpty()) {
+            repository.deleteAllByIdIn(deleted.stream().flatMap(key -> keys.get(key).stream()).toList());
+            meterRegistry.counter("s3.delete-queue.deleted.count").increment(deleted.size());
+            log.info("Deleted {} queued files from bucket: {}", deleted.size(), bucketName);
+        }
+    }
+
+    /**
+     * Method to refresh the backlog depth and age gauges, pending upload reservations are not backlog
+     */
+    private void updateBacklogMetrics() {
+        backlogDepth.set(repository.countBacklog());
+        Instant oldest = repository.findOldestEnqueuedAt();
+        backlogAgeSeconds.set(oldest == null ? 0 : Duration.between(oldest, Instant.now()).toSeconds());
+    }
+}
@@ -0,0 +1,417 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.entity.S3DeleteQueueEntity;
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectKeySummary;
+import com.webapp.shreyas_purkar_002325982.exception.S3ObjectNotFoundException;
+import com.webapp.shreyas_purkar_002325982.repository.S3DeleteQueueRepository;
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectMetadataRepository;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import com.webapp.shreyas_purkar_002325982.util.S3Config;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background job reconciling the objects of the storage backend with the metadata table. Object keys
+ * start with the object Id, the key space is split into the 256 partitions of its first two hex digits
+ * which are reconciled in parallel. Each partition merges a paged storage listing with a keyset walk of
+ * the table in the same key order, so memory is bounded by one page of each side per thread.
+ * <p>
+ * Objects without metadata are orphans, metadata whose object is missing is dangling. Only entries
+ * older than the minimum age are reported, younger ones may belong to uploads or deletes in flight.
+ * In repair mode orphans are queued for deletion and dangling rows are deleted. A run holds a Postgres
+ * advisory lock, so only one instance reconciles at a time.
+ */
+@Component
+public class S3InventoryReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(S3InventoryReconciler.class);
+
+    private static final UUID MIN_OBJECT_ID = new UUID(0L, 0L);
+
+    private static final String RECONCILIATION_LOCK = "hashtext('s3_inventory_reconciliation')";
+
+    private final StorageBackend storage;
+
+    private final S3ObjectMetadataRepository repository;
+
+    private final S3DeleteQueueRepository deleteQueueRepository;
+
+    private final Cache<String, S3ObjectDto> objectCache;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService executor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${aws.s3.reconciliation.repair:false}")
+    private boolean repair;
+
+    @Value("${aws.s3.reconciliation.page-size:1000}")
+    private int pageSize;
+
+    @Value("${aws.s3.reconciliation.min-age:24h}")
+    private Duration minAge;
+
+    @Value("${aws.s3.reconciliation.max-duration:6h}")
+    private Duration maxDuration;
+
+    public S3InventoryReconciler(StorageBackend storage, S3ObjectMetadataRepository repository,
+                                 S3DeleteQueueRepository deleteQueueRepository, Cache<String, S3ObjectDto> objectCache,
+                                 JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                 @Value("${aws.s3.reconciliation.threads:4}") int threads) {
+        this.storage = storage;
+        this.repository = repository;
+        this.deleteQueueRepository = deleteQueueRepository;
+        this.objectCache = objectCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.executor = Executors.newFixedThreadPool(threads, S3Config.namedThreadFactory("s3-reconciler-"));
+    }
+
+    /**
+     * Method to run the scheduled reconciliation, disabled unless a cron expression is configured
+     */
+    @Scheduled(cron = "${aws.s3.reconciliation.cron:-}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Method to reconcile all partitions of the key space. A run still in progress on this or another
+     * instance skips the next one, partitions left when the maximum duration is reached are reported as
+     * incomplete.
+     *
+     * @return totals of the run, null when skipped
+     */
+    public Report reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Reconciliation is still in progress, skipping this run");
+            return null;
+        }
+
+        try {
+            // The session lock is held on one connection for the whole run, the partitions use connections of their own
+            return jdbcTemplate.execute((ConnectionCallback<Report>) connection -> {
+                if (!advisoryLock(connection, "pg_try_advisory_lock")) {
+                    log.warn("Reconciliation is in progress on another instance, skipping this run");
+                    return null;
+                }
+                try {
+                    return reconcilePartitions();
+                } finally {
+                    advisoryLock(connection, "pg_advisory_unlock");
+                }
+            });
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Method to call an advisory lock function on the reconciliation lock
+     *
+     * @return result of the function
+     */
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select " + function + "(" + RECONCILIATION_LOCK + ")")) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+
+    /**
+     * Method to reconcile the partitions of the key space in parallel
+     *
+     * @return totals of the run, null when interrupted
+     */
+    private Report reconcilePartitions() {
+        Timer.Sample reconcileTimer = Timer.start(meterRegistry);
+        try {
+            Instant now = Instant.now();
+            Instant cutoff = now.minus(minAge);
+            Instant deadline = now.plus(maxDuration);
+
+            log.info("Reconciling storage with metadata, repair: {}, objects older than: {}", repair, cutoff);
+
+            List<Future<Report>> partitions = new ArrayList<>();
+            for (int i = 0; i < 256; i++) {
+                String prefix = String.format("%02x", i);
+                partitions.add(executor.submit(() -> reconcilePartition(prefix, cutoff, deadline)));
+            }
+
+            Report total = Report.EMPTY;
+            for (Future<Report> partition : partitions) {
+                try {
+                    total = total.plus(partition.get());
+                } catch (ExecutionException e) {
+                    log.error("Failed to reconcile partition. Error: {}", e.getCause().getMessage(), e.getCause());
+                }
+            }
+
+            log.info("Reconciled {} of 256 partitions, {} objects and {} metadata rows, found {} orphaned objects and {} dangling rows, repaired: {}",
+                    total.partitions(), total.objects(), total.rows(), total.orphanedObjects(), total.danglingRows(), repair);
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Reconciliation was interrupted");
+            return null;
+        } finally {
+            reconcileTimer.stop(meterRegistry.timer("s3.reconciliation.time"));
+        }
+    }
+
+    /**
+     * Method to merge the storage listing and the metadata of one partition in key order. Deduplicated
+     * objects have one row per upload sharing the key, every row matches the object.
+     */
+    private Report reconcilePartition(String prefix, Instant cutoff, Instant deadline) {
+        StorageCursor objects = new StorageCursor(prefix);
+        MetadataCursor rows = new MetadataCursor(prefix);
+        List<StorageBackend.ListedObject> orphanCandidates = new ArrayList<>();
+        List<S3ObjectKeySummary> danglingCandidates = new ArrayList<>();
+        long objectCount = 0;
+        long rowCount = 0;
+        long orphaned = 0;
+        long dangling = 0;
+
+        while (objects.peek() != null || rows.peek() != null) {
+            if (Instant.now().isAfter(deadline)) {
+                log.warn("Reconciliation of partition: {} stopped at the maximum duration of {}", prefix, maxDuration);
+                return new Report(0, objectCount, rowCount, orphaned, dangling);
+            }
+
+            StorageBackend.ListedObject object = objects.peek();
+            S3ObjectKeySummary row = rows.peek();
+            int order = object == null ? 1 : row == null ? -1 : ObjectKeys.compare(object.key(), row.getObjectKey());
+
+            if (order < 0) {
+                objects.next();
+                objectCount++;
+                if (object.lastModified().isBefore(cutoff)) {
+                    orphanCandidates.add(object);
+                }
+            } else if (order > 0) {
+                rows.next();
+                rowCount++;
+                if (row.getUploadDate().isBefore(cutoff)) {
+                    danglingCandidates.add(row);
+                }
+            } else {
+                objects.next();
+                objectCount++;
+                while (rows.peek() != null && rows.peek().getObjectKey().equals(object.key())) {
+                    rows.next();
+                    rowCount++;
+                }
+            }
+
+            if (orphanCandidates.size() >= pageSize) {
+                orphaned += resolveOrphans(orphanCandidates);
+            }
+            if (danglingCandidates.size() >= pageSize) {
+                dangling += resolveDangling(danglingCandidates);
+            }
+        }
+
+        orphaned += resolveOrphans(orphanCandidates);
+        dangling += resolveDangling(danglingCandidates);
+        return new Report(1, objectCount, rowCount, orphaned, dangling);
+    }
+
+    /**
+     * Method to report orphaned objects and queue them for deletion in repair mode. Objects already
+     * queued are deleted by the reaper and are left out.
+     *
+     * @return number of orphaned objects
+     */
+    private long resolveOrphans(List<StorageBackend.ListedObject> candidates) {
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> keys = new LinkedHashSet<>();
+        candidates.forEach(object -> keys.add(object.key()));
+        candidates.clear();
+        deleteQueueRepository.findQueuedKeys(keys).forEach(keys::remove);
+        if (keys.isEmpty()) {
+            return 0;
+        }
+
+        meterRegistry.counter("s3.reconciliation.orphaned-objects.count").increment(keys.size());
+        keys.forEach(key -> log.warn("Orphaned object at path: {} has no metadata", key));
+
+        if (repair) {
+            Instant now = Instant.now();
+            deleteQueueRepository.saveAll(keys.stream().map(key -> {
+                S3DeleteQueueEntity entry = new S3DeleteQueueEntity();
+                entry.setObjectKey(key);
+                entry.setEnqueuedAt(now);
+                entry.setNextAttemptAt(now);
+                entry.setAttempts(0);
+                return entry;
+            }).toList());
+            log.info("Queued {} orphaned objects for deletion", keys.size());
+        }
+        return keys.size();
+    }
+
+    /**
+     * Method to report metadata rows whose object is missing and delete them in repair mode. Each
+     * candidate is checked with a HEAD call, since the listing may have missed an object stored after it.
+     *
+     * @return number of dangling rows
+     */
+    private long resolveDangling(List<S3ObjectKeySummary> candidates) {
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        List<S3ObjectKeySummary> missing = new ArrayList<>();
+        for (S3ObjectKeySummary row : candidates) {
+            try {
+                storage.headObject(row.getObjectKey());
+            } catch (S3ObjectNotFoundException e) {
+                missing.add(row);
+                log.warn("Dangling metadata for file with Id: {}, object at path: {} is missing", row.getObjectId(), row.getObjectKey());
+            }
+        }
+        candidates.clear();
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        meterRegistry.counter("s3.reconciliation.dangling-rows.count").increment(missing.size());
+
+        if (repair) {
+            // Releases the references of deduplicated rows in the same statement, rows deleted concurrently are skipped
+            repository.deleteAndReleaseObjects(missing.stream().map(S3ObjectKeySummary::getObjectId).toList());
+            missing.forEach(row -> objectCache.invalidate(row.getObjectId().toString()));
+            log.info("Deleted {} dangling metadata rows", missing.size());
+        }
+        return missing.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Totals of a reconciliation run
+     *
+     * @param partitions number of partitions reconciled completely
+     * @param objects number of listed objects
+     * @param rows number of metadata rows
+     * @param orphanedObjects number of objects without metadata
+     * @param danglingRows number of metadata rows without object
+     */
+    public record Report(int partitions, long objects, long rows, long orphanedObjects, long danglingRows) {
+
+        static final Report EMPTY = new Report(0, 0, 0, 0, 0);
+
+        Report plus(Report other) {
+            return new Report(partitions + other.partitions, objects + other.objects, rows + other.rows,
+                    orphanedObjects + other.orphanedObjects, danglingRows + other.danglingRows);
+        }
+    }
+
+    /**
+     * Cursor over the storage listing of a partition, holding one page at a time
+     */
+    private class StorageCursor {
+
+        private final String prefix;
+
+        private List<StorageBackend.ListedObject> page = List.of();
+
+        private int position;
+
+        private boolean exhausted;
+
+        StorageCursor(String prefix) {
+            this.prefix = prefix;
+        }
+
+        StorageBackend.ListedObject peek() {
+            if (position == page.size() && !exhausted) {
+                String startAfter = page.isEmpty() ? null : page.get(page.size() - 1).key();
+                page = storage.listObjects(prefix, startAfter, pageSize);
+                position = 0;
+                // Listings may return short pages before the end, only an empty page ends it
+                exhausted = page.isEmpty();
+            }
+            return position < page.size() ? page.get(position) : null;
+        }
+
+        void next() {
+            position++;
+        }
+    }
+
+    /**
+     * Cursor over the metadata rows of a partition in key order, holding one page at a time
+     */
+    private class MetadataCursor {
+
+        private final String upperKey;
+
+        private String afterKey;
+
+        private UUID afterId = MIN_OBJECT_ID;
+
+        private List<S3ObjectKeySummary> page = List.of();
+
+        private int position;
+
+        private boolean exhausted;
+
+        MetadataCursor(String prefix) {
+            this.afterKey = prefix;
+            this.upperKey = ObjectKeys.upperBound(prefix);
+        }
+
+        S3ObjectKeySummary peek() {
+            if (position == page.size() && !exhausted) {
+                if (!page.isEmpty()) {
+                    S3ObjectKeySummary last = page.get(page.size() - 1);
+                    afterKey = last.getObjectKey();
+                    afterId = last.getObjectId();
+                }
+                page = repository.findKeyPageAfter(afterKey, afterId, upperKey, pageSize);
+                position = 0;
+                exhausted = page.size() < pageSize;
+            }
+            return position < page.size() ? page.get(position) : null;
+        }
+
+        void next() {
+            position++;
+        }
+    }
+}
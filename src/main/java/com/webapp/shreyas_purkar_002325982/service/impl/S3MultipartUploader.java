@@ -0,0 +1,232 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Uploads large objects to S3 as concurrently uploaded parts
+ */
+@Component
+public class S3MultipartUploader {
+
+    private static final Logger log = LoggerFactory.getLogger(S3MultipartUploader.class);
+
+    /**
+     * Smallest part S3 accepts, except for the last part of an upload
+     */
+    private static final DataSize MIN_PART_SIZE = DataSize.ofMegabytes(5);
+
+    /**
+     * Most parts S3 accepts in one upload
+     */
+    private static final int MAX_PART_COUNT = 10_000;
+
+    private final S3Client s3Client;
+
+    private final ExecutorService executor;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.multipart.part-size:8MB}")
+    private DataSize partSize;
+
+    @Value("${aws.s3.multipart.max-in-flight-parts:4}")
+    private int maxInFlightParts;
+
+    @Value("${aws.s3.multipart.max-part-attempts:3}")
+    private int maxPartAttempts;
+
+    @Value("${spring.servlet.multipart.max-file-size:1MB}")
+    private DataSize maxFileSize;
+
+    public S3MultipartUploader(S3Client s3Client,
+                               @Qualifier("s3MultipartExecutor") ExecutorService executor,
+                               MeterRegistry meterRegistry) {
+        this.s3Client = s3Client;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Method to check the part size against the limits of S3 multipart uploads, so a misconfigured
+     * part size fails on startup instead of on the first large upload
+     */
+    @PostConstruct
+    void validatePartSize() {
+        if (partSize.compareTo(MIN_PART_SIZE) < 0 || partSize.toBytes() > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("aws.s3.multipart.part-size must be at least " + MIN_PART_SIZE +
+                                            " and fit in one buffer, was " + partSize);
+        }
+        if (partSize.toBytes() * MAX_PART_COUNT < maxFileSize.toBytes()) {
+            throw new IllegalStateException("aws.s3.multipart.part-size " + partSize + " times " + MAX_PART_COUNT +
+                                            " parts is less than the maximum file size " + maxFileSize);
+        }
+    }
+
+    /**
+     * Method to upload the stream as a multipart upload. At most max-in-flight-parts part buffers
+     * are held in memory at once, the stream is read on the calling thread.
+     *
+     * @param bucket to upload to
+     * @param key of the object
+     * @param inputStream containing object content
+     * @return response of the completed upload
+     */
+    public CompleteMultipartUploadResponse upload(String bucket, String key, InputStream inputStream) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                                                                                     .bucket(bucket)
+                                                                                     .key(key)
+                                                                                     .build())
+                                  .uploadId();
+
+        log.info("Started multipart upload: {} on S3 bucket: {} at path: {}", uploadId, bucket, key);
+
+        Semaphore inFlight = new Semaphore(maxInFlightParts);
+        List<Future<CompletedPart>> futures = new ArrayList<>();
+
+        try {
+            int partNumber = 1;
+            while (true) {
+                // The permit is taken before the buffer is allocated, it bounds the part buffers in memory
+                inFlight.acquire();
+                byte[] buffer = new byte[(int) partSize.toBytes()];
+                int length = inputStream.readNBytes(buffer, 0, buffer.length);
+                if (length == 0 && partNumber > 1) {
+                    inFlight.release();
+                    break;
+                }
+                if (partNumber > MAX_PART_COUNT) {
+                    throw new IOException("Object exceeds " + MAX_PART_COUNT + " parts of " + partSize);
+                }
+
+                int currentPart = partNumber;
+                futures.add(executor.submit(() -> {
+                    try {
+                        return uploadPart(bucket, key, uploadId, currentPart, buffer, length);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+
+                if (length < buffer.length) {
+                    break;
+                }
+                partNumber++;
+            }
+
+            List<CompletedPart> parts = new ArrayList<>(futures.size());
+            for (Future<CompletedPart> future : futures) {
+                parts.add(future.get());
+            }
+            parts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+            CompleteMultipartUploadResponse response = s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+
+            log.info("Completed multipart upload: {} with {} parts on S3 bucket: {} at path: {}", uploadId, parts.size(), bucket, key);
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(bucket, key, uploadId, futures);
+            throw new IOException("Interrupted while uploading parts", e);
+        } catch (ExecutionException e) {
+            abort(bucket, key, uploadId, futures);
+            if (e.getCause() instanceof SdkException sdkException) {
+                throw sdkException;
+            }
+            throw new IOException(e.getCause());
+        } catch (IOException | RuntimeException e) {
+            abort(bucket, key, uploadId, futures);
+            throw e;
+        }
+    }
+
+    /**
+     * Method to upload a single part, retrying it on its own on throttling, server and I/O errors
+     */
+    private CompletedPart uploadPart(String bucket, String key, String uploadId, int partNumber,
+                                     byte[] buffer, int length) throws InterruptedException {
+        UploadPartRequest request = UploadPartRequest.builder()
+                                                     .bucket(bucket)
+                                                     .key(key)
+                                                     .uploadId(uploadId)
+                                                     .partNumber(partNumber)
+                                                     .contentLength((long) length)
+                                                     .build();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Streamed from the part buffer, RequestBody.fromBytes would copy every part once more
+                UploadPartResponse response = s3Client.uploadPart(request,
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length));
+                return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+            } catch (SdkException e) {
+                if (attempt >= maxPartAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                log.warn("Retrying part: {} of multipart upload: {} after attempt {} failed. Error: {}", partNumber, uploadId, attempt, e.getMessage());
+                meterRegistry.counter("s3.multipart.part-retry.count").increment();
+                Thread.sleep(100L << attempt);
+            }
+        }
+    }
+
+    /**
+     * Method to check if a failed part upload may succeed when retried. Other client errors, like a
+     * missing upload or denied access, fail the same way on every attempt.
+     */
+    private static boolean isRetryable(SdkException e) {
+        if (e instanceof AwsServiceException error) {
+            return error.isThrottlingException() || error.statusCode() >= 500;
+        }
+        if (e instanceof SdkClientException) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to abort the multipart upload so S3 discards the uploaded parts
+     */
+    private void abort(String bucket, String key, String uploadId, List<Future<CompletedPart>> futures) {
+        futures.forEach(future -> future.cancel(true));
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                                                                     .bucket(bucket)
+                                                                     .key(key)
+                                                                     .uploadId(uploadId)
+                                                                     .build());
+            log.info("Aborted multipart upload: {} on S3 bucket: {} at path: {}", uploadId, bucket, key);
+        } catch (SdkException e) {
+            log.error("Failed to abort multipart upload: {} on S3 bucket: {} at path: {}. Error: {}", uploadId, bucket, key, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectMetadataRepository;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import com.webapp.shreyas_purkar_002325982.util.S3Config;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background worker queue that fills in S3 object metadata not returned by the upload itself,
+ * keeping the HEAD call to the storage backend out of the upload request path
+ */
+@Component
+public class S3ObjectMetadataEnricher {
+
+    private static final Logger log = LoggerFactory.getLogger(S3ObjectMetadataEnricher.class);
+
+    private final S3ObjectMetadataRepository repository;
+
+    private final StorageBackend storage;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor;
+
+    public S3ObjectMetadataEnricher(S3ObjectMetadataRepository repository, StorageBackend storage, MeterRegistry meterRegistry,
+                                    @Value("${aws.s3.metadata-enrichment.threads:2}") int threads,
+                                    @Value("${aws.s3.metadata-enrichment.queue-capacity:10000}") int queueCapacity) {
+        this.repository = repository;
+        this.storage = storage;
+        this.meterRegistry = meterRegistry;
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), S3Config.namedThreadFactory("s3-metadata-enricher-"));
+
+        meterRegistry.gauge("s3.metadata-enrichment.queue.size", executor.getQueue(), queue -> queue.size());
+    }
+
+    /**
+     * Method to queue the enrichment of S3 object metadata. When the queue is full the
+     * enrichment is skipped, the metadata row stays valid without it.
+     *
+     * @param objectId of S3 object
+     * @param key of object in S3
+     */
+    public void enrich(UUID objectId, String key) {
+        try {
+            executor.execute(() -> enrichNow(objectId, key));
+        } catch (RejectedExecutionException e) {
+            log.warn("Metadata enrichment queue is full, skipping enrichment for file with Id: {}", objectId);
+            meterRegistry.counter("s3.metadata-enrichment.rejected.count").increment();
+        }
+    }
+
+    private void enrichNow(UUID objectId, String key) {
+        try {
+            StorageBackend.ObjectAttributes attributes = storage.headObject(key);
+
+            int updated = repository.updateHeadMetadata(objectId, attributes.acceptRanges(), attributes.lastModified());
+
+            log.info("Enriched metadata for file with Id: {} at path: {}, updated rows: {}", objectId, key, updated);
+        } catch (Exception e) {
+            log.error("Failed to enrich metadata for file with Id: {} at path: {}. Error: {}", objectId, key, e.getMessage(), e);
+            meterRegistry.counter("s3.metadata-enrichment.failed.count").increment();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,350 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignRequestDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignedUrlDto;
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectEntity;
+import com.webapp.shreyas_purkar_002325982.exception.*;
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectMetadataRepository;
+import com.webapp.shreyas_purkar_002325982.service.S3PresignService;
+import com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics.Outcome;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.awscore.presigner.PresignedRequest;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service class implementation for presigned S3 requests. File content goes directly between the
+ * client and S3, the application only signs the requests and records the uploaded objects.
+ */
+@Service
+public class S3PresignServiceImpl implements S3PresignService {
+
+    private static final Logger log = LoggerFactory.getLogger(S3PresignServiceImpl.class);
+
+    private final S3ObjectMetadataRepository repository;
+
+    private final S3Client s3Client;
+
+    private final S3Presigner s3Presigner;
+
+    private final Cache<String, S3ObjectDto> objectCache;
+
+    private final OperationMetrics.Meters persistMetadataMeters;
+
+    private final OperationMetrics.Meters queryObjectMeters;
+
+    private final OperationMetrics.Meters listMeters;
+
+    private final OperationMetrics.Meters headMeters;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${aws.s3.presign.ttl:15m}")
+    private Duration ttl;
+
+    @Value("${aws.s3.presign.max-content-length:5GB}")
+    private DataSize maxContentLength;
+
+    public S3PresignServiceImpl(S3ObjectMetadataRepository repository, S3Client s3Client, S3Presigner s3Presigner,
+                                Cache<String, S3ObjectDto> objectCache,
+                                OperationMetrics operationMetrics) {
+        this.repository = repository;
+        this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
+        this.objectCache = objectCache;
+
+        this.persistMetadataMeters = operationMetrics.registerTimer("db.persist-file-metadata.time", Outcome.DB_ERROR);
+        this.queryObjectMeters = operationMetrics.registerTimer("db.query-s3-object.time", Outcome.NOT_FOUND, Outcome.DB_ERROR);
+        this.listMeters = operationMetrics.registerTimer("s3.list-files.time", Outcome.NOT_FOUND, Outcome.S3_ERROR);
+        this.headMeters = operationMetrics.registerTimer("s3.fetch-file-metadata.time", Outcome.NOT_FOUND, Outcome.S3_ERROR);
+    }
+
+    /**
+     * Method to presign the upload of a new S3 object
+     *
+     * @param request containing file name, content type and content length
+     * @return presigned PUT request for a new object Id, only accepting content of the given length
+     */
+    @Override
+    public S3PresignedUrlDto presignUpload(S3PresignRequestDto request) {
+        validate(request);
+
+        UUID fileId = UUID.randomUUID();
+        String key = fileId + "/" + request.getFileName();
+        log.info("Presigning upload of file with Id: {} on S3 bucket: {} at path: {}", fileId, bucketName, key);
+
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                                                            .bucket(bucketName)
+                                                            .key(key)
+                                                            .contentType(request.getContentType())
+                                                            .contentLength(request.getContentLength())
+                                                            .build();
+        try {
+            return toDto(fileId, s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                                                                                     .signatureDuration(ttl)
+                                                                                     .putObjectRequest(putObjectRequest)
+                                                                                     .build()));
+        } catch (SdkClientException e) {
+            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+            throw new AwsAuthorizationException();
+        }
+    }
+
+    /**
+     * Method to record an S3 object uploaded with a presigned request. The object is looked up on S3 under
+     * the prefix of its Id, its file name is taken from the signed key. Completing an already recorded
+     * object returns it unchanged.
+     *
+     * @param id of S3 object
+     * @return dto for the recorded object
+     */
+    @Override
+    public S3ObjectDto completeUpload(String id) {
+        UUID fileId = parseObjectId(id);
+
+        S3ObjectEntity existing = findS3Object(fileId);
+        if (existing != null) {
+            log.info("File with Id: {} is already recorded", id);
+            return toDto(existing);
+        }
+
+        String key = findUploadedKey(fileId);
+        HeadObjectResponse response = headS3Object(fileId, key);
+
+        S3ObjectEntity entity = new S3ObjectEntity();
+        entity.setObjectId(fileId);
+        entity.setFileName(key.substring(fileId.toString().length() + 1));
+        entity.setUploadDate(Instant.now());
+        entity.setLastModified(response.lastModified());
+        entity.setContentLength(response.contentLength());
+        entity.setContentType(response.contentType());
+        entity.setEtag(response.eTag());
+        entity.setAcceptRanges(response.acceptRanges());
+        entity.setServerSideEncryption(response.serverSideEncryptionAsString());
+        entity.setAwsRequestId(response.responseMetadata().requestId());
+        entity.setExtendedRequestId(response.responseMetadata().extendedRequestId());
+
+        Timer.Sample dbTimer = persistMetadataMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+        try {
+            repository.save(entity);
+            objectCache.invalidate(id);
+            outcome = Outcome.SUCCESS;
+
+            log.info("Successfully recorded presigned upload of file with Id: {} in database", id);
+            return toDto(entity);
+        } catch (DataIntegrityViolationException ex) {
+            log.info("File with Id: {} was recorded concurrently", id);
+            S3ObjectEntity recorded = findS3Object(fileId);
+            if (recorded == null) {
+                throw new DatabaseConnectionException();
+            }
+            outcome = Outcome.SUCCESS;
+            return toDto(recorded);
+        } catch (Exception ex) {
+            log.error("Failed to record presigned upload of file with Id: {}. Error: {}", id, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            persistMetadataMeters.stop(dbTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to presign the download of S3 object for given Id
+     *
+     * @param id of S3 object
+     * @return presigned GET request
+     */
+    @Override
+    public S3PresignedUrlDto presignDownload(String id) {
+        UUID fileId = parseObjectId(id);
+        S3ObjectEntity entity = findS3Object(fileId);
+        if (entity == null) {
+            log.error("No file with Id: {} found in database.", id);
+            throw new S3ObjectNotFoundException();
+        }
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                                                            .bucket(bucketName)
+                                                            .key(entity.getObjectKey())
+                                                            .responseContentEncoding(entity.getContentEncoding())
+                                                            .build();
+        try {
+            return toDto(fileId, s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                                                                                     .signatureDuration(ttl)
+                                                                                     .getObjectRequest(getObjectRequest)
+                                                                                     .build()));
+        } catch (SdkClientException e) {
+            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+            throw new AwsAuthorizationException();
+        }
+    }
+
+    /**
+     * Method to check the file of a presigned upload, its length is signed and must be within the limit
+     */
+    private void validate(S3PresignRequestDto request) {
+        if (request == null || request.getFileName() == null || request.getFileName().isBlank()) {
+            log.warn("Bad Request - No file name given for presigned upload");
+            throw new InvalidUploadException();
+        }
+        if (request.getContentLength() == null || request.getContentLength() <= 0
+                || request.getContentLength() > maxContentLength.toBytes()) {
+            log.warn("Bad Request - Content length: {} of presigned upload is not between 1 and {} bytes",
+                     request.getContentLength(), maxContentLength.toBytes());
+            throw new InvalidUploadException();
+        }
+    }
+
+    /**
+     * Method to parse the Id of an S3 object, Ids that are not UUIDs cannot exist
+     */
+    private static UUID parseObjectId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            log.error("No file with Id: {} found in database.", id);
+            throw new S3ObjectNotFoundException();
+        }
+    }
+
+    /**
+     * Method to get S3 object metadata
+     *
+     * @param objectId of S3 object
+     * @return entity containing S3 object metadata, null when not recorded
+     */
+    private S3ObjectEntity findS3Object(UUID objectId) {
+        Timer.Sample dbTimer = queryObjectMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+        try {
+            S3ObjectEntity entity = repository.findByObjectId(objectId);
+            outcome = entity != null ? Outcome.SUCCESS : Outcome.NOT_FOUND;
+            return entity;
+        } catch (Exception ex) {
+            log.error("Failed to retrieve the file with Id: {}. Error: {}", objectId, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            queryObjectMeters.stop(dbTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to find the key of an uploaded object on S3. Presigned keys start with the object Id, so the
+     * prefix holds at most the one key that was signed for it.
+     */
+    private String findUploadedKey(UUID fileId) {
+        String prefix = fileId + "/";
+        Timer.Sample s3ListApiTimer = listMeters.start();
+        Outcome outcome = Outcome.S3_ERROR;
+        try {
+            ListObjectsV2Response response = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                                                                                        .bucket(bucketName)
+                                                                                        .prefix(prefix)
+                                                                                        .maxKeys(1)
+                                                                                        .build());
+            if (!response.hasContents() || response.contents().isEmpty()) {
+                log.error("No uploaded object for file with Id: {} found on S3 bucket: {} under prefix: {}", fileId, bucketName, prefix);
+                outcome = Outcome.NOT_FOUND;
+                throw new S3ObjectNotFoundException();
+            }
+            outcome = Outcome.SUCCESS;
+            return response.contents().get(0).key();
+        } catch (SdkClientException e) {
+            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+            throw new AwsAuthorizationException();
+        } catch (SdkException e) {
+            log.error("S3 is unavailable. Failed to find uploaded object of file with Id: {}. Error: {}", fileId, e.getMessage(), e);
+            throw new FetchObjectMetadataException();
+        } finally {
+            listMeters.stop(s3ListApiTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to get the metadata of an uploaded object from S3
+     */
+    private HeadObjectResponse headS3Object(UUID fileId, String key) {
+        Timer.Sample s3HeadApiTimer = headMeters.start();
+        Outcome outcome = Outcome.S3_ERROR;
+        try {
+            HeadObjectResponse response = s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build());
+            outcome = Outcome.SUCCESS;
+            return response;
+        } catch (NoSuchKeyException e) {
+            log.error("No uploaded object for file with Id: {} found on S3 bucket: {} at path: {}", fileId, bucketName, key);
+            outcome = Outcome.NOT_FOUND;
+            throw new S3ObjectNotFoundException();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                log.error("No uploaded object for file with Id: {} found on S3 bucket: {} at path: {}", fileId, bucketName, key);
+                outcome = Outcome.NOT_FOUND;
+                throw new S3ObjectNotFoundException();
+            }
+            log.error("S3 is unavailable. Failed to fetch metadata of file with Id: {}. Error: {}", fileId, e.getMessage(), e);
+            throw new FetchObjectMetadataException();
+        } catch (SdkClientException e) {
+            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+            throw new AwsAuthorizationException();
+        } catch (SdkException e) {
+            log.error("S3 is unavailable. Failed to fetch metadata of file with Id: {}. Error: {}", fileId, e.getMessage(), e);
+            throw new FetchObjectMetadataException();
+        } finally {
+            headMeters.stop(s3HeadApiTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to map a presigned request to its dto
+     */
+    private static S3PresignedUrlDto toDto(UUID fileId, PresignedRequest presignedRequest) {
+        Map<String, String> headers = new HashMap<>();
+        presignedRequest.signedHeaders().forEach((name, values) -> {
+            if (!"host".equalsIgnoreCase(name)) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+
+        S3PresignedUrlDto dto = new S3PresignedUrlDto();
+        dto.setObjectId(fileId.toString());
+        dto.setMethod(presignedRequest.httpRequest().method().name());
+        dto.setUrl(presignedRequest.url().toString());
+        dto.setHeaders(headers);
+        dto.setExpiresAt(presignedRequest.expiration());
+        return dto;
+    }
+
+    /**
+     * Method to map S3 object metadata to its dto
+     *
+     * @param entity containing S3 object metadata
+     */
+    private S3ObjectDto toDto(S3ObjectEntity entity) {
+        S3ObjectDto dto = new S3ObjectDto();
+        dto.setFileName(entity.getFileName());
+        dto.setUrl(bucketName + "/" + entity.getObjectKey());
+        dto.setObjectId(entity.getObjectId().toString());
+        dto.setUploadDate(entity.getUploadDate());
+        return dto;
+    }
+}
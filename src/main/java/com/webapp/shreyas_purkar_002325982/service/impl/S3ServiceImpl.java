@@ -1,37 +1,47 @@
 package com.webapp.shreyas_purkar_002325982.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectContentDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDeleteResultDto;
 import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectPageDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectUploadResultDto;
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectContentEntity;
 import com.webapp.shreyas_purkar_002325982.entity.S3ObjectEntity;
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectSummary;
 import com.webapp.shreyas_purkar_002325982.exception.*;
 import com.webapp.shreyas_purkar_002325982.repository.S3ObjectMetadataRepository;
 import com.webapp.shreyas_purkar_002325982.service.S3Service;
-import io.micrometer.core.instrument.MeterRegistry;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import com.webapp.shreyas_purkar_002325982.service.StoredObjectContent;
+import com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics.Outcome;
 import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.core.exception.SdkClientException;
-import software.amazon.awssdk.core.exception.SdkException;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.model.*;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.core.sync.RequestBody;
-
-import java.io.IOException;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Service class implementation to monitor health of application instance
@@ -41,23 +51,65 @@ public class S3ServiceImpl implements S3Service {
 
     private static final Logger log = LoggerFactory.getLogger(S3ServiceImpl.class);
 
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
     @Autowired
     S3ObjectMetadataRepository repository;
 
-    @Autowired
-    MeterRegistry meterRegistry;
+    private final StorageBackend storage;
+
+    private final S3ObjectMetadataEnricher metadataEnricher;
+
+    private final Cache<String, S3ObjectDto> objectCache;
+
+    private final ExecutorService batchExecutor;
+
+    private final S3DeleteQueue deleteQueue;
+
+    private final S3ContentIndex contentIndex;
+
+    private final S3ContentCompressor compressor;
+
+    private final OperationMetrics.Meters listObjectsMeters;
 
-    private final S3Client s3Client;
+    private final OperationMetrics.Meters queryObjectMeters;
+
+    private final OperationMetrics.Meters persistBatchMetadataMeters;
+
+    private final OperationMetrics.Meters persistMetadataMeters;
+
+    private final OperationMetrics.Meters deleteMetadataMeters;
+
+    private final OperationMetrics.Meters queryObjectsMeters;
+
+    private final OperationMetrics.Meters deleteObjectsMetadataMeters;
 
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
 
-    public S3ServiceImpl(S3ObjectMetadataRepository repository, @Value("${aws.s3.region}") String region) {
+    @Value("${aws.s3.list.max-page-size:1000}")
+    private int maxPageSize;
+
+    public S3ServiceImpl(S3ObjectMetadataRepository repository, StorageBackend storage,
+                         S3ObjectMetadataEnricher metadataEnricher, Cache<String, S3ObjectDto> objectCache,
+                         @Qualifier("s3BatchExecutor") ExecutorService batchExecutor, S3DeleteQueue deleteQueue,
+                         S3ContentIndex contentIndex, S3ContentCompressor compressor, OperationMetrics operationMetrics) {
         this.repository = repository;
-        this.s3Client = S3Client.builder()
-                .region(Region.of(region))
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
+        this.storage = storage;
+        this.metadataEnricher = metadataEnricher;
+        this.objectCache = objectCache;
+        this.batchExecutor = batchExecutor;
+        this.deleteQueue = deleteQueue;
+        this.contentIndex = contentIndex;
+        this.compressor = compressor;
+
+        this.listObjectsMeters = operationMetrics.registerTimer("db.list-s3-objects.time", Outcome.CLIENT_ERROR, Outcome.DB_ERROR);
+        this.queryObjectMeters = operationMetrics.registerTimer("db.query-s3-object.time", Outcome.NOT_FOUND, Outcome.DB_ERROR);
+        this.persistBatchMetadataMeters = operationMetrics.registerTimer("db.persist-batch-file-metadata.time", Outcome.DB_ERROR);
+        this.persistMetadataMeters = operationMetrics.registerTimer("db.persist-file-metadata.time", Outcome.DB_ERROR);
+        this.deleteMetadataMeters = operationMetrics.registerTimer("db.delete-file-metadata.time", Outcome.DB_ERROR);
+        this.queryObjectsMeters = operationMetrics.registerTimer("db.query-s3-objects.time", Outcome.DB_ERROR);
+        this.deleteObjectsMetadataMeters = operationMetrics.registerTimer("db.delete-files-metadata.time", Outcome.DB_ERROR);
     }
 
     /**
@@ -67,6 +119,15 @@ public class S3ServiceImpl implements S3Service {
      */
     @Override
     public S3ObjectDto getObject(String id) {
+        return objectCache.get(id, this::loadObject);
+    }
+
+    /**
+     * Method to load S3 object for given Id from database on a cache miss
+     *
+     * @param id of S3 object
+     */
+    private S3ObjectDto loadObject(String id) {
         Optional<S3ObjectEntity> entity = findS3Object(id);
 
         if (entity.isEmpty()) {
@@ -74,13 +135,193 @@ public class S3ServiceImpl implements S3Service {
             throw new S3ObjectNotFoundException();
         }
 
-        S3ObjectDto dto = new S3ObjectDto();
+        log.info("Retrieved file with Id: {} successfully", id);
+        return toDto(entity.get());
+    }
+
+    /**
+     * Method to list S3 objects a page at a time, newest first. Pages are read with keyset
+     * pagination on (upload date, id), the cursor is the opaque position of the last object.
+     *
+     * @param cursor returned with the previous page, null for the first page
+     * @param limit maximum number of objects on the page
+     * @return page of S3 objects
+     */
+    @Override
+    public S3ObjectPageDto listObjects(String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+
+        List<S3ObjectSummary> summaries;
+        Timer.Sample dbTimer = listObjectsMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+        try {
+            if (cursor == null || cursor.isEmpty()) {
+                summaries = repository.findFirstPage(Limit.of(pageSize));
+            } else {
+                String[] position = decodeCursor(cursor);
+                summaries = repository.findPageAfter(Instant.parse(position[0]), Long.parseLong(position[1]), Limit.of(pageSize));
+            }
+            outcome = Outcome.SUCCESS;
+        } catch (InvalidCursorException ex) {
+            outcome = Outcome.CLIENT_ERROR;
+            throw ex;
+        } catch (Exception ex) {
+            log.error("Failed to list files. Error: {}", ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            listObjectsMeters.stop(dbTimer, outcome);
+        }
+
+        List<S3ObjectDto> items = new ArrayList<>(summaries.size());
+        for (S3ObjectSummary summary : summaries) {
+            S3ObjectDto dto = new S3ObjectDto();
+            dto.setFileName(summary.getFileName());
+            dto.setUrl(bucketName + "/" + summary.getObjectKey());
+            dto.setObjectId(summary.getObjectId().toString());
+            dto.setUploadDate(summary.getUploadDate());
+            items.add(dto);
+        }
+
+        S3ObjectPageDto page = new S3ObjectPageDto();
+        page.setItems(items);
+        if (summaries.size() == pageSize) {
+            S3ObjectSummary last = summaries.get(summaries.size() - 1);
+            page.setNextCursor(encodeCursor(last.getUploadDate(), last.getId()));
+        }
+
+        log.info("Listed {} files", items.size());
+        return page;
+    }
+
+    /**
+     * Method to encode the position of an object as an opaque cursor
+     */
+    private static String encodeCursor(Instant uploadDate, Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((uploadDate + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Method to decode a cursor into the upload date and id of an object
+     */
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            Instant.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.warn("Bad Request - Invalid cursor: {}", cursor);
+            throw new InvalidCursorException();
+        }
+    }
+
+    /**
+     * Method to open the content of S3 object for given Id. A single valid byte range is passed on to the
+     * storage backend, a header with several ranges or an invalid range is ignored and the whole object
+     * is returned. Only a valid range that does not overlap the object is not satisfiable.
+     *
+     * @param id of S3 object
+     * @param range of bytes to read as an HTTP Range header, null for the whole object
+     * @param acceptEncoding header of the request, null when missing
+     * @return content of the object, the stream must be closed by the caller
+     */
+    @Override
+    public S3ObjectContentDto getObjectContent(String id, String range, String acceptEncoding) {
+        if (range != null && !ByteRange.isValid(range)) {
+            log.info("Ignoring range: {} for file with Id: {}", range, id);
+            range = null;
+        }
+
+        Optional<S3ObjectEntity> entity = findS3Object(id);
+        if (entity.isEmpty()) {
+            log.error("No file with Id: {} found in database.", id);
+            throw new S3ObjectNotFoundException();
+        }
+
+        if (entity.get().getContentEncoding() != null) {
+            return openCompressedContent(entity.get(), range, acceptEncoding);
+        }
+
+        String key = entity.get().getObjectKey();
+        StoredObjectContent content = storage.getObject(key, range != null ? range.trim() : null);
+
+        S3ObjectContentDto dto = new S3ObjectContentDto();
         dto.setFileName(entity.get().getFileName());
-        dto.setUrl(entity.get().getUrl());
-        dto.setObjectId(entity.get().getObjectId());
-        dto.setUploadDate(entity.get().getUploadDate());
+        dto.setContentType(entity.get().getContentType());
+        dto.setContentLength(content.getContentLength());
+        dto.setContentRange(content.getContentRange());
+        dto.setEtag(content.getEtag());
+        dto.setContent(content);
 
-        log.info("Retrieved file with Id: {} successfully", id);
+        log.info("Opened content of file with Id: {} from bucket: {} at path: {}", id, bucketName, key);
+        return dto;
+    }
+
+    /**
+     * Method to open the content of a compressed object. Clients accepting its encoding get the stored
+     * bytes, others get the content decompressed as it streams. Byte ranges of compressed objects are
+     * not served, the whole object is returned instead.
+     *
+     * @param entity containing S3 object metadata
+     * @param range of bytes requested, ignored
+     * @param acceptEncoding header of the request, null when missing
+     * @return content of the object, the stream must be closed by the caller
+     */
+    private S3ObjectContentDto openCompressedContent(S3ObjectEntity entity, String range, String acceptEncoding) {
+        String key = entity.getObjectKey();
+        if (range != null) {
+            log.info("Ignoring range: {} for compressed file with Id: {}", range, entity.getObjectId());
+        }
+        StoredObjectContent stored = storage.getObject(key, null);
+
+        S3ObjectContentDto dto = new S3ObjectContentDto();
+        dto.setFileName(entity.getFileName());
+        dto.setContentType(entity.getContentType());
+        dto.setCompressed(true);
+
+        if (S3ContentCompressor.isAccepted(acceptEncoding, entity.getContentEncoding())) {
+            dto.setContentLength(stored.getContentLength());
+            dto.setContentEncoding(entity.getContentEncoding());
+            dto.setEtag(stored.getEtag());
+            dto.setContent(stored);
+        } else {
+            InputStream inputStream;
+            try {
+                inputStream = compressor.decompress(stored.isFile() ? Channels.newInputStream(stored.getChannel()) : stored.getInputStream());
+            } catch (RuntimeException e) {
+                stored.abort();
+                try {
+                    stored.close();
+                } catch (IOException ex) {
+                    log.warn("Failed to close content of file with Id: {}. Error: {}", entity.getObjectId(), ex.getMessage());
+                }
+                throw e;
+            }
+
+            // The ETag belongs to the stored bytes, the decompressed content is only weakly equivalent
+            dto.setContentLength(entity.getContentLength());
+            dto.setEtag(stored.getEtag() != null ? "W/" + stored.getEtag() : null);
+            dto.setContent(StoredObjectContent.ofStream(inputStream, stored::abort, entity.getContentLength(), null, dto.getEtag()));
+        }
+
+        log.info("Opened {} content of file with Id: {} from bucket: {} at path: {}", entity.getContentEncoding(), entity.getObjectId(), bucketName, key);
+        return dto;
+    }
+
+    /**
+     * Method to map S3 object metadata to its dto
+     *
+     * @param entity containing S3 object metadata
+     */
+    private S3ObjectDto toDto(S3ObjectEntity entity) {
+        S3ObjectDto dto = new S3ObjectDto();
+        dto.setFileName(entity.getFileName());
+        dto.setUrl(bucketName + "/" + entity.getObjectKey());
+        dto.setObjectId(entity.getObjectId().toString());
+        dto.setUploadDate(entity.getUploadDate());
         return dto;
     }
 
@@ -94,10 +335,16 @@ public class S3ServiceImpl implements S3Service {
         log.info("Retrieving file with Id: {} from database...", id);
         Optional<S3ObjectEntity> entity;
 
-        Timer.Sample dbTimer = Timer.start(meterRegistry);
+        Optional<UUID> objectId = parseObjectId(id);
+        if (objectId.isEmpty()) {
+            return Optional.empty();
+        }
 
+        Timer.Sample dbTimer = queryObjectMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
         try {
-            entity = Optional.ofNullable(repository.findByObjectId(id));
+            entity = Optional.ofNullable(repository.findByObjectId(objectId.get()));
+            outcome = entity.isPresent() ? Outcome.SUCCESS : Outcome.NOT_FOUND;
             return entity;
         } catch (CannotCreateTransactionException | InvalidDataAccessResourceUsageException |
                  DataIntegrityViolationException | DataAccessResourceFailureException |
@@ -108,7 +355,21 @@ public class S3ServiceImpl implements S3Service {
             log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
             throw new DatabaseConnectionException();
         } finally {
-            dbTimer.stop(meterRegistry.timer("db.query-s3-object.time"));
+            queryObjectMeters.stop(dbTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to parse the Id of an S3 object, Ids that are not UUIDs cannot exist
+     *
+     * @param id of S3 object
+     * @return parsed Id
+     */
+    private static Optional<UUID> parseObjectId(String id) {
+        try {
+            return Optional.of(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
         }
     }
 
@@ -122,154 +383,461 @@ public class S3ServiceImpl implements S3Service {
         UUID fileId = UUID.randomUUID();
         log.info("UUID of the file is {}", fileId);
 
-        String url = uploadObjectToS3(file, fileId);
+        String key = fileId + "/" + file.getOriginalFilename();
+        Map<String, Object> metadata = uploadObjectToS3(file, fileId, key);
 
-        Map<String, Object> metadata = getObjectMetadata(url, fileId.toString());
+        return persistObjectMetadata(fileId, key, file.getOriginalFilename(), file.getSize(), file.getContentType(), metadata);
+    }
 
-        S3ObjectEntity entity = new S3ObjectEntity();
-        entity.setObjectId(fileId.toString());
-        entity.setUrl(url);
-        entity.setFileName(file.getOriginalFilename());
-        entity.setUploadDate(Instant.now());
-        entity.setContentLength(file.getSize());
-        entity.setContentType(file.getContentType());
-        entity.setEtag(metadata.get("ETag").toString());
-        entity.setAcceptRanges(metadata.get("AcceptRanges").toString());
-        entity.setServerSideEncryption(metadata.get("ServerSideEncryption").toString());
-        entity.setLastModified(metadata.get("LastModified").toString());
-        entity.setAwsRequestId(metadata.get("x-amz-request-id").toString());
-        entity.setExtendedRequestId(metadata.get("x-amz-id-2").toString());
-
-        Timer.Sample dbTimer = Timer.start(meterRegistry);
+    /**
+     * Method to create S3 objects for a batch of files. The files are uploaded to S3 concurrently and
+     * the metadata of all uploaded files is persisted with a single batched insert.
+     *
+     * @param files to upload on S3
+     * @return result for each file, in the order of the files
+     */
+    @Override
+    public List<S3ObjectUploadResultDto> uploadObjects(List<MultipartFile> files) {
+        log.info("Uploading batch of {} files on S3 bucket: {}", files.size(), bucketName);
+
+        List<CompletableFuture<S3ObjectEntity>> uploads = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            uploads.add(CompletableFuture.supplyAsync(() -> uploadBatchFile(file), batchExecutor));
+        }
+
+        List<S3ObjectUploadResultDto> results = new ArrayList<>(files.size());
+        List<S3ObjectEntity> entities = new ArrayList<>(files.size());
+        List<S3ObjectUploadResultDto> uploadedResults = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            S3ObjectUploadResultDto result = new S3ObjectUploadResultDto();
+            result.setFileName(files.get(i).getOriginalFilename());
+            results.add(result);
+
+            try {
+                entities.add(uploads.get(i).join());
+                uploadedResults.add(result);
+            } catch (CompletionException e) {
+                result.setStatus(getFailureStatus(e.getCause()));
+            }
+        }
+
+        if (!entities.isEmpty()) {
+            persistBatchMetadata(entities, uploadedResults);
+        }
+        return results;
+    }
+
+    /**
+     * Method to upload one file of a batch upload
+     *
+     * @param file to upload on S3
+     * @return entity containing S3 object metadata, not yet persisted
+     */
+    private S3ObjectEntity uploadBatchFile(MultipartFile file) {
+        if (file.isEmpty()) {
+            log.warn("Bad Request - File: {} of batch is empty", file.getOriginalFilename());
+            throw new EmptyFileException();
+        }
+
+        UUID fileId = UUID.randomUUID();
+        String key = fileId + "/" + file.getOriginalFilename();
+        Map<String, Object> metadata = uploadObjectToS3(file, fileId, key);
+
+        return newEntity(fileId, file.getOriginalFilename(), file.getSize(), file.getContentType(), metadata);
+    }
+
+    /**
+     * Method to persist the metadata of the uploaded files of a batch in one batched insert.
+     * When the insert fails, the uploaded files are deleted by the delete reaper.
+     *
+     * @param entities containing S3 object metadata
+     * @param results to fill in, one for each entity
+     */
+    private void persistBatchMetadata(List<S3ObjectEntity> entities, List<S3ObjectUploadResultDto> results) {
+        Timer.Sample dbTimer = persistBatchMetadataMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
         try {
-            repository.save(entity);
+            deleteQueue.persist(entities);
+            outcome = Outcome.SUCCESS;
 
-            S3ObjectDto dto = new S3ObjectDto();
-            dto.setFileName(entity.getFileName());
-            dto.setUrl(entity.getUrl());
-            dto.setObjectId(entity.getObjectId());
-            dto.setUploadDate(entity.getUploadDate());
+            log.info("Successfully persisted metadata for batch of {} files in database", entities.size());
+        } catch (Exception ex) {
+            log.error("Failed to persist the metadata for batch of {} files. Error: {}", entities.size(), ex.getMessage(), ex);
+            discardUploads(entities);
+            results.forEach(result -> result.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value()));
+            return;
+        } finally {
+            persistBatchMetadataMeters.stop(dbTimer, outcome);
+        }
+
+        for (int i = 0; i < entities.size(); i++) {
+            S3ObjectEntity entity = entities.get(i);
+            metadataEnricher.enrich(entity.getObjectId(), entity.getObjectKey());
+            results.get(i).setStatus(HttpStatus.CREATED.value());
+            results.get(i).setObject(toDto(entity));
+        }
+    }
+
+    /**
+     * Method to get the status of a file of a batch upload that failed to upload
+     *
+     * @param error raised by the upload
+     * @return http status code
+     */
+    private static int getFailureStatus(Throwable error) {
+        if (error instanceof EmptyFileException || error instanceof FileUploadException) {
+            return HttpStatus.BAD_REQUEST.value();
+        }
+        if (error instanceof AwsAuthorizationException) {
+            return HttpStatus.UNAUTHORIZED.value();
+        }
+        return HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    /**
+     * Method to create S3 object by streaming the content straight to S3
+     *
+     * @param fileName of the uploaded file
+     * @param contentType of the uploaded file
+     * @param inputStream containing file content
+     */
+    @Override
+    public S3ObjectDto uploadObject(String fileName, String contentType, InputStream inputStream) {
+        UUID fileId = UUID.randomUUID();
+        log.info("UUID of the streamed file is {}", fileId);
+
+        String key = fileId + "/" + fileName;
+        CountingInputStream countingStream = new CountingInputStream(inputStream);
+        Map<String, Object> metadata = uploadStream(countingStream, fileId, key, contentType);
+
+        return persistObjectMetadata(fileId, key, fileName, countingStream.getCount(), contentType, metadata);
+    }
+
+    /**
+     * Method to persist metadata of an uploaded S3 object. Fields missing from the upload
+     * response are filled in later by the metadata enricher. When the insert fails, the uploaded
+     * object is deleted by the delete reaper instead of in the failing request.
+     *
+     * @param metadata returned by the upload
+     * @return dto for the persisted object
+     */
+    private S3ObjectDto persistObjectMetadata(UUID fileId, String key, String fileName, long contentLength,
+                                              String contentType, Map<String, Object> metadata) {
+        String url = bucketName + "/" + key;
+        S3ObjectEntity entity = newEntity(fileId, fileName, contentLength, contentType, metadata);
+
+        Timer.Sample dbTimer = persistMetadataMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
+        try {
+            deleteQueue.persist(List.of(entity));
+            outcome = Outcome.SUCCESS;
+            metadataEnricher.enrich(entity.getObjectId(), entity.getObjectKey());
 
             log.info("Successfully persisted metadata for file with Id: {} in database", fileId);
-            return dto;
+            return toDto(entity);
         } catch (CannotCreateTransactionException | InvalidDataAccessResourceUsageException |
                  DataIntegrityViolationException | DataAccessResourceFailureException |
                  PersistenceException ex) {
             log.error("Failed to persist the metadata for file with Id: {} from S3 bucket: {} at path: {}. Error: {}", fileId, bucketName, url, ex.getMessage(), ex);
-            log.info("Deleting the file with Id: {} from S3 bucket: {} at path: {}", fileId, bucketName, url);
-            deleteS3Object(url.substring(url.indexOf("/") + 1), fileId.toString());
+            log.info("Queueing deletion of the file with Id: {} from S3 bucket: {} at path: {}", fileId, bucketName, url);
+            discardUpload(entity);
 
             throw new DatabaseConnectionException();
         } catch (Exception ex) {
             log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
-            log.info("Deleting the file with Id: {} from S3 bucket: {} at path: {}", fileId, bucketName, url);
-            deleteS3Object(url.substring(url.indexOf("/") + 1), fileId.toString());
+            log.info("Queueing deletion of the file with Id: {} from S3 bucket: {} at path: {}", fileId, bucketName, url);
+            discardUpload(entity);
 
             throw new DatabaseConnectionException();
         } finally {
-            dbTimer.stop(meterRegistry.timer("db.persist-file-metadata.time"));
+            persistMetadataMeters.stop(dbTimer, outcome);
         }
     }
 
     /**
-     * Method to get S3 object system metadata
+     * Method to create the metadata entity of an uploaded S3 object
      *
-     * @param url of object in S3
-     * @return metadata
+     * @param metadata returned by the upload
+     * @return entity containing S3 object metadata
      */
-    private Map<String, Object> getObjectMetadata(String url, String fileId) {
-        log.info("Getting metadata for file with Id: {} from S3 bucket: {}...", fileId, bucketName);
+    private static S3ObjectEntity newEntity(UUID fileId, String fileName, long contentLength, String contentType,
+                                            Map<String, Object> metadata) {
+        S3ObjectEntity entity = new S3ObjectEntity();
+        entity.setObjectId(fileId);
+        entity.setFileName(fileName);
+        entity.setUploadDate(Instant.now());
+        entity.setContentLength(contentLength);
+        entity.setContentType(contentType);
+        entity.setEtag((String) metadata.get("ETag"));
+        entity.setServerSideEncryption((String) metadata.get("ServerSideEncryption"));
+        entity.setAwsRequestId((String) metadata.get("x-amz-request-id"));
+        entity.setExtendedRequestId((String) metadata.get("x-amz-id-2"));
+        entity.setStorageKey((String) metadata.get("StorageKey"));
+        entity.setContentDigest((String) metadata.get("ContentDigest"));
+        entity.setContentEncoding((String) metadata.get("ContentEncoding"));
+        entity.setStoredLength((Long) metadata.get("StoredLength"));
+        entity.setCompensationId((Long) metadata.get("CompensationId"));
+        return entity;
+    }
 
-        HeadObjectResponse response;
+    /**
+     * Method to undo the upload of an object whose metadata could not be persisted. A deduplicated
+     * upload releases its reference, the shared object is only deleted with its last reference.
+     *
+     * @param entity containing S3 object metadata, not persisted
+     */
+    private void discardUpload(S3ObjectEntity entity) {
+        discardUploads(List.of(entity));
+    }
+
+    /**
+     * Method to undo the uploads of objects whose metadata could not be persisted. Their reserved
+     * compensating deletes are made due, the delete reaper deletes the objects in the background.
+     *
+     * @param entities containing S3 object metadata, not persisted
+     */
+    private void discardUploads(List<S3ObjectEntity> entities) {
+        deleteQueue.compensate(entities.stream().map(S3ObjectEntity::getCompensationId).filter(Objects::nonNull).toList());
+        entities.stream()
+                .map(S3ObjectEntity::getContentDigest)
+                .filter(Objects::nonNull)
+                .forEach(this::releaseQuietly);
+    }
 
-        String key = url.substring(url.indexOf("/") + 1);
+    /**
+     * Method to release the reference of a failed upload on deduplicated content without failing the caller
+     */
+    private void releaseQuietly(String digest) {
+        try {
+            contentIndex.release(digest, 1);
+        } catch (RuntimeException e) {
+            log.error("Failed to release reference on content with digest: {}", digest, e);
+        }
+    }
 
-        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-                                                               .bucket(bucketName)
-                                                               .key(key)
-                                                               .build();
+    /**
+     * Method to upload S3 object
+     *
+     * @param file to be uploaded
+     * @param key of the object
+     * @return metadata returned by the upload
+     */
+    private Map<String, Object> uploadObjectToS3(MultipartFile file, UUID fileId, String key) {
+        if (contentIndex.isEnabled()) {
+            return uploadDeduplicated(file, fileId, key);
+        }
+        log.info("Uploading file on bucket: {} with id: {}", bucketName, fileId);
 
-        Timer.Sample s3HeadApiTimer = Timer.start(meterRegistry);
+        String encoding = compressor.selectEncoding(file.getContentType(), file.getSize());
+        try (InputStream inputStream = file.getInputStream()) {
+            Map<String, Object> metadata = putObject(key, inputStream, file.getSize(), encoding);
 
-        try {
-            response = s3Client.headObject(headObjectRequest);
-
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("AcceptRanges", response.acceptRanges());
-            metadata.put("LastModified", response.lastModified());
-            metadata.put("ContentLength", response.contentLength());
-            metadata.put("ETag", response.eTag());
-            metadata.put("ContentType", response.contentType());
-            metadata.put("ServerSideEncryption", response.serverSideEncryptionAsString());
-            metadata.put("x-amz-request-id", response.responseMetadata().extendedRequestId());
-            metadata.put("x-amz-id-2", response.responseMetadata().requestId());
-
-            log.info("Retrieved metadata: {} for file with Id: {} from S3 bucket: {} at path: {}", metadata, fileId, bucketName, key);
+            log.info("Object with Id: {} uploaded successfully on bucket: {} at path: {}", fileId, bucketName, key);
             return metadata;
-        } catch (SdkClientException e) {
-            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
-            throw new AwsAuthorizationException();
-        } catch (SdkException e) {
-            log.error("S3 is unavailable. Failed to fetch metadata for file with Id: {} from S3 bucket: {} at path: {}. Error: {}", fileId, bucketName, key, e.getMessage(), e);
-            log.info("Deleting the file with Id: {} from S3 bucket: {} at path: {}", fileId, bucketName, key);
-            deleteS3Object(key, fileId);
+        } catch (IOException e) {
+            log.error("Failed to upload the file with Id: {} on bucket: {} at path: {}. Error: {}", fileId, bucketName, key, e.getMessage(), e);
+            throw new FileUploadException();
+        }
+    }
 
-            throw new DatabaseConnectionException();
-        } catch (Exception e) {
-            log.error("Failed to fetch metadata for file with Id: {} from S3 bucket: {} at path: {}. Error: {}", fileId, bucketName, key, e.getMessage(), e);
-            log.info("Deleting the file with Id: {} from S3 bucket: {} at path: {}", fileId, bucketName, key);
-            deleteS3Object(key, fileId);
+    /**
+     * Method to upload S3 object unless its content is stored already. The spooled upload is hashed
+     * first, content that is stored already takes a reference on the stored object and skips the put.
+     *
+     * @param file to be uploaded
+     * @param key of the object when it is stored
+     * @return metadata returned by the upload, with the key and digest of the referenced object
+     */
+    private Map<String, Object> uploadDeduplicated(MultipartFile file, UUID fileId, String key) {
+        String digest;
+        try (InputStream inputStream = new DigestInputStream(file.getInputStream(), S3ContentIndex.newDigest())) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+            digest = S3ContentIndex.toHex(((DigestInputStream) inputStream).getMessageDigest());
+        } catch (IOException e) {
+            log.error("Failed to hash the file with Id: {}. Error: {}", fileId, e.getMessage(), e);
+            throw new FileUploadException();
+        }
 
-            throw new FetchObjectMetadataException();
-        } finally {
-            s3HeadApiTimer.stop(meterRegistry.timer("s3.fetch-file-metadata.time"));
+        Optional<S3ObjectContentEntity> stored = contentIndex.acquire(digest);
+        if (stored.isPresent()) {
+            log.info("Content of file with Id: {} is stored already at path: {}, skipping upload", fileId, stored.get().getObjectKey());
+            return getSharedMetadata(stored.get());
         }
+
+        log.info("Uploading file on bucket: {} with id: {}", bucketName, fileId);
+        String encoding = compressor.selectEncoding(file.getContentType(), file.getSize());
+        Map<String, Object> metadata;
+        try (InputStream inputStream = file.getInputStream()) {
+            metadata = putObject(key, inputStream, file.getSize(), encoding);
+        } catch (IOException e) {
+            log.error("Failed to upload the file with Id: {} on bucket: {} at path: {}. Error: {}", fileId, bucketName, key, e.getMessage(), e);
+            throw new FileUploadException();
+        }
+
+        log.info("Object with Id: {} uploaded successfully on bucket: {} at path: {}", fileId, bucketName, key);
+        return registerContent(digest, key, file.getSize(), metadata);
     }
 
     /**
-     * Method to upload S3 object
+     * Method to register uploaded content in the content index, which takes over the reserved
+     * compensating delete of the upload
      *
-     * @param file to be uploaded
-     * @return object url
+     * @param metadata returned by the upload
+     * @return metadata of the referenced object, which is another object when the same content was
+     * stored concurrently
      */
-    private String uploadObjectToS3(MultipartFile file, UUID fileId) {
-        log.info("Uploading file on S3 bucket: {} with id: {}", bucketName, fileId);
+    private Map<String, Object> registerContent(String digest, String key, long contentLength, Map<String, Object> metadata) {
+        Long reservation = (Long) metadata.remove("CompensationId");
+        Long storedLength = (Long) metadata.get("StoredLength");
 
-        String key = fileId + "/" + file.getOriginalFilename();
+        S3ObjectContentEntity registered;
+        try {
+            registered = contentIndex.register(digest, key, contentLength, (String) metadata.get("ETag"),
+                                               (String) metadata.get("ContentEncoding"),
+                                               storedLength != null ? storedLength : contentLength);
+        } catch (RuntimeException e) {
+            deleteQueue.compensate(List.of(reservation));
+            throw e;
+        }
 
-        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                                                            .bucket(bucketName)
-                                                            .key(key)
-                                                            .build();
+        if (!registered.getObjectKey().equals(key)) {
+            // The duplicate is deleted by the content index, the reserved delete retries a failed delete
+            deleteQueue.compensate(List.of(reservation));
+            return getSharedMetadata(registered);
+        }
 
-        Timer.Sample s3PutApiTimer = Timer.start(meterRegistry);
+        // The stored object is owned by the content index now, it is deleted with its last reference
+        try {
+            deleteQueue.cancel(reservation);
+        } catch (RuntimeException e) {
+            releaseQuietly(digest);
+            throw e;
+        }
+
+        metadata.put("StorageKey", key);
+        metadata.put("ContentDigest", digest);
+        return metadata;
+    }
 
+    /**
+     * Method to get the metadata of an upload referencing a stored object
+     *
+     * @param stored object
+     * @return metadata
+     */
+    private static Map<String, Object> getSharedMetadata(S3ObjectContentEntity stored) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("ETag", stored.getEtag());
+        metadata.put("StorageKey", stored.getObjectKey());
+        metadata.put("ContentDigest", stored.getDigest());
+        metadata.put("ContentEncoding", stored.getContentEncoding());
+        if (stored.getContentEncoding() != null) {
+            metadata.put("StoredLength", stored.getStoredLength());
+        }
+        return metadata;
+    }
+
+    /**
+     * Method to store an upload, compressed as it streams when an encoding is chosen. Compressed
+     * content is stored with unknown length since its length is only known once it is compressed.
+     * A compensating delete is reserved before the object is stored, it deletes the object unless
+     * the metadata is persisted.
+     *
+     * @param inputStream containing the upload
+     * @param contentLength of the upload, -1 when unknown
+     * @param encoding of the stored content, null to store the upload unchanged
+     * @return metadata returned by the upload, with the encoding and length of compressed content and
+     * the reserved compensating delete
+     */
+    private Map<String, Object> putObject(String key, InputStream inputStream, long contentLength, String encoding) {
+        Long reservation = deleteQueue.reserve(key);
+
+        Map<String, Object> metadata;
         try {
-            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
+            metadata = storeObject(key, inputStream, contentLength, encoding);
+        } catch (RuntimeException e) {
+            deleteQueue.compensate(List.of(reservation));
+            throw e;
+        }
 
-            log.info("Object with Id: {} uploaded successfully on bucket: {} at path: {}", fileId, bucketName, key);
-            return bucketName + "/" + key;
+        metadata.put("CompensationId", reservation);
+        return metadata;
+    }
+
+    /**
+     * Method to store an upload on the storage backend, compressing it when an encoding is chosen
+     */
+    private Map<String, Object> storeObject(String key, InputStream inputStream, long contentLength, String encoding) {
+        if (encoding == null) {
+            return storage.putObject(key, inputStream, contentLength);
+        }
+
+        CountingInputStream original = new CountingInputStream(inputStream);
+        CountingInputStream compressed = new CountingInputStream(compressor.compress(original));
+        Map<String, Object> metadata = storage.putObject(key, compressed, -1);
+
+        compressor.recordCompression(original.getCount(), compressed.getCount());
+        log.info("Compressed {} bytes to {} bytes with {} at path: {}", original.getCount(), compressed.getCount(), encoding, key);
+
+        metadata.put("ContentEncoding", encoding);
+        metadata.put("StoredLength", compressed.getCount());
+        return metadata;
+    }
+
+    /**
+     * Method to upload a stream of unknown length, an empty stream is rejected before anything is stored.
+     * With deduplication the content is hashed as it streams, compressible content is compressed as it streams.
+     *
+     * @param inputStream containing object content
+     * @param key of the object
+     * @param contentType of the uploaded file
+     * @return metadata returned by the upload
+     */
+    private Map<String, Object> uploadStream(CountingInputStream inputStream, UUID fileId, String key, String contentType) {
+        log.info("Streaming file on bucket: {} with id: {}", bucketName, fileId);
+
+        PushbackInputStream pushbackStream = new PushbackInputStream(inputStream, 1);
+        try {
+            int first = pushbackStream.read();
+            if (first == -1) {
+                log.warn("Bad Request - Streamed file with Id: {} is empty", fileId);
+                throw new EmptyFileException();
+            }
+            pushbackStream.unread(first);
         } catch (IOException e) {
-            log.error("Failed to upload the file with Id: {} on S3 bucket: {} at path: {}. Error: {}", fileId, bucketName, key, e.getMessage(), e);
+            log.error("Failed to stream the file with Id: {} on bucket: {} at path: {}. Error: {}", fileId, bucketName, key, e.getMessage(), e);
             throw new FileUploadException();
-        } catch (SdkClientException e) {
-            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
-            throw new AwsAuthorizationException();
-        } catch (SdkException e) {
-            log.error("S3 is unavailable. Upload failed for file with Id: {}. on S3 bucket: {} at path: {}. Error: {}", fileId, bucketName, key, e.getMessage(), e);
-            throw new DatabaseConnectionException();
-        } finally {
-            s3PutApiTimer.stop(meterRegistry.timer("s3.upload-file.time"));
         }
+
+        String encoding = compressor.selectEncoding(contentType, -1);
+        if (!contentIndex.isEnabled()) {
+            Map<String, Object> metadata = putObject(key, pushbackStream, -1, encoding);
+
+            log.info("Object with Id: {} streamed successfully on bucket: {} at path: {}", fileId, bucketName, key);
+            return metadata;
+        }
+
+        // The digest is only known once the stream is stored, duplicates are deleted again after the put
+        MessageDigest digest = S3ContentIndex.newDigest();
+        Map<String, Object> metadata = putObject(key, new DigestInputStream(pushbackStream, digest), -1, encoding);
+
+        log.info("Object with Id: {} streamed successfully on bucket: {} at path: {}", fileId, bucketName, key);
+        return registerContent(S3ContentIndex.toHex(digest), key, inputStream.getCount(), metadata);
     }
 
     /**
-     * Method to delete S3 object for given Id
+     * Method to delete S3 object for given Id. With deferred deletes the metadata is deleted
+     * right away and the S3 object is deleted in the background.
      *
      * @param id of S3 object
      */
     @Override
     public void deleteObject(String id) {
+        if (deleteQueue.isEnabled()) {
+            deleteQueue.enqueue(id);
+            return;
+        }
+
         Optional<S3ObjectEntity> entity = findS3Object(id);
 
         if (entity.isEmpty()) {
@@ -277,13 +845,19 @@ public class S3ServiceImpl implements S3Service {
             throw new S3ObjectNotFoundException();
         }
 
-        String key = entity.get().getUrl().substring(bucketName.length() + 1);
+        String key = entity.get().getObjectKey();
 
-        deleteS3Object(key, entity.get().getObjectId());
+        if (entity.get().getContentDigest() == null) {
+            deleteS3Object(key, id);
+        }
 
-        Timer.Sample dbTimer = Timer.start(meterRegistry);
+        Timer.Sample dbTimer = deleteMetadataMeters.start();
+        Outcome outcome = Outcome.DB_ERROR;
         try {
-            repository.delete(entity.get());
+            // Releases the reference of a deduplicated object in the same statement
+            repository.deleteAndReleaseObjects(List.of(entity.get().getObjectId()));
+            objectCache.invalidate(id);
+            outcome = Outcome.SUCCESS;
         } catch (CannotCreateTransactionException | InvalidDataAccessResourceUsageException |
                  DataIntegrityViolationException | DataAccessResourceFailureException |
                  PersistenceException ex) {
@@ -293,10 +867,130 @@ public class S3ServiceImpl implements S3Service {
             log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
             throw new DatabaseConnectionException();
         } finally {
-            dbTimer.stop(meterRegistry.timer("db.delete-file-metadata.time"));
+            deleteMetadataMeters.stop(dbTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to delete S3 objects for given Ids. The Ids are resolved with one query per chunk,
+     * the objects are deleted with one S3 DeleteObjects call per chunk and the metadata rows of
+     * the deleted objects are removed with one statement per chunk.
+     *
+     * @param ids of S3 objects
+     * @return result for each distinct Id, in the order of the Ids. Ids spelling the same object
+     * differently, e.g. in upper case, each get their own result.
+     */
+    @Override
+    public List<S3ObjectDeleteResultDto> deleteObjects(List<String> ids) {
+        Map<String, S3ObjectDeleteResultDto> results = new LinkedHashMap<>();
+        Map<UUID, List<S3ObjectDeleteResultDto>> objectIds = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (results.containsKey(id)) {
+                continue;
+            }
+            S3ObjectDeleteResultDto result = new S3ObjectDeleteResultDto();
+            result.setObjectId(id);
+            result.setStatus(HttpStatus.NOT_FOUND.value());
+            results.put(id, result);
+            parseObjectId(id).ifPresent(objectId -> objectIds.computeIfAbsent(objectId, ignored -> new ArrayList<>()).add(result));
+        }
+
+        List<UUID> pending = new ArrayList<>(objectIds.keySet());
+        for (int from = 0; from < pending.size(); from += MAX_KEYS_PER_DELETE) {
+            List<UUID> chunk = pending.subList(from, Math.min(from + MAX_KEYS_PER_DELETE, pending.size()));
+            deleteObjectsChunk(chunk, objectIds);
+        }
+
+        long deleted = results.values().stream().filter(result -> result.getStatus() == HttpStatus.NO_CONTENT.value()).count();
+        log.info("Deleted {} of {} requested files", deleted, results.size());
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * Method to delete one chunk of a bulk delete
+     *
+     * @param chunk of at most 1000 object Ids
+     * @param results to fill in, keyed by object Id
+     */
+    private void deleteObjectsChunk(List<UUID> chunk, Map<UUID, List<S3ObjectDeleteResultDto>> results) {
+        List<S3ObjectEntity> entities;
+        Timer.Sample dbQueryTimer = queryObjectsMeters.start();
+        Outcome queryOutcome = Outcome.DB_ERROR;
+        try {
+            entities = repository.findAllByObjectIdIn(chunk);
+            queryOutcome = Outcome.SUCCESS;
+        } catch (Exception ex) {
+            log.error("Failed to retrieve {} files for bulk delete. Error: {}", chunk.size(), ex.getMessage(), ex);
+            chunk.forEach(objectId -> setStatus(results, objectId, HttpStatus.SERVICE_UNAVAILABLE));
+            return;
+        } finally {
+            queryObjectsMeters.stop(dbQueryTimer, queryOutcome);
+        }
+
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        // Deduplicated objects are shared, their references are released with the metadata
+        Map<String, UUID> keys = new HashMap<>();
+        Set<UUID> deduplicated = new HashSet<>();
+        entities.forEach(entity -> {
+            if (entity.getContentDigest() != null) {
+                deduplicated.add(entity.getObjectId());
+            } else {
+                keys.put(entity.getObjectKey(), entity.getObjectId());
+            }
+        });
+
+        Set<UUID> removed = new HashSet<>(keys.values());
+        removed.addAll(deduplicated);
+        try {
+            Map<String, String> errors = keys.isEmpty() ? Map.of() : storage.deleteObjects(keys.keySet());
+
+            errors.keySet().forEach(key -> {
+                UUID objectId = keys.get(key);
+                removed.remove(objectId);
+                setStatus(results, objectId, HttpStatus.SERVICE_UNAVAILABLE);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to delete {} files from bucket: {}. Error: {}", keys.size(), bucketName, e.getMessage(), e);
+            keys.values().forEach(objectId -> setStatus(results, objectId, HttpStatus.SERVICE_UNAVAILABLE));
+            return;
+        }
+
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        Timer.Sample dbDeleteTimer = deleteObjectsMetadataMeters.start();
+        Outcome deleteOutcome = Outcome.DB_ERROR;
+        try {
+            repository.deleteAndReleaseObjects(removed);
+            deleteOutcome = Outcome.SUCCESS;
+            removed.forEach(objectId -> {
+                results.get(objectId).forEach(result -> objectCache.invalidate(result.getObjectId()));
+                setStatus(results, objectId, HttpStatus.NO_CONTENT);
+            });
+        } catch (Exception ex) {
+            log.error("Failed to delete metadata of {} files deleted from S3. Error: {}", removed.size(), ex.getMessage(), ex);
+            removed.forEach(objectId -> setStatus(results, objectId, HttpStatus.SERVICE_UNAVAILABLE));
+            return;
+        } finally {
+            deleteObjectsMetadataMeters.stop(dbDeleteTimer, deleteOutcome);
         }
     }
 
+    /**
+     * Method to set the status of every requested Id naming an object
+     *
+     * @param results keyed by object Id
+     * @param objectId of S3 object
+     * @param status of its deletion
+     */
+    private static void setStatus(Map<UUID, List<S3ObjectDeleteResultDto>> results, UUID objectId, HttpStatus status) {
+        results.get(objectId).forEach(result -> result.setStatus(status.value()));
+    }
+
     /**
      * Method to delete S3 object
      *
@@ -304,30 +998,41 @@ public class S3ServiceImpl implements S3Service {
      * @param id of S3 bucket
      */
     private void deleteS3Object(String key, String id) {
-        log.info("Deleting file with id {} from S3 bucket: {} at path: {}", id, bucketName, key);
-        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-                                                                     .bucket(bucketName)
-                                                                     .key(key)
-                                                                     .build();
+        log.info("Deleting file with id {} from bucket: {} at path: {}", id, bucketName, key);
+        storage.deleteObject(key);
+    }
 
-        Timer.Sample s3DeleteApiTimer = Timer.start(meterRegistry);
+    /**
+     * Input stream that counts the bytes read through it
+     */
+    private static class CountingInputStream extends FilterInputStream {
 
-        try {
-            s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build());
-            s3Client.deleteObject(deleteObjectRequest);
-
-            log.info("Successfully deleted file with Id: {} from S3 bucket: {} at path: {}", id, bucketName, key);
-        } catch (SdkClientException e) {
-            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
-            throw new AwsAuthorizationException();
-        } catch (SdkException e) {
-            log.error("S3 is unavailable. Failed to delete file with Id: {}. on S3 bucket: {} at path: {}. Error: {}", id, bucketName, key, e.getMessage(), e);
-            throw new DatabaseConnectionException();
-        } catch (Exception e) {
-            log.error("Unexpected issue while deleting file with Id: {} from S3 bucket: {} at path: {}. Error: {}", id, bucketName, key, e.getMessage(), e);
-            throw new FileDeletionException();
-        } finally {
-            s3DeleteApiTimer.stop(meterRegistry.timer("s3.delete-file.time"));
+        private long count;
+
+        CountingInputStream(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        long getCount() {
+            return count;
         }
     }
 }
\ No newline at end of file
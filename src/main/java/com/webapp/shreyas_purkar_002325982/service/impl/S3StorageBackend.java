@@ -0,0 +1,344 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.exception.*;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import com.webapp.shreyas_purkar_002325982.service.StoredObjectContent;
+import com.webapp.shreyas_purkar_002325982.service.impl.OperationMetrics.Outcome;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.*;
+
+/**
+ * Storage backend keeping objects in the S3 bucket, the default backend
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class S3StorageBackend implements StorageBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(S3StorageBackend.class);
+
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
+    private final S3Client s3Client;
+
+    private final S3MultipartUploader multipartUploader;
+
+    private final OperationMetrics.Meters uploadMeters;
+
+    private final OperationMetrics.Meters openMeters;
+
+    private final OperationMetrics.Meters headMeters;
+
+    private final OperationMetrics.Meters listMeters;
+
+    private final OperationMetrics.Meters deleteMeters;
+
+    private final OperationMetrics.Meters deleteBatchMeters;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${aws.s3.multipart.threshold:16MB}")
+    private DataSize multipartThreshold;
+
+    public S3StorageBackend(S3Client s3Client, S3MultipartUploader multipartUploader, OperationMetrics operationMetrics) {
+        this.s3Client = s3Client;
+        this.multipartUploader = multipartUploader;
+
+        this.uploadMeters = operationMetrics.registerTimer("s3.upload-file.time", Outcome.S3_ERROR);
+        this.openMeters = operationMetrics.registerTimer("s3.open-file.time", Outcome.NOT_FOUND, Outcome.CLIENT_ERROR, Outcome.S3_ERROR);
+        this.headMeters = operationMetrics.registerTimer("s3.fetch-file-metadata.time", Outcome.NOT_FOUND, Outcome.S3_ERROR);
+        this.listMeters = operationMetrics.registerTimer("s3.list-files.time", Outcome.S3_ERROR);
+        this.deleteMeters = operationMetrics.registerTimer("s3.delete-file.time", Outcome.S3_ERROR);
+        this.deleteBatchMeters = operationMetrics.registerTimer("s3.delete-files.time", Outcome.S3_ERROR);
+    }
+
+    /**
+     * Method to upload S3 object. Content above the multipart threshold, or a stream of unknown length
+     * that does not fit in a single part, is sent as a multipart upload.
+     *
+     * @param key of the object
+     * @param inputStream containing object content
+     * @param contentLength of the content, -1 when unknown
+     * @return metadata returned by the upload
+     */
+    @Override
+    public Map<String, Object> putObject(String key, InputStream inputStream, long contentLength) {
+        log.info("Uploading file on S3 bucket: {} at path: {}", bucketName, key);
+
+        Timer.Sample s3PutApiTimer = uploadMeters.start();
+        Outcome outcome = Outcome.S3_ERROR;
+        try {
+            Map<String, Object> metadata;
+            if (contentLength < 0) {
+                byte[] firstPart = inputStream.readNBytes((int) multipartThreshold.toBytes());
+                if (firstPart.length < multipartThreshold.toBytes()) {
+                    metadata = putObject(key, RequestBody.fromBytes(firstPart));
+                } else {
+                    metadata = putMultipart(key, new SequenceInputStream(new ByteArrayInputStream(firstPart), inputStream));
+                }
+            } else if (contentLength > multipartThreshold.toBytes()) {
+                metadata = putMultipart(key, inputStream);
+            } else {
+                metadata = putObject(key, RequestBody.fromInputStream(inputStream, contentLength));
+            }
+
+            outcome = Outcome.SUCCESS;
+            log.info("Object uploaded successfully on bucket: {} at path: {}", bucketName, key);
+            return metadata;
+        } catch (IOException e) {
+            log.error("Failed to upload the file on S3 bucket: {} at path: {}. Error: {}", bucketName, key, e.getMessage(), e);
+            throw new FileUploadException();
+        } catch (SdkClientException e) {
+            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+            throw new AwsAuthorizationException();
+        } catch (SdkException e) {
+            log.error("S3 is unavailable. Upload failed on S3 bucket: {} at path: {}. Error: {}", bucketName, key, e.getMessage(), e);
+            throw new StorageUnavailableException();
+        } finally {
+            uploadMeters.stop(s3PutApiTimer, outcome);
+        }
+    }
+
+    private Map<String, Object> putObject(String key, RequestBody requestBody) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                                                            .bucket(bucketName)
+                                                            .key(key)
+                                                            .build();
+        PutObjectResponse response = s3Client.putObject(putObjectRequest, requestBody);
+        return getUploadMetadata(response, response.eTag(), response.serverSideEncryptionAsString());
+    }
+
+    private Map<String, Object> putMultipart(String key, InputStream inputStream) throws IOException {
+        CompleteMultipartUploadResponse response = multipartUploader.upload(bucketName, key, inputStream);
+        return getUploadMetadata(response, response.eTag(), response.serverSideEncryptionAsString());
+    }
+
+    /**
+     * Method to get the system metadata returned by an upload
+     *
+     * @param response of the upload
+     * @return metadata
+     */
+    private static Map<String, Object> getUploadMetadata(S3Response response, String eTag, String serverSideEncryption) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("ETag", eTag);
+        metadata.put("ServerSideEncryption", serverSideEncryption);
+        metadata.put("x-amz-request-id", response.responseMetadata().requestId());
+        metadata.put("x-amz-id-2", response.responseMetadata().extendedRequestId());
+        return metadata;
+    }
+
+    /**
+     * Method to open the content of S3 object, the range is passed on to S3
+     *
+     * @param key of the object
+     * @param range of bytes to read as a single HTTP byte range, null for the whole object
+     * @return content of the object
+     */
+    @Override
+    public StoredObjectContent getObject(String key, String range) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                                                            .bucket(bucketName)
+                                                            .key(key)
+                                                            .range(range)
+                                                            .build();
+
+        Timer.Sample s3GetApiTimer = openMeters.start();
+        Outcome outcome = Outcome.S3_ERROR;
+        try {
+            ResponseInputStream<GetObjectResponse> content = s3Client.getObject(getObjectRequest);
+            GetObjectResponse response = content.response();
+            outcome = Outcome.SUCCESS;
+
+            log.info("Opened content from S3 bucket: {} at path: {}", bucketName, key);
+            return StoredObjectContent.ofStream(content, content::abort, response.contentLength(),
+                                                response.contentRange(), response.eTag());
+        } catch (NoSuchKeyException e) {
+            log.error("No object found on S3 bucket: {} at path: {}", bucketName, key);
+            outcome = Outcome.NOT_FOUND;
+            throw new S3ObjectNotFoundException();
+        } catch (S3Exception e) {
+            if (e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                log.warn("Bad Request - Range: {} not satisfiable for path: {}", range, key);
+                outcome = Outcome.CLIENT_ERROR;
+                throw new InvalidRangeException();
+            }
+            log.error("S3 is unavailable. Failed to read file on S3 bucket: {} at path: {}. Error: {}", bucketName, key, e.getMessage(), e);
+            throw new StorageUnavailableException();
+        } catch (SdkClientException e) {
+            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+            throw new AwsAuthorizationException();
+        } catch (SdkException e) {
+            log.error("S3 is unavailable. Failed to read file on S3 bucket: {} at path: {}. Error: {}", bucketName, key, e.getMessage(), e);
+            throw new StorageUnavailableException();
+        } finally {
+            openMeters.stop(s3GetApiTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to fetch the attributes of S3 object with a HEAD request
+     *
+     * @param key of the object
+     * @return attributes of the object
+     */
+    @Override
+    public ObjectAttributes headObject(String key) {
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                                                               .bucket(bucketName)
+                                                               .key(key)
+                                                               .build();
+
+        Timer.Sample s3HeadApiTimer = headMeters.start();
+        Outcome outcome = Outcome.S3_ERROR;
+        try {
+            HeadObjectResponse response = s3Client.headObject(headObjectRequest);
+            outcome = Outcome.SUCCESS;
+            return new ObjectAttributes(response.acceptRanges(), response.lastModified());
+        } catch (NoSuchKeyException e) {
+            outcome = Outcome.NOT_FOUND;
+            throw new S3ObjectNotFoundException();
+        } catch (SdkClientException e) {
+            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+            throw new AwsAuthorizationException();
+        } catch (SdkException e) {
+            log.error("Failed to fetch metadata from S3 bucket: {} at path: {}. Error: {}", bucketName, key, e.getMessage(), e);
+            throw new StorageUnavailableException();
+        } finally {
+            headMeters.stop(s3HeadApiTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to list a page of S3 objects with ListObjectsV2
+     *
+     * @param prefix of the keys to list
+     * @param startAfter key after which the page starts, null for the first page
+     * @param maxKeys maximum number of objects on the page, at most 1000
+     * @return objects on the page
+     */
+    @Override
+    public List<ListedObject> listObjects(String prefix, String startAfter, int maxKeys) {
+        ListObjectsV2Request listObjectsRequest = ListObjectsV2Request.builder()
+                                                                      .bucket(bucketName)
+                                                                      .prefix(prefix)
+                                                                      .startAfter(startAfter)
+                                                                      .maxKeys(maxKeys)
+                                                                      .build();
+
+        Timer.Sample s3ListApiTimer = listMeters.start();
+        Outcome outcome = Outcome.S3_ERROR;
+        try {
+            List<ListedObject> page = s3Client.listObjectsV2(listObjectsRequest)
+                                              .contents()
+                                              .stream()
+                                              .map(object -> new ListedObject(object.key(), object.lastModified()))
+                                              .toList();
+            outcome = Outcome.SUCCESS;
+            return page;
+        } catch (SdkClientException e) {
+            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+            throw new AwsAuthorizationException();
+        } catch (SdkException e) {
+            log.error("Failed to list S3 bucket: {} with prefix: {}. Error: {}", bucketName, prefix, e.getMessage(), e);
+            throw new StorageUnavailableException();
+        } finally {
+            listMeters.stop(s3ListApiTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to delete S3 object
+     *
+     * @param key of the object
+     */
+    @Override
+    public void deleteObject(String key) {
+        log.info("Deleting file from S3 bucket: {} at path: {}", bucketName, key);
+        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+                                                                     .bucket(bucketName)
+                                                                     .key(key)
+                                                                     .build();
+
+        Timer.Sample s3DeleteApiTimer = deleteMeters.start();
+        Outcome outcome = Outcome.S3_ERROR;
+        try {
+            s3Client.deleteObject(deleteObjectRequest);
+            outcome = Outcome.SUCCESS;
+
+            log.info("Successfully deleted file from S3 bucket: {} at path: {}", bucketName, key);
+        } catch (SdkClientException e) {
+            log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+            throw new AwsAuthorizationException();
+        } catch (SdkException e) {
+            log.error("S3 is unavailable. Failed to delete file on S3 bucket: {} at path: {}. Error: {}", bucketName, key, e.getMessage(), e);
+            throw new StorageUnavailableException();
+        } catch (Exception e) {
+            log.error("Unexpected issue while deleting file from S3 bucket: {} at path: {}. Error: {}", bucketName, key, e.getMessage(), e);
+            throw new FileDeletionException();
+        } finally {
+            deleteMeters.stop(s3DeleteApiTimer, outcome);
+        }
+    }
+
+    /**
+     * Method to delete S3 objects with one S3 DeleteObjects call per 1000 keys
+     *
+     * @param keys of the objects
+     * @return error code for each key S3 failed to delete
+     */
+    @Override
+    public Map<String, String> deleteObjects(Collection<String> keys) {
+        List<String> pending = new ArrayList<>(keys);
+        Map<String, String> errors = new HashMap<>();
+
+        for (int from = 0; from < pending.size(); from += MAX_KEYS_PER_DELETE) {
+            List<String> chunk = pending.subList(from, Math.min(from + MAX_KEYS_PER_DELETE, pending.size()));
+
+            Timer.Sample s3DeleteApiTimer = deleteBatchMeters.start();
+            Outcome outcome = Outcome.S3_ERROR;
+            try {
+                DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(bucketName)
+                        .delete(Delete.builder()
+                                      .objects(chunk.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                                      .quiet(true)
+                                      .build())
+                        .build());
+                outcome = Outcome.SUCCESS;
+
+                for (S3Error error : response.errors()) {
+                    log.error("Failed to delete file at path: {} from S3 bucket: {}. Error: {} {}", error.key(), bucketName, error.code(), error.message());
+                    errors.put(error.key(), error.code());
+                }
+            } catch (SdkClientException e) {
+                log.error("Missing AWS credentials. Error: {}", e.getMessage(), e);
+                throw new AwsAuthorizationException();
+            } catch (SdkException e) {
+                log.error("S3 is unavailable. Failed to delete {} files from S3 bucket: {}. Error: {}", chunk.size(), bucketName, e.getMessage(), e);
+                throw new StorageUnavailableException();
+            } finally {
+                deleteBatchMeters.stop(s3DeleteApiTimer, outcome);
+            }
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,281 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.entity.S3UploadIdempotencyKeyEntity;
+import com.webapp.shreyas_purkar_002325982.exception.DatabaseConnectionException;
+import com.webapp.shreyas_purkar_002325982.exception.IdempotencyKeyInFlightException;
+import com.webapp.shreyas_purkar_002325982.exception.IdempotencyKeyMismatchException;
+import com.webapp.shreyas_purkar_002325982.exception.PayloadNotAllowedException;
+import com.webapp.shreyas_purkar_002325982.repository.S3UploadIdempotencyKeyRepository;
+import com.webapp.shreyas_purkar_002325982.service.S3Service;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency keys for uploads. The first request with a key claims it and runs the upload, the key
+ * then records the created object for its TTL. A retry of a completed upload gets the stored object
+ * without uploading again, a retry of an upload in flight waits for it instead of starting a second
+ * one. Retries on the same instance wait on the upload itself, retries on other instances poll the key.
+ * <p>
+ * Each claim holds a token, only the holder records the outcome of its upload. The lease of an upload
+ * in flight is renewed while it runs, a retry only takes over the key of an upload whose instance died.
+ */
+@Component
+public class S3UploadIdempotency {
+
+    private static final Logger log = LoggerFactory.getLogger(S3UploadIdempotency.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final S3UploadIdempotencyKeyRepository repository;
+
+    private final S3Service service;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Claim> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${aws.s3.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${aws.s3.idempotency.lease:5m}")
+    private Duration lease;
+
+    @Value("${aws.s3.idempotency.max-wait:30s}")
+    private Duration maxWait;
+
+    @Value("${aws.s3.idempotency.poll-interval:250ms}")
+    private Duration pollInterval;
+
+    public S3UploadIdempotency(S3UploadIdempotencyKeyRepository repository, S3Service service, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.service = service;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Method to describe an upload, a key is only replayed for an upload with the same fingerprint
+     *
+     * @param fileName of the uploaded file
+     * @param contentType of the uploaded file
+     * @param contentLength of the uploaded file, -1 for streamed uploads
+     */
+    public static String fingerprint(String fileName, String contentType, long contentLength) {
+        return fileName + "|" + contentType + "|" + contentLength;
+    }
+
+    /**
+     * Method to run an upload at most once for given key
+     *
+     * @param idempotencyKey sent by the client
+     * @param fingerprint of the upload
+     * @param upload to run when the key is not used yet
+     * @return the created object, or the object created by an earlier request with the key
+     */
+    public S3ObjectDto execute(String idempotencyKey, String fingerprint, Supplier<S3ObjectDto> upload) {
+        try {
+            return executeAsync(idempotencyKey, fingerprint, () -> CompletableFuture.completedFuture(upload.get())).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Method to run an asynchronous upload at most once for given key. Waiting for an upload in flight
+     * blocks the caller for at most the configured maximum wait.
+     *
+     * @param idempotencyKey sent by the client
+     * @param fingerprint of the upload
+     * @param upload to run when the key is not used yet
+     * @return the created object, or the object created by an earlier request with the key
+     */
+    public CompletableFuture<S3ObjectDto> executeAsync(String idempotencyKey, String fingerprint,
+                                                       Supplier<CompletableFuture<S3ObjectDto>> upload) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            log.warn("Bad Request - Invalid idempotency key of length: {}", idempotencyKey.length());
+            throw new PayloadNotAllowedException();
+        }
+
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (true) {
+            UUID token = UUID.randomUUID();
+            if (claim(idempotencyKey, fingerprint, token)) {
+                return run(idempotencyKey, token, upload);
+            }
+
+            Optional<S3UploadIdempotencyKeyEntity> existing = find(idempotencyKey);
+            if (existing.isEmpty()) {
+                // Released by a failed upload or purged meanwhile, claim it again
+                continue;
+            }
+
+            if (!existing.get().getFingerprint().equals(fingerprint)) {
+                log.warn("Bad Request - Idempotency key: {} was used for a different upload", idempotencyKey);
+                throw new IdempotencyKeyMismatchException();
+            }
+
+            if (existing.get().getObjectId() != null) {
+                meterRegistry.counter("api.idempotency.replayed.count").increment();
+                log.info("Replaying upload of file with Id: {} for idempotency key: {}", existing.get().getObjectId(), idempotencyKey);
+                return CompletableFuture.completedFuture(service.getObject(existing.get().getObjectId().toString()));
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                meterRegistry.counter("api.idempotency.in-flight.count").increment();
+                log.warn("Upload for idempotency key: {} is still in flight after {}", idempotencyKey, maxWait);
+                throw new IdempotencyKeyInFlightException();
+            }
+
+            log.info("Waiting for upload in flight for idempotency key: {}", idempotencyKey);
+            awaitUpload(idempotencyKey, remaining);
+        }
+    }
+
+    /**
+     * Method to run the upload of a claimed key. A completed upload is recorded on the key, a failed
+     * upload releases the key so the next retry uploads again.
+     */
+    private CompletableFuture<S3ObjectDto> run(String idempotencyKey, UUID token, Supplier<CompletableFuture<S3ObjectDto>> upload) {
+        Claim claim = new Claim(token, new CompletableFuture<>());
+        inFlight.put(idempotencyKey, claim);
+
+        CompletableFuture<S3ObjectDto> result;
+        try {
+            result = upload.get();
+        } catch (RuntimeException e) {
+            finish(idempotencyKey, claim, null);
+            throw e;
+        }
+        return result.whenComplete((dto, error) -> finish(idempotencyKey, claim, error == null ? dto : null));
+    }
+
+    /**
+     * Method to record the outcome of an upload on its key and wake up local waiters
+     *
+     * @param dto of the created object, null when the upload failed
+     */
+    private void finish(String idempotencyKey, Claim claim, S3ObjectDto dto) {
+        try {
+            int recorded = dto != null
+                    ? repository.complete(idempotencyKey, claim.token(), UUID.fromString(dto.getObjectId()))
+                    : repository.release(idempotencyKey, claim.token());
+            if (recorded == 0) {
+                meterRegistry.counter("api.idempotency.lost-claim.count").increment();
+                log.warn("Claim on idempotency key: {} was taken over before the upload finished", idempotencyKey);
+            }
+        } catch (Exception ex) {
+            // The key stays in flight until its lease runs out, a retry then uploads again
+            log.error("Failed to record the upload for idempotency key: {}. Error: {}", idempotencyKey, ex.getMessage(), ex);
+        } finally {
+            inFlight.remove(idempotencyKey, claim);
+            claim.done().complete(null);
+        }
+    }
+
+    /**
+     * Method to renew the leases of the uploads in flight on this instance, well before they run out
+     */
+    @Scheduled(fixedDelayString = "${aws.s3.idempotency.renew-interval:1m}")
+    public void renewLeases() {
+        List<UUID> tokens = inFlight.values().stream().map(Claim::token).toList();
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        try {
+            int renewed = repository.renew(tokens, lease.toSeconds());
+            log.debug("Renewed the leases of {} of {} uploads in flight", renewed, tokens.size());
+        } catch (Exception ex) {
+            log.error("Failed to renew the leases of {} uploads in flight. Error: {}", tokens.size(), ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Method to wait until the upload of a key is likely done, on the upload itself when it runs on
+     * this instance and for one poll interval otherwise
+     */
+    private void awaitUpload(String idempotencyKey, long remainingNanos) {
+        Timer.Sample waitTimer = Timer.start(meterRegistry);
+        try {
+            Claim local = inFlight.get(idempotencyKey);
+            if (local != null) {
+                local.done().get(remainingNanos, TimeUnit.NANOSECONDS);
+            } else {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remainingNanos, pollInterval.toNanos()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInFlightException();
+        } catch (ExecutionException | TimeoutException e) {
+            // The key is looked up again to find the outcome
+        } finally {
+            waitTimer.stop(meterRegistry.timer("api.idempotency.wait.time"));
+        }
+    }
+
+    private boolean claim(String idempotencyKey, String fingerprint, UUID token) {
+        Timer.Sample dbTimer = Timer.start(meterRegistry);
+        try {
+            List<S3UploadIdempotencyKeyEntity> claimed = repository.claim(idempotencyKey, fingerprint, token, ttl.toSeconds(), lease.toSeconds());
+            return !claimed.isEmpty();
+        } catch (Exception ex) {
+            log.error("Failed to claim idempotency key: {}. Error: {}", idempotencyKey, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            dbTimer.stop(meterRegistry.timer("db.claim-idempotency-key.time"));
+        }
+    }
+
+    private Optional<S3UploadIdempotencyKeyEntity> find(String idempotencyKey) {
+        Timer.Sample dbTimer = Timer.start(meterRegistry);
+        try {
+            return repository.findById(idempotencyKey);
+        } catch (Exception ex) {
+            log.error("Failed to retrieve idempotency key: {}. Error: {}", idempotencyKey, ex.getMessage(), ex);
+            throw new DatabaseConnectionException();
+        } finally {
+            dbTimer.stop(meterRegistry.timer("db.query-idempotency-key.time"));
+        }
+    }
+
+    /**
+     * Method to delete expired idempotency keys
+     */
+    @Scheduled(fixedDelayString = "${aws.s3.idempotency.purge-interval:10m}")
+    public void purgeExpired() {
+        try {
+            int deleted = repository.deleteAllExpired();
+            if (deleted > 0) {
+                log.info("Deleted {} expired idempotency keys", deleted);
+            }
+        } catch (Exception ex) {
+            log.error("Failed to delete expired idempotency keys. Error: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Claim held by an upload in flight on this instance
+     *
+     * @param token of the claim
+     * @param done completed once the outcome of the upload is recorded
+     */
+    private record Claim(UUID token, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration for in-process caches
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${cache.s3-object.maximum-size:10000}")
+    private long s3ObjectMaximumSize;
+
+    @Value("${cache.s3-object.ttl:30s}")
+    private Duration s3ObjectTtl;
+
+    /**
+     * Cache of S3 object metadata keyed by object Id. Hit, miss and eviction counts are
+     * published as cache.* meters tagged with cache=s3-object.
+     * <p>
+     * Writes only invalidate the cache of the instance serving them. Other instances can still return
+     * an object deleted elsewhere for at most the ttl after the delete.
+     */
+    @Bean
+    public Cache<String, S3ObjectDto> s3ObjectCache(MeterRegistry meterRegistry) {
+        Cache<String, S3ObjectDto> cache = Caffeine.newBuilder()
+                                                   .maximumSize(s3ObjectMaximumSize)
+                                                   .expireAfterWrite(s3ObjectTtl)
+                                                   .recordStats()
+                                                   .build();
+
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "s3-object");
+    }
+}
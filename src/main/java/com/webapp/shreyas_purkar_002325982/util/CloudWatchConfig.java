@@ -1,6 +1,5 @@
 package com.webapp.shreyas_purkar_002325982.util;
 
-import io.micrometer.cloudwatch2.CloudWatchMeterRegistry;
 import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,7 +8,9 @@ import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClientBuilder;
 
+import java.net.URI;
 import java.time.Duration;
 import java.util.Map;
 
@@ -19,21 +20,49 @@ public class CloudWatchConfig {
     @Value("${management.metrics.export.cloudwatch.region}")
     private String region;
 
+    @Value("${management.metrics.export.cloudwatch.endpoint:}")
+    private String endpoint;
+
+    @Value("${management.metrics.export.cloudwatch.namespace:WebAppMetrics}")
+    private String namespace;
+
+    @Value("${management.metrics.export.cloudwatch.step:30s}")
+    private Duration step;
+
+    @Value("${management.metrics.export.cloudwatch.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${management.metrics.export.cloudwatch.request-timeout:10s}")
+    private Duration requestTimeout;
+
+    @Value("${management.metrics.export.cloudwatch.spool.capacity:100000}")
+    private int spoolCapacity;
+
+    @Value("${management.metrics.export.cloudwatch.spool.drain-batches-per-step:5}")
+    private int drainBatchesPerStep;
+
+    /**
+     * CloudWatch client, sending to the endpoint override when one is configured, such as a local stand-in
+     */
     @Bean
     public CloudWatchAsyncClient cloudWatchAsyncClient() {
-        return CloudWatchAsyncClient
+        CloudWatchAsyncClientBuilder builder = CloudWatchAsyncClient
                 .builder()
                 .region(Region.of(region))
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
+                .credentialsProvider(DefaultCredentialsProvider.create());
+
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
     }
 
     @Bean
     public MeterRegistry meterRegistry(CloudWatchAsyncClient cloudWatchAsyncClient) {
         io.micrometer.cloudwatch2.CloudWatchConfig cloudWatchConfig = new io.micrometer.cloudwatch2.CloudWatchConfig() {
             private final Map<String, String> configMap = Map.of(
-                    "cloudwatch.namespace", "WebAppMetrics",
-                    "cloudwatch.step", Duration.ofSeconds(30).toString()
+                    "cloudwatch.namespace", namespace,
+                    "cloudwatch.step", step.toString()
             );
 
             @Override
@@ -42,6 +71,7 @@ public class CloudWatchConfig {
             }
         };
 
-        return new CloudWatchMeterRegistry(cloudWatchConfig, Clock.SYSTEM, cloudWatchAsyncClient);
+        return new CloudWatchStatisticSetRegistry(cloudWatchConfig, Clock.SYSTEM, cloudWatchAsyncClient, batchSize,
+                spoolCapacity, drainBatchesPerStep, requestTimeout);
     }
 }
@@ -0,0 +1,469 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import io.micrometer.cloudwatch2.CloudWatchConfig;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Statistic;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.HistogramGauges;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.pause.PauseDetector;
+import io.micrometer.core.instrument.step.StepDistributionSummary;
+import io.micrometer.core.instrument.step.StepMeterRegistry;
+import io.micrometer.core.instrument.step.StepTimer;
+import io.micrometer.core.instrument.step.StepValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.*;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Meter registry exporting to CloudWatch with one datum per meter and step. Timers and distribution
+ * summaries are sent as statistic sets instead of separate count, sum, average and max metrics, with
+ * the minimum of each step tracked next to Micrometer's own step values, and datums are sent in batches of up to the PutMetricData maximums of datums and payload size. Counters
+ * without increments in the step are not sent.
+ * <p>
+ * Batches that fail with throttling, a server error or a timeout are kept in a bounded spool with their
+ * original timestamps and are resent a limited number per step, oldest first, once the endpoint accepts
+ * data again. Batches rejected as invalid are dropped, resending them cannot succeed. Each request waits
+ * at most the request timeout, so a slow endpoint cannot hold up more than one export thread.
+ */
+public class CloudWatchStatisticSetRegistry extends StepMeterRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CloudWatchStatisticSetRegistry.class);
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * PutMetricData accepts request bodies up to 1MB, with room left for the request parameters
+     */
+    static final int MAX_PAYLOAD_BYTES = 1_000_000;
+
+    private static final int MAX_DIMENSIONS = 30;
+
+    private static final double MAX_VALUE = 1.174271e108;
+
+    private static final double MIN_VALUE = 8.515920e-109;
+
+    private final CloudWatchConfig config;
+
+    private final CloudWatchAsyncClient client;
+
+    private final int batchSize;
+
+    private final int spoolCapacity;
+
+    private final int drainBatchesPerStep;
+
+    private final Duration requestTimeout;
+
+    private final Deque<List<MetricDatum>> spool = new ArrayDeque<>();
+
+    private final AtomicLong spooledDatums = new AtomicLong();
+
+    private final AtomicLong droppedDatums = new AtomicLong();
+
+    public CloudWatchStatisticSetRegistry(CloudWatchConfig config, Clock clock, CloudWatchAsyncClient client, int batchSize,
+                                          int spoolCapacity, int drainBatchesPerStep, Duration requestTimeout) {
+        super(config, clock);
+        this.config = config;
+        this.client = client;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.spoolCapacity = spoolCapacity;
+        this.drainBatchesPerStep = drainBatchesPerStep;
+        this.requestTimeout = requestTimeout;
+
+        gauge("cloudwatch.export.spool.size", spooledDatums);
+        // Cumulative, a step counter would only show drops after the step they happened in rolled over
+        gauge("cloudwatch.export.dropped.count", droppedDatums);
+
+        start(S3Config.namedThreadFactory("cloudwatch-export-"));
+    }
+
+    @Override
+    protected TimeUnit getBaseTimeUnit() {
+        return TimeUnit.MILLISECONDS;
+    }
+
+    @Override
+    protected Timer newTimer(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig, PauseDetector pauseDetector) {
+        Timer timer = new StepMinTimer(id, clock, distributionStatisticConfig, pauseDetector, getBaseTimeUnit(),
+                                       config.step().toMillis());
+        HistogramGauges.registerWithCommonFormat(timer, this);
+        return timer;
+    }
+
+    @Override
+    protected DistributionSummary newDistributionSummary(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig,
+                                                         double scale) {
+        DistributionSummary summary = new StepMinDistributionSummary(id, clock, distributionStatisticConfig, scale,
+                                                                     config.step().toMillis());
+        HistogramGauges.registerWithCommonFormat(summary, this);
+        return summary;
+    }
+
+    /**
+     * Method to send the datums of the last step, then resend spooled batches while the endpoint accepts them
+     */
+    @Override
+    protected synchronized void publish() {
+        Instant timestamp = Instant.ofEpochMilli(clock.wallTime());
+        List<MetricDatum> data = getMeters().stream().flatMap(meter -> toData(meter, timestamp)).toList();
+
+        boolean available = true;
+        for (List<MetricDatum> batch : batches(data)) {
+            if (!available) {
+                spool(batch);
+                continue;
+            }
+
+            SendResult result = send(batch);
+            if (result == SendResult.RETRY) {
+                available = false;
+                spool(batch);
+            } else if (result == SendResult.REJECTED) {
+                drop(batch);
+            }
+        }
+
+        if (available) {
+            drainSpool();
+        }
+    }
+
+    /**
+     * Method to split datums into batches of at most the batch size and the payload limit
+     */
+    List<List<MetricDatum>> batches(List<MetricDatum> data) {
+        List<List<MetricDatum>> batches = new ArrayList<>();
+        List<MetricDatum> batch = new ArrayList<>();
+        int payloadBytes = 0;
+        for (MetricDatum datum : data) {
+            int datumBytes = payloadBytes(datum);
+            if (!batch.isEmpty() && (batch.size() == batchSize || payloadBytes + datumBytes > MAX_PAYLOAD_BYTES)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                payloadBytes = 0;
+            }
+            batch.add(datum);
+            payloadBytes += datumBytes;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Method to resend spooled batches, at most the configured number per step so a recovered endpoint
+     * is not flooded with the whole backlog at once
+     */
+    private void drainSpool() {
+        for (int i = 0; i < drainBatchesPerStep && !spool.isEmpty(); i++) {
+            List<MetricDatum> batch = spool.peekFirst();
+            SendResult result = send(batch);
+            if (result == SendResult.RETRY) {
+                return;
+            }
+            spool.pollFirst();
+            spooledDatums.addAndGet(-batch.size());
+            if (result == SendResult.REJECTED) {
+                drop(batch);
+            }
+        }
+        if (!spool.isEmpty()) {
+            log.info("{} datums remain spooled for CloudWatch namespace: {}", spooledDatums.get(), config.namespace());
+        }
+    }
+
+    /**
+     * Method to keep a batch that failed to send, dropping the oldest batches beyond the spool capacity
+     */
+    private void spool(List<MetricDatum> batch) {
+        spool.addLast(List.copyOf(batch));
+        spooledDatums.addAndGet(batch.size());
+
+        while (spooledDatums.get() > spoolCapacity && !spool.isEmpty()) {
+            List<MetricDatum> dropped = spool.pollFirst();
+            spooledDatums.addAndGet(-dropped.size());
+            droppedDatums.addAndGet(dropped.size());
+            log.warn("CloudWatch spool is full, dropped {} datums", dropped.size());
+        }
+    }
+
+    private void drop(List<MetricDatum> batch) {
+        droppedDatums.addAndGet(batch.size());
+    }
+
+    /**
+     * Method to send one batch with PutMetricData, waiting at most the request timeout
+     *
+     * @return SENT when the batch was accepted, RETRY when it failed with throttling, a server error, a
+     * timeout or a connection error, REJECTED when CloudWatch refused its content
+     */
+    private SendResult send(List<MetricDatum> batch) {
+        PutMetricDataRequest request = PutMetricDataRequest.builder()
+                                                           .namespace(config.namespace())
+                                                           .metricData(batch)
+                                                           .build();
+
+        CompletableFuture<PutMetricDataResponse> response = client.putMetricData(request);
+        try {
+            response.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            log.debug("Sent {} datums to CloudWatch namespace: {}", batch.size(), config.namespace());
+            return SendResult.SENT;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AwsServiceException error && !error.isThrottlingException() && error.statusCode() < 500) {
+                log.error("CloudWatch rejected {} datums for namespace: {}, dropping them. Error: {}", batch.size(), config.namespace(), error.getMessage());
+                return SendResult.REJECTED;
+            }
+            log.warn("Failed to send {} datums to CloudWatch namespace: {}. Error: {}", batch.size(), config.namespace(), e.getCause().getMessage());
+            return SendResult.RETRY;
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            log.warn("Timed out sending {} datums to CloudWatch namespace: {} after {}", batch.size(), config.namespace(), requestTimeout);
+            return SendResult.RETRY;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SendResult.RETRY;
+        }
+    }
+
+    /**
+     * Method to estimate the size of a datum in the form encoded request body, from its encoded names
+     * and values plus a fixed allowance per parameter for the parameter names and numbers
+     */
+    private static int payloadBytes(MetricDatum datum) {
+        int parameters = 4 + (datum.statisticValues() != null ? 4 : 1) + 2 * datum.dimensions().size();
+        int bytes = parameters * 64 + encodedLength(datum.metricName());
+        for (Dimension dimension : datum.dimensions()) {
+            bytes += encodedLength(dimension.name()) + encodedLength(dimension.value());
+        }
+        return bytes;
+    }
+
+    private static int encodedLength(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).length();
+    }
+
+    /**
+     * Method to convert a meter to its datums for the last step
+     */
+    private Stream<MetricDatum> toData(Meter meter, Instant timestamp) {
+        return meter.match(
+                gauge -> value(gauge.getId(), timestamp, gauge.value(), StandardUnit.NONE),
+                counter -> count(counter.getId(), timestamp, counter.count()),
+                timer -> statistics(timer.getId(), timestamp, timer.takeSnapshot(),
+                                    timer instanceof StepMinTimer stepMin ? stepMin.min(getBaseTimeUnit()) : Double.NaN,
+                                    StandardUnit.MILLISECONDS),
+                summary -> statistics(summary.getId(), timestamp, summary.takeSnapshot(),
+                                      summary instanceof StepMinDistributionSummary stepMin ? stepMin.min() : Double.NaN,
+                                      StandardUnit.NONE),
+                longTaskTimer -> Stream.concat(
+                        value(longTaskTimer.getId().withTag(Statistic.ACTIVE_TASKS), timestamp, longTaskTimer.activeTasks(), StandardUnit.COUNT),
+                        value(longTaskTimer.getId().withTag(Statistic.DURATION), timestamp, longTaskTimer.duration(getBaseTimeUnit()), StandardUnit.MILLISECONDS)),
+                timeGauge -> value(timeGauge.getId(), timestamp, timeGauge.value(getBaseTimeUnit()), StandardUnit.MILLISECONDS),
+                functionCounter -> count(functionCounter.getId(), timestamp, functionCounter.count()),
+                functionTimer -> {
+                    double count = functionTimer.count();
+                    double total = functionTimer.totalTime(getBaseTimeUnit());
+                    double mean = count > 0 ? total / count : 0;
+                    return statistics(functionTimer.getId(), timestamp, count, total, mean, mean, StandardUnit.MILLISECONDS);
+                },
+                other -> {
+                    List<MetricDatum> data = new ArrayList<>();
+                    for (Measurement measurement : other.measure()) {
+                        value(other.getId().withTag(measurement.getStatistic()), timestamp, measurement.getValue(), StandardUnit.NONE)
+                                .forEach(data::add);
+                    }
+                    return data.stream();
+                });
+    }
+
+    /**
+     * Method to convert a snapshot and the minimum of the step to a statistic set. Meters registered
+     * before this registry tracked their minimum report the mean, the only bound known for them.
+     */
+    private Stream<MetricDatum> statistics(Meter.Id id, Instant timestamp, HistogramSnapshot snapshot, double min,
+                                           StandardUnit unit) {
+        boolean timed = unit == StandardUnit.MILLISECONDS;
+        double total = timed ? snapshot.total(getBaseTimeUnit()) : snapshot.total();
+        double max = timed ? snapshot.max(getBaseTimeUnit()) : snapshot.max();
+
+        if (Double.isNaN(min)) {
+            min = snapshot.count() > 0 ? total / snapshot.count() : 0;
+        }
+        return statistics(id, timestamp, snapshot.count(), total, Math.min(min, max), max, unit);
+    }
+
+    private Stream<MetricDatum> statistics(Meter.Id id, Instant timestamp, double count, double sum, double min,
+                                           double max, StandardUnit unit) {
+        if (count <= 0) {
+            return Stream.empty();
+        }
+
+        StatisticSet statistics = StatisticSet.builder()
+                                              .sampleCount(count)
+                                              .sum(clamp(sum))
+                                              .minimum(clamp(min))
+                                              .maximum(clamp(max))
+                                              .build();
+        return Stream.of(datum(id, timestamp, unit).statisticValues(statistics).build());
+    }
+
+    /**
+     * Method to convert a count to a datum, counts without increments in the step are not sent
+     */
+    private Stream<MetricDatum> count(Meter.Id id, Instant timestamp, double count) {
+        return count > 0 ? value(id, timestamp, count, StandardUnit.COUNT) : Stream.empty();
+    }
+
+    private Stream<MetricDatum> value(Meter.Id id, Instant timestamp, double value, StandardUnit unit) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Stream.empty();
+        }
+        return Stream.of(datum(id, timestamp, unit).value(clamp(value)).build());
+    }
+
+    /**
+     * Method to start a datum, in high resolution when the step is shorter than a minute
+     */
+    private MetricDatum.Builder datum(Meter.Id id, Instant timestamp, StandardUnit unit) {
+        List<Dimension> dimensions = getConventionTags(id).stream()
+                                                          .filter(tag -> !tag.getValue().isBlank())
+                                                          .limit(MAX_DIMENSIONS)
+                                                          .map(tag -> Dimension.builder().name(tag.getKey()).value(tag.getValue()).build())
+                                                          .toList();
+
+        return MetricDatum.builder()
+                          .metricName(getConventionName(id))
+                          .dimensions(dimensions)
+                          .timestamp(timestamp)
+                          .unit(unit)
+                          .storageResolution(config.step().compareTo(Duration.ofMinutes(1)) < 0 ? 1 : 60);
+    }
+
+    /**
+     * Method to clamp a value to the range CloudWatch accepts
+     */
+    private static double clamp(double value) {
+        double magnitude = Math.abs(value);
+        if (magnitude > MAX_VALUE) {
+            return Math.copySign(MAX_VALUE, value);
+        }
+        return magnitude < MIN_VALUE ? 0 : value;
+    }
+
+    private enum SendResult {
+        SENT, RETRY, REJECTED
+    }
+
+    /**
+     * Smallest value recorded in a step, NaN for a step without values. Rolls over with the step like
+     * the counts and totals of the step meters.
+     */
+    private static class StepMin extends StepValue<Double> {
+
+        private final DoubleAccumulator current = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+
+        StepMin(Clock clock, long stepMillis) {
+            super(clock, stepMillis, Double.NaN);
+        }
+
+        void record(double value) {
+            current.accumulate(value);
+        }
+
+        @Override
+        protected Supplier<Double> valueSupplier() {
+            return () -> {
+                double min = current.getThenReset();
+                return min == Double.POSITIVE_INFINITY ? Double.NaN : min;
+            };
+        }
+
+        @Override
+        protected Double noValue() {
+            return Double.NaN;
+        }
+
+        void closingRollover() {
+            _closingRollover();
+        }
+    }
+
+    /**
+     * Step timer tracking the minimum duration of each step
+     */
+    private static class StepMinTimer extends StepTimer {
+
+        private final StepMin min;
+
+        StepMinTimer(Meter.Id id, Clock clock, DistributionStatisticConfig distributionStatisticConfig,
+                     PauseDetector pauseDetector, TimeUnit baseTimeUnit, long stepMillis) {
+            super(id, clock, distributionStatisticConfig, pauseDetector, baseTimeUnit, stepMillis, false);
+            this.min = new StepMin(clock, stepMillis);
+        }
+
+        @Override
+        protected void recordNonNegative(long amount, TimeUnit unit) {
+            super.recordNonNegative(amount, unit);
+            min.record(unit.toNanos(amount));
+        }
+
+        double min(TimeUnit unit) {
+            return min.poll() / unit.toNanos(1);
+        }
+
+        @Override
+        public void _closingRollover() {
+            super._closingRollover();
+            min.closingRollover();
+        }
+    }
+
+    /**
+     * Step distribution summary tracking the minimum amount of each step
+     */
+    private static class StepMinDistributionSummary extends StepDistributionSummary {
+
+        private final StepMin min;
+
+        StepMinDistributionSummary(Meter.Id id, Clock clock, DistributionStatisticConfig distributionStatisticConfig,
+                                   double scale, long stepMillis) {
+            super(id, clock, distributionStatisticConfig, scale, stepMillis, false);
+            this.min = new StepMin(clock, stepMillis);
+        }
+
+        @Override
+        protected void recordNonNegative(double amount) {
+            super.recordNonNegative(amount);
+            min.record(amount);
+        }
+
+        double min() {
+            return min.poll();
+        }
+
+        @Override
+        public void _closingRollover() {
+            super._closingRollover();
+            min.closingRollover();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.DelegatingS3Client;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.S3Request;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * S3 client that admits at most as many concurrent calls as the HTTP connection pool has connections.
+ * Callers beyond that wait on the semaphore, which parks virtual threads, instead of waiting for a
+ * connection inside the pool's monitor, which pins them to their carrier thread. Like the pool, a call
+ * that gets no permit within the connection acquisition timeout fails with an SdkClientException.
+ * <p>
+ * Streaming responses hold their connection until the body is read, their permit is only released
+ * once the response stream is closed or aborted.
+ */
+class ConcurrencyLimitedS3Client extends DelegatingS3Client {
+
+    private final Semaphore permits;
+
+    private final Duration connectionAcquisitionTimeout;
+
+    ConcurrencyLimitedS3Client(S3Client delegate, int maxConcurrentCalls, Duration connectionAcquisitionTimeout) {
+        super(delegate);
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.connectionAcquisitionTimeout = connectionAcquisitionTimeout;
+    }
+
+    @Override
+    protected <T extends S3Request, ReturnT> ReturnT invokeOperation(T request, Function<T, ReturnT> operation) {
+        acquirePermit();
+        ReturnT result = null;
+        try {
+            result = operation.apply(request);
+            return result instanceof ResponseInputStream<?> stream ? holdPermit(stream) : result;
+        } finally {
+            if (!(result instanceof ResponseInputStream<?>)) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Method to wait for a permit, at most for the connection acquisition timeout
+     */
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(connectionAcquisitionTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw SdkClientException.create("Timed out after " + connectionAcquisitionTimeout.toMillis()
+                        + " ms waiting for one of the S3 connections");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SdkClientException.create("Interrupted while waiting for one of the S3 connections", e);
+        }
+    }
+
+    /**
+     * Method to wrap a streaming response so its permit is released once the stream is closed or aborted
+     */
+    @SuppressWarnings("unchecked")
+    private <ReturnT, ResponseT> ReturnT holdPermit(ResponseInputStream<ResponseT> stream) {
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+
+        InputStream releasing = new FilterInputStream(stream) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    release.run();
+                }
+            }
+        };
+        AbortableInputStream abortable = AbortableInputStream.create(releasing, () -> {
+            try {
+                stream.abort();
+            } finally {
+                release.run();
+            }
+        });
+        return (ReturnT) new ResponseInputStream<>(stream.response(), abortable);
+    }
+}
@@ -0,0 +1,31 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * Configuration of multipart request parsing. Multipart bodies are parsed before the handler runs,
+ * except on the streaming upload endpoint, which reads the body itself.
+ */
+@Configuration
+public class MultipartConfig {
+
+    private static final String STREAM_UPLOAD_PATH = "/v2/file/stream";
+
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public StandardServletMultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                return !isStreamUpload(request) && super.isMultipart(request);
+            }
+        };
+    }
+
+    private static boolean isStreamUpload(HttpServletRequest request) {
+        return request.getRequestURI().equals(request.getContextPath() + STREAM_UPLOAD_PATH);
+    }
+}
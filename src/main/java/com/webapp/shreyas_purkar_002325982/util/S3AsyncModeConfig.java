@@ -0,0 +1,26 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Guard for the S3 async mode. Async uploads are written straight to S3 under their own key, so the
+ * mode fails startup with a storage backend or storage options it would silently bypass.
+ */
+@Configuration
+@ConditionalOnProperty(name = "aws.s3.async.enabled", havingValue = "true")
+public class S3AsyncModeConfig {
+
+    public S3AsyncModeConfig(@Value("${storage.backend:s3}") String storageBackend,
+                             @Value("${storage.dedup.enabled:false}") boolean dedupEnabled) {
+        if (!"s3".equals(storageBackend)) {
+            throw new IllegalStateException("aws.s3.async.enabled requires storage.backend=s3, configured backend is "
+                    + storageBackend);
+        }
+        if (dedupEnabled) {
+            throw new IllegalStateException("aws.s3.async.enabled cannot be combined with storage.dedup.enabled, "
+                    + "async uploads are not indexed by their content digest");
+        }
+    }
+}
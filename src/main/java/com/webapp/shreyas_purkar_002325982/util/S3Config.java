@@ -0,0 +1,131 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration for S3 client and upload executors
+ */
+@Configuration
+public class S3Config {
+
+    @Value("${aws.s3.region}")
+    private String region;
+
+    @Value("${aws.s3.multipart.threads:8}")
+    private int multipartThreads;
+
+    @Value("${aws.s3.multipart.part-size:8MB}")
+    private DataSize multipartPartSize;
+
+    @Value("${aws.s3.async.target-throughput-gbps:5.0}")
+    private double asyncTargetThroughputGbps;
+
+    @Value("${aws.s3.async.worker-threads:16}")
+    private int asyncWorkerThreads;
+
+    @Value("${aws.s3.batch.threads:16}")
+    private int batchThreads;
+
+    @Value("${aws.s3.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${aws.s3.connection-acquisition-timeout:10s}")
+    private Duration connectionAcquisitionTimeout;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    /**
+     * Blocking S3 client. With virtual threads, calls are limited to the connection pool size so
+     * they never wait for a connection inside the pool.
+     */
+    @Bean
+    public S3Client s3Client() {
+        S3Client client = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClientBuilder(ApacheHttpClient.builder()
+                                                   .maxConnections(maxConnections)
+                                                   .connectionAcquisitionTimeout(connectionAcquisitionTimeout))
+                .build();
+
+        return virtualThreadsEnabled
+                ? new ConcurrencyLimitedS3Client(client, maxConnections, connectionAcquisitionTimeout)
+                : client;
+    }
+
+    /**
+     * Presigner for requests sent to S3 directly by clients
+     */
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .build();
+    }
+
+    /**
+     * Bounded executor shared by all multipart uploads for uploading individual parts
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService s3MultipartExecutor() {
+        return Executors.newFixedThreadPool(multipartThreads, namedThreadFactory("s3-multipart-"));
+    }
+
+    /**
+     * Bounded executor for uploading the files of a batch upload concurrently
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService s3BatchExecutor() {
+        return Executors.newFixedThreadPool(batchThreads, namedThreadFactory("s3-batch-"));
+    }
+
+    /**
+     * Non-blocking CRT based S3 client, only created when the async mode is enabled
+     */
+    @Bean
+    @ConditionalOnProperty(name = "aws.s3.async.enabled", havingValue = "true")
+    public S3AsyncClient s3AsyncClient() {
+        return S3AsyncClient.crtBuilder()
+                .region(Region.of(region))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .targetThroughputInGbps(asyncTargetThroughputGbps)
+                .minimumPartSizeInBytes(multipartPartSize.toBytes())
+                .build();
+    }
+
+    /**
+     * Bounded executor for the blocking work of the async mode, such as reading uploaded files and database calls
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "aws.s3.async.enabled", havingValue = "true")
+    public ExecutorService s3AsyncWorkerExecutor() {
+        return Executors.newFixedThreadPool(asyncWorkerThreads, namedThreadFactory("s3-async-worker-"));
+    }
+
+    public static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
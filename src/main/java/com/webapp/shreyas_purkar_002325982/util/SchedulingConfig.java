@@ -0,0 +1,12 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration to enable scheduled maintenance tasks
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,28 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Guard for the virtual thread mode. Spring Boot silently falls back to platform threads on a
+ * runtime older than Java 21, so the mode fails startup there instead.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    private static final int MIN_JAVA_VERSION = 21;
+
+    public VirtualThreadConfig() {
+        int javaVersion = Runtime.version().feature();
+        if (javaVersion < MIN_JAVA_VERSION) {
+            throw new IllegalStateException("Virtual threads require Java " + MIN_JAVA_VERSION
+                    + " or newer, running on Java " + javaVersion);
+        }
+        log.info("Serving requests on virtual threads on Java {}", javaVersion);
+    }
+}
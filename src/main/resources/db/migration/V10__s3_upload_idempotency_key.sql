@@ -0,0 +1,13 @@
+-- Idempotency keys of uploads. A key is claimed with object_id null while its upload is in flight and
+-- records the created object once it completes. lease_expires_at lets a retry take over the key of an
+-- upload whose instance died, expired keys are purged and can be used again.
+CREATE TABLE s3_upload_idempotency_key (
+    idempotency_key  text        PRIMARY KEY,
+    created_at       timestamptz NOT NULL DEFAULT now(),
+    expires_at       timestamptz NOT NULL,
+    lease_expires_at timestamptz NOT NULL,
+    fingerprint      text        NOT NULL,
+    object_id        uuid
+);
+
+CREATE INDEX s3_upload_idempotency_key_expires_at_idx ON s3_upload_idempotency_key (expires_at);
@@ -0,0 +1,6 @@
+-- Index for walking the metadata in storage key order, keys compare bytewise like S3 listings
+CREATE INDEX s3_object_metadata_object_key_idx
+    ON s3_object_metadata ((coalesce(storage_key, object_id::text || '/' || file_name) COLLATE "C"), object_id);
+
+-- Index for looking up queued keys while reconciling
+CREATE INDEX s3_delete_queue_object_key_idx ON s3_delete_queue (object_key);
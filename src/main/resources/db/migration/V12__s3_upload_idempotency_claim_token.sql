@@ -0,0 +1,5 @@
+-- Token of the request holding an idempotency key. Only the holder completes, releases or renews the
+-- lease of its claim, a request whose lease was taken over cannot overwrite the new holder's outcome.
+ALTER TABLE s3_upload_idempotency_key ADD COLUMN claim_token uuid;
+
+CREATE INDEX s3_upload_idempotency_key_claim_token_idx ON s3_upload_idempotency_key (claim_token);
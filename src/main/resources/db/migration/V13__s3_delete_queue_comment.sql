@@ -0,0 +1,6 @@
+-- The delete queue also holds the compensating deletes reserved before uploads. V6 is applied and keeps its
+-- checksum, the dual use is documented on the table instead.
+COMMENT ON TABLE s3_delete_queue IS
+    'S3 keys to delete. Entries are either queued deletes of objects whose metadata is gone, due right away, '
+    'or compensating deletes reserved before an upload, due after the grace period unless the upload removes '
+    'them together with inserting its metadata. Reservations that are not due yet are not backlog.';
@@ -0,0 +1,109 @@
+-- Partition maintenance without blocking the health check table. Instances serialize maintenance on an
+-- advisory lock, daily partitions are attached once the rows of their day are moved out of the default
+-- partition, and expired partitions are rolled up first and detached concurrently and dropped afterwards.
+
+-- Rolled up partitions waiting to be detached and dropped, a partition is never rolled up twice
+CREATE TABLE health_check_rolled_up (
+    partition_name text PRIMARY KEY,
+    rolled_up_at   timestamptz NOT NULL DEFAULT now()
+);
+
+-- Creates the daily partition containing the given day, returns whether it was created. Rows of the day
+-- caught by the default partition would fail the attach, they are moved into the new partition first.
+CREATE OR REPLACE FUNCTION create_health_check_partition(day date) RETURNS boolean
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    partition_name text        := 'health_check_p' || to_char(day, 'YYYYMMDD');
+    lower_bound    timestamptz := day::timestamp AT TIME ZONE 'UTC';
+    upper_bound    timestamptz := (day + 1)::timestamp AT TIME ZONE 'UTC';
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    -- Keeps inserts from adding rows of the day to the default partition until the partition is attached
+    LOCK TABLE health_check_default IN SHARE ROW EXCLUSIVE MODE;
+
+    EXECUTE format('CREATE TABLE %I (LIKE health_check INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM health_check_default WHERE datetime >= %L AND datetime < %L '
+                       || 'RETURNING check_id, datetime, probe_count) '
+                       || 'INSERT INTO %I (check_id, datetime, probe_count) SELECT check_id, datetime, probe_count FROM moved',
+                   lower_bound, upper_bound, partition_name);
+    -- Proves the range of the new table, so the attach does not scan it
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (datetime >= %L AND datetime < %L)',
+                   partition_name, partition_name || '_range', lower_bound, upper_bound);
+    EXECUTE format('ALTER TABLE health_check ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, lower_bound, upper_bound);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+    RETURN true;
+END
+$$;
+
+-- Creates the daily partitions from today up to days_ahead days in the future, returns the number created
+CREATE OR REPLACE FUNCTION ensure_health_check_partitions(days_ahead integer) RETURNS integer
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    today   date    := (now() AT TIME ZONE 'UTC')::date;
+    created integer := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('health_check_maintenance'));
+
+    FOR offset_days IN 0..days_ahead LOOP
+        IF create_health_check_partition(today + offset_days) THEN
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- Rolls the daily partitions older than retention_days up into health_check_rollup and records them to be
+-- dropped, returns the number of rolled up partitions. Expired rows of the default partition are rolled up
+-- and deleted, it only holds rows outside of the daily partitions.
+CREATE OR REPLACE FUNCTION roll_up_health_check(retention_days integer) RETURNS integer
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    cutoff    date    := (now() AT TIME ZONE 'UTC')::date - retention_days;
+    expired   record;
+    rolled_up integer := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('health_check_maintenance'));
+
+    FOR expired IN
+        SELECT child.relname AS name
+        FROM pg_inherits
+                 JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                 JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+        WHERE parent.oid = 'health_check'::regclass
+          AND child.relname ~ '^health_check_p[0-9]{8}$'
+          AND to_date(substring(child.relname FROM 15), 'YYYYMMDD') < cutoff
+          AND NOT EXISTS (SELECT 1 FROM health_check_rolled_up WHERE partition_name = child.relname)
+        ORDER BY child.relname
+    LOOP
+        EXECUTE format('INSERT INTO health_check_rollup (minute, check_count, probe_count) '
+                           || 'SELECT date_trunc(''minute'', datetime), count(*), sum(probe_count) FROM %I GROUP BY 1 '
+                           || 'ON CONFLICT (minute) DO UPDATE SET check_count = health_check_rollup.check_count + excluded.check_count, '
+                           || 'probe_count = health_check_rollup.probe_count + excluded.probe_count',
+                       expired.name);
+        INSERT INTO health_check_rolled_up (partition_name) VALUES (expired.name);
+        rolled_up := rolled_up + 1;
+    END LOOP;
+
+    WITH expired_rows AS (
+        DELETE FROM health_check_default
+        WHERE datetime < cutoff::timestamp AT TIME ZONE 'UTC'
+        RETURNING datetime, probe_count
+    )
+    INSERT INTO health_check_rollup (minute, check_count, probe_count)
+    SELECT date_trunc('minute', datetime), count(*), sum(probe_count)
+    FROM expired_rows
+    GROUP BY 1
+    ON CONFLICT (minute) DO UPDATE SET check_count = health_check_rollup.check_count + excluded.check_count,
+                                       probe_count = health_check_rollup.probe_count + excluded.probe_count;
+
+    RETURN rolled_up;
+END
+$$;
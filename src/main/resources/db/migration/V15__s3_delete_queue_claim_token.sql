@@ -0,0 +1,5 @@
+-- Token of the reaper batch that claimed an entry last. Claiming is a plain update, the claimed entries
+-- are read back by their token.
+ALTER TABLE s3_delete_queue ADD COLUMN claim_token uuid;
+
+CREATE INDEX s3_delete_queue_claim_token_idx ON s3_delete_queue (claim_token);
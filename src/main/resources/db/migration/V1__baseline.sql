@@ -0,0 +1,52 @@
+-- Schema as previously created by hibernate ddl-auto=update, existing databases already have it.
+-- Column names are the baseline entity's @Column names passed through Spring Boot's default
+-- CamelCaseToUnderscoresNamingStrategy: ContentLength -> content_length, ETag -> etag,
+-- LastModified -> last_modified. The request id columns keep their header names, which postgres
+-- only accepts quoted, so databases where hibernate could not add them may lack them.
+CREATE TABLE IF NOT EXISTS health_check (
+    check_id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    datetime timestamp(6) with time zone NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS s3_object_metadata (
+    id                     bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    accept_ranges          varchar(255),
+    "x-amz-request-id"     varchar(255),
+    content_length         bigint                      NOT NULL,
+    content_type           varchar(255)                NOT NULL,
+    etag                   varchar(255),
+    "x-amz-id-2"           varchar(255),
+    file_name              varchar(255)                NOT NULL,
+    last_modified          varchar(255),
+    object_id              varchar(255)                NOT NULL,
+    server_side_encryption varchar(255),
+    upload_date            timestamp(6) with time zone NOT NULL,
+    url                    varchar(255)                NOT NULL
+);
+
+-- Verify an existing table has every column V2 copies, so a schema that differs from the one above
+-- fails here with the columns it actually has instead of half way through V2
+DO
+$$
+DECLARE
+    missing text;
+BEGIN
+    SELECT string_agg(required.column_name, ', ')
+    INTO missing
+    FROM unnest(ARRAY ['id', 'object_id', 'upload_date', 'last_modified', 'content_length', 'file_name',
+                       'content_type', 'etag', 'accept_ranges', 'server_side_encryption']) AS required(column_name)
+    WHERE NOT EXISTS (SELECT 1
+                      FROM information_schema.columns c
+                      WHERE c.table_schema = current_schema()
+                        AND c.table_name = 's3_object_metadata'
+                        AND c.column_name = required.column_name);
+
+    IF missing IS NOT NULL THEN
+        RAISE EXCEPTION 's3_object_metadata lacks columns: %. Existing columns: %', missing,
+            (SELECT string_agg(c.column_name, ', ' ORDER BY c.ordinal_position)
+             FROM information_schema.columns c
+             WHERE c.table_schema = current_schema()
+               AND c.table_name = 's3_object_metadata');
+    END IF;
+END
+$$;
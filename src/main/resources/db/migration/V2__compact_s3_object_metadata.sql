@@ -0,0 +1,64 @@
+-- Rewrite s3_object_metadata into a compact layout:
+--  * object_id as native uuid with a unique index, so lookups are index scans
+--  * last_modified as a typed timestamp
+--  * url dropped, it is always bucket + '/' + object_id + '/' + file_name
+--  * fixed width columns first to avoid alignment padding, plain snake_case names
+CREATE TABLE s3_object_metadata_compact (
+    id                     bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    object_id              uuid        NOT NULL,
+    upload_date            timestamptz NOT NULL,
+    last_modified          timestamptz,
+    content_length         bigint      NOT NULL,
+    file_name              text        NOT NULL,
+    content_type           text        NOT NULL,
+    etag                   text,
+    accept_ranges          text,
+    server_side_encryption text,
+    aws_request_id         text,
+    extended_request_id    text
+);
+
+INSERT INTO s3_object_metadata_compact (id, object_id, upload_date, last_modified, content_length, file_name,
+                                        content_type, etag, accept_ranges, server_side_encryption)
+SELECT id,
+       object_id::uuid,
+       upload_date,
+       NULLIF(last_modified, 'null')::timestamptz,
+       content_length,
+       file_name,
+       content_type,
+       etag,
+       accept_ranges,
+       server_side_encryption
+FROM s3_object_metadata;
+
+-- The request id columns only exist where hibernate managed to add them, they are copied when present
+DO
+$$
+DECLARE
+    legacy record;
+BEGIN
+    FOR legacy IN
+        SELECT c.column_name, target.column_name AS target_name
+        FROM (VALUES ('x-amz-request-id', 'aws_request_id'),
+                     ('x-amz-id-2', 'extended_request_id')) AS target(legacy_name, column_name)
+        JOIN information_schema.columns c
+          ON c.table_schema = current_schema()
+         AND c.table_name = 's3_object_metadata'
+         AND c.column_name = target.legacy_name
+    LOOP
+        EXECUTE format('UPDATE s3_object_metadata_compact c SET %I = m.%I FROM s3_object_metadata m WHERE m.id = c.id',
+                       legacy.target_name, legacy.column_name);
+    END LOOP;
+END
+$$;
+
+DROP TABLE s3_object_metadata;
+
+ALTER TABLE s3_object_metadata_compact RENAME TO s3_object_metadata;
+ALTER INDEX s3_object_metadata_compact_pkey RENAME TO s3_object_metadata_pkey;
+ALTER SEQUENCE s3_object_metadata_compact_id_seq RENAME TO s3_object_metadata_id_seq;
+
+SELECT setval('s3_object_metadata_id_seq', COALESCE(MAX(id), 0) + 1, false) FROM s3_object_metadata;
+
+CREATE UNIQUE INDEX s3_object_metadata_object_id_key ON s3_object_metadata (object_id);
@@ -0,0 +1,2 @@
+-- Health checks are coalesced, each row now stands for all probes answered by the previous check
+ALTER TABLE health_check ADD COLUMN probe_count bigint NOT NULL DEFAULT 1;
@@ -0,0 +1,101 @@
+-- Range partition health_check by day so expired history is dropped a partition at a time
+-- instead of deleted row by row. Expired partitions are first rolled up into per-minute counts.
+ALTER TABLE health_check RENAME TO health_check_legacy;
+ALTER TABLE health_check_legacy RENAME CONSTRAINT health_check_pkey TO health_check_legacy_pkey;
+ALTER SEQUENCE health_check_check_id_seq RENAME TO health_check_legacy_check_id_seq;
+
+CREATE TABLE health_check (
+    check_id    bigserial,
+    datetime    timestamptz NOT NULL,
+    probe_count bigint      NOT NULL DEFAULT 1,
+    PRIMARY KEY (check_id, datetime)
+) PARTITION BY RANGE (datetime);
+
+-- Catches rows outside of the created daily partitions, so inserts never fail
+CREATE TABLE health_check_default PARTITION OF health_check DEFAULT;
+
+CREATE TABLE health_check_rollup (
+    minute      timestamptz PRIMARY KEY,
+    check_count bigint NOT NULL,
+    probe_count bigint NOT NULL
+);
+
+-- Creates the daily partition containing the given day, returns whether it was created
+CREATE FUNCTION create_health_check_partition(day date) RETURNS boolean
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    partition_name text := 'health_check_p' || to_char(day, 'YYYYMMDD');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF health_check FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, day::timestamp AT TIME ZONE 'UTC', (day + 1)::timestamp AT TIME ZONE 'UTC');
+    RETURN true;
+END
+$$;
+
+-- Creates the daily partitions from today up to days_ahead days in the future, returns the number created
+CREATE FUNCTION ensure_health_check_partitions(days_ahead integer) RETURNS integer
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    today   date    := (now() AT TIME ZONE 'UTC')::date;
+    created integer := 0;
+BEGIN
+    FOR offset_days IN 0..days_ahead LOOP
+        IF create_health_check_partition(today + offset_days) THEN
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- Rolls the daily partitions older than retention_days up into health_check_rollup and drops them,
+-- returns the number of dropped partitions
+CREATE FUNCTION roll_up_health_check(retention_days integer) RETURNS integer
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    cutoff    date    := (now() AT TIME ZONE 'UTC')::date - retention_days;
+    expired   record;
+    dropped   integer := 0;
+BEGIN
+    FOR expired IN
+        SELECT child.relname AS name
+        FROM pg_inherits
+                 JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                 JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+        WHERE parent.oid = 'health_check'::regclass
+          AND child.relname ~ '^health_check_p[0-9]{8}$'
+          AND to_date(substring(child.relname FROM 15), 'YYYYMMDD') < cutoff
+        ORDER BY child.relname
+    LOOP
+        EXECUTE format('INSERT INTO health_check_rollup (minute, check_count, probe_count) '
+                           || 'SELECT date_trunc(''minute'', datetime), count(*), sum(probe_count) FROM %I GROUP BY 1 '
+                           || 'ON CONFLICT (minute) DO UPDATE SET check_count = health_check_rollup.check_count + excluded.check_count, '
+                           || 'probe_count = health_check_rollup.probe_count + excluded.probe_count',
+                       expired.name);
+        EXECUTE format('DROP TABLE %I', expired.name);
+        dropped := dropped + 1;
+    END LOOP;
+    RETURN dropped;
+END
+$$;
+
+-- Move existing rows into daily partitions
+SELECT create_health_check_partition(day)
+FROM (SELECT DISTINCT (datetime AT TIME ZONE 'UTC')::date AS day FROM health_check_legacy) days;
+
+SELECT ensure_health_check_partitions(7);
+
+INSERT INTO health_check (check_id, datetime, probe_count)
+SELECT check_id, datetime, probe_count
+FROM health_check_legacy;
+
+SELECT setval('health_check_check_id_seq', COALESCE(MAX(check_id), 0) + 1, false) FROM health_check;
+
+DROP TABLE health_check_legacy;
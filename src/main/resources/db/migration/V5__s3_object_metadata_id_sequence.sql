@@ -0,0 +1,7 @@
+-- Replace the identity column by a pooled sequence so Hibernate can assign ids ahead of time and
+-- batch the inserts of a batch upload into a single JDBC batch
+ALTER TABLE s3_object_metadata ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE s3_object_metadata_id_seq INCREMENT BY 50 OWNED BY s3_object_metadata.id;
+
+SELECT setval('s3_object_metadata_id_seq', COALESCE(MAX(id), 0) + 50, false) FROM s3_object_metadata;
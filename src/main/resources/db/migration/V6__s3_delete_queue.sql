@@ -0,0 +1,11 @@
+-- Durable queue of S3 keys whose metadata is already deleted, drained by the delete reaper
+CREATE TABLE s3_delete_queue (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    enqueued_at     timestamptz NOT NULL DEFAULT now(),
+    next_attempt_at timestamptz NOT NULL DEFAULT now(),
+    attempts        integer     NOT NULL DEFAULT 0,
+    object_key      text        NOT NULL,
+    last_error      text
+);
+
+CREATE INDEX s3_delete_queue_next_attempt_at_idx ON s3_delete_queue (next_attempt_at);
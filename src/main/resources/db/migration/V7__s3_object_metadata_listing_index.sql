@@ -0,0 +1,2 @@
+-- Index for keyset pagination of the listing, newest first on (upload_date, id)
+CREATE INDEX s3_object_metadata_upload_date_id_idx ON s3_object_metadata (upload_date, id);
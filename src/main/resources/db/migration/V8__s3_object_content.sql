@@ -0,0 +1,17 @@
+-- Content-addressed index of stored objects. Uploads with the same SHA-256 digest share one stored
+-- object, ref_count counts the metadata rows pointing at it. Rows with ref_count 0 are released
+-- objects waiting for deletion, they are never shared again and are replaced by the next upload.
+CREATE TABLE s3_object_content (
+    digest         text        PRIMARY KEY,
+    created_at     timestamptz NOT NULL DEFAULT now(),
+    content_length bigint      NOT NULL,
+    ref_count      integer     NOT NULL,
+    object_key     text        NOT NULL,
+    etag           text
+);
+
+CREATE INDEX s3_object_content_unreferenced_idx ON s3_object_content (digest) WHERE ref_count = 0;
+
+-- Deduplicated rows point at the shared object, other rows keep the object_id/file_name key
+ALTER TABLE s3_object_metadata ADD COLUMN storage_key text;
+ALTER TABLE s3_object_metadata ADD COLUMN content_digest text;
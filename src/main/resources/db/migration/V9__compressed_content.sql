@@ -0,0 +1,8 @@
+-- Compressed uploads record the encoding of the stored bytes and their length, content_length
+-- keeps the length of the original upload
+ALTER TABLE s3_object_metadata ADD COLUMN content_encoding text;
+ALTER TABLE s3_object_metadata ADD COLUMN stored_length bigint;
+
+-- Shared objects are stored with the encoding chosen for their first upload
+ALTER TABLE s3_object_content ADD COLUMN content_encoding text;
+ALTER TABLE s3_object_content ADD COLUMN stored_length bigint;
@@ -0,0 +1,86 @@
+package com.webapp.shreyas_purkar_002325982.rest.resource;
+
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.service.S3Service;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.*;
+import static org.hamcrest.Matchers.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+                properties = "aws.s3.delete.max-ids-per-request=3")
+public class S3BulkDeleteApiTest {
+
+    @LocalServerPort
+    private Integer port;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.baseURI = "http://localhost";
+        RestAssured.port = port;
+    }
+
+    @Test
+    void deleteObjects_SameIdInDifferentCase_ReportsEachId() {
+        S3ObjectDto object = upload("case.txt");
+        String id = object.getObjectId();
+        String upperCaseId = id.toUpperCase();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of(id, upperCaseId, id))
+        .when()
+                .post("/v2/file/delete")
+        .then()
+                .statusCode(200)
+                .body("objectId", contains(id, upperCaseId))
+                .body("status", contains(204, 204));
+    }
+
+    @Test
+    void deleteObjects_UnknownId_RespondsWithMultiStatus() {
+        String id = UUID.randomUUID().toString();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of(id, "not-an-id"))
+        .when()
+                .post("/v2/file/delete")
+        .then()
+                .statusCode(207)
+                .body("status", contains(404, 404));
+    }
+
+    @Test
+    void deleteObjects_MoreIdsThanAccepted_RespondsWithBadRequest() {
+        List<String> ids = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                                   UUID.randomUUID().toString(), UUID.randomUUID().toString());
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(ids)
+        .when()
+                .post("/v2/file/delete")
+        .then()
+                .statusCode(400);
+    }
+
+    private S3ObjectDto upload(String fileName) {
+        byte[] content = (fileName + " " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        return s3Service.uploadObject(new MockMultipartFile("file", fileName, "text/plain", content));
+    }
+}
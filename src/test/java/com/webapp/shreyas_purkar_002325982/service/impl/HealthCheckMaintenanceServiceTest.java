@@ -0,0 +1,57 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.service.HealthCheckMaintenanceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "health.check.retention=7d")
+public class HealthCheckMaintenanceServiceTest {
+
+    @Autowired
+    private HealthCheckMaintenanceService maintenanceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void maintainPartitions_ExpiredPartition_RolledUpAndDropped() {
+        LocalDate day = LocalDate.now(ZoneOffset.UTC).minusDays(30);
+        String partition = "health_check_p" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+        OffsetDateTime checkedAt = day.atTime(12, 30, 15).atOffset(ZoneOffset.UTC);
+
+        jdbcTemplate.queryForObject("select create_health_check_partition(?::date)", Boolean.class, day.toString());
+        jdbcTemplate.update("insert into health_check (datetime, probe_count) values (?, 3)", checkedAt);
+        assertTrue(isAttached(partition));
+
+        // The scheduled run on startup may hold the maintenance lock, the drop is then left to the next run
+        for (int run = 0; run < 5 && partitionExists(partition); run++) {
+            maintenanceService.maintainPartitions();
+        }
+
+        assertFalse(partitionExists(partition));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from health_check_rolled_up where partition_name = ?", Integer.class, partition));
+        assertTrue(jdbcTemplate.queryForObject(
+                "select probe_count from health_check_rollup where minute = ?", Long.class,
+                checkedAt.withSecond(0)) >= 3);
+    }
+
+    private boolean partitionExists(String partition) {
+        return jdbcTemplate.queryForObject("select to_regclass(?) is not null", Boolean.class, partition);
+    }
+
+    private boolean isAttached(String partition) {
+        return jdbcTemplate.queryForObject(
+                "select exists (select 1 from pg_inherits where inhparent = 'health_check'::regclass and inhrelid = to_regclass(?))",
+                Boolean.class, partition);
+    }
+}
@@ -0,0 +1,53 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class S3ContentCompressorTest {
+
+    @Test
+    void isAccepted_ExplicitEntryOverridesWildcard() {
+        assertFalse(S3ContentCompressor.isAccepted("gzip;q=0, *", "gzip"));
+        assertFalse(S3ContentCompressor.isAccepted("*, gzip;q=0", "gzip"));
+        assertTrue(S3ContentCompressor.isAccepted("gzip;q=0.5, *;q=0", "gzip"));
+    }
+
+    @Test
+    void isAccepted_WildcardAppliesWithoutExplicitEntry() {
+        assertTrue(S3ContentCompressor.isAccepted("br, *", "gzip"));
+        assertFalse(S3ContentCompressor.isAccepted("br, *;q=0", "gzip"));
+        assertFalse(S3ContentCompressor.isAccepted("br, deflate", "gzip"));
+        assertFalse(S3ContentCompressor.isAccepted(null, "gzip"));
+    }
+
+    @Test
+    void isAccepted_InvalidQuality_RejectsEntry() {
+        assertFalse(S3ContentCompressor.isAccepted("gzip;q=high", "gzip"));
+        assertTrue(S3ContentCompressor.isAccepted("GZIP;q=1", "gzip"));
+    }
+
+    @Test
+    void gzipCompressingInputStream_ReadByteAtATime_RoundTrips() throws IOException {
+        byte[] content = "compressible content ".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (InputStream stream = new GzipCompressingInputStream(new ByteArrayInputStream(content), 64, 6)) {
+            int read;
+            while ((read = stream.read()) != -1) {
+                compressed.write(read);
+            }
+        }
+
+        try (InputStream decompressed = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(content, decompressed.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.entity.S3ObjectContentEntity;
+import com.webapp.shreyas_purkar_002325982.exception.S3ObjectNotFoundException;
+import com.webapp.shreyas_purkar_002325982.repository.S3DeleteQueueRepository;
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectContentRepository;
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectMetadataRepository;
+import com.webapp.shreyas_purkar_002325982.service.S3Service;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "storage.dedup.enabled=true")
+public class S3ContentIndexTest {
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private S3ObjectMetadataRepository metadataRepository;
+
+    @Autowired
+    private S3ObjectContentRepository contentRepository;
+
+    @Autowired
+    private S3DeleteQueueRepository deleteQueueRepository;
+
+    @Autowired
+    private S3DeleteReaper deleteReaper;
+
+    @Test
+    void dedup_ReferencesAreCountedAndLastReleaseQueuesTheObject() {
+        byte[] content = ("dedup lifecycle " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        String digest = sha256(content);
+
+        S3ObjectDto first = s3Service.uploadObject(new MockMultipartFile("file", "first.txt", "text/plain", content));
+        S3ObjectDto second = s3Service.uploadObject(new MockMultipartFile("file", "second.txt", "text/plain", content));
+
+        String key = storageKey(first);
+        assertEquals(key, storageKey(second));
+        assertEquals(2, content(digest).getRefCount());
+
+        s3Service.deleteObject(first.getObjectId());
+        assertEquals(1, content(digest).getRefCount());
+        assertTrue(deleteQueueRepository.findQueuedKeys(List.of(key)).isEmpty());
+        assertNotNull(storage.headObject(key));
+
+        s3Service.deleteObject(second.getObjectId());
+        assertEquals(0, content(digest).getRefCount());
+        assertEquals(List.of(key), deleteQueueRepository.findQueuedKeys(List.of(key)));
+
+        deleteReaper.drain();
+        assertThrows(S3ObjectNotFoundException.class, () -> storage.headObject(key));
+        assertTrue(contentRepository.findById(digest).isEmpty());
+        assertTrue(deleteQueueRepository.findQueuedKeys(List.of(key)).isEmpty());
+    }
+
+    @Test
+    void dedup_BulkDeleteReleasesAllReferences() {
+        byte[] content = ("dedup bulk delete " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        String digest = sha256(content);
+
+        S3ObjectDto first = s3Service.uploadObject(new MockMultipartFile("file", "first.txt", "text/plain", content));
+        S3ObjectDto second = s3Service.uploadObject(new MockMultipartFile("file", "second.txt", "text/plain", content));
+        String key = storageKey(first);
+
+        s3Service.deleteObjects(List.of(first.getObjectId(), second.getObjectId()));
+
+        assertEquals(0, content(digest).getRefCount());
+        assertEquals(List.of(key), deleteQueueRepository.findQueuedKeys(List.of(key)));
+    }
+
+    @Test
+    void dedup_ReleasedContentIsStoredAgainOnNextUpload() {
+        byte[] content = ("dedup reupload " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        String digest = sha256(content);
+
+        S3ObjectDto first = s3Service.uploadObject(new MockMultipartFile("file", "first.txt", "text/plain", content));
+        String releasedKey = storageKey(first);
+        s3Service.deleteObject(first.getObjectId());
+
+        S3ObjectDto second = s3Service.uploadObject(new MockMultipartFile("file", "second.txt", "text/plain", content));
+
+        assertNotEquals(releasedKey, storageKey(second));
+        assertEquals(1, content(digest).getRefCount());
+
+        deleteReaper.drain();
+        assertNotNull(storage.headObject(storageKey(second)));
+    }
+
+    @Test
+    void dedup_ListingPointsAtSharedKey() {
+        byte[] content = ("dedup listing " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+
+        S3ObjectDto first = s3Service.uploadObject(new MockMultipartFile("file", "first.txt", "text/plain", content));
+        S3ObjectDto second = s3Service.uploadObject(new MockMultipartFile("file", "second.txt", "text/plain", content));
+
+        List<S3ObjectDto> listed = s3Service.listObjects(null, 1000).getItems();
+        for (S3ObjectDto object : List.of(first, second)) {
+            S3ObjectDto item = listed.stream()
+                                     .filter(candidate -> candidate.getObjectId().equals(object.getObjectId()))
+                                     .findFirst()
+                                     .orElseThrow();
+            assertEquals(object.getUrl(), item.getUrl());
+            assertTrue(item.getUrl().endsWith("/" + storageKey(object)));
+        }
+    }
+
+    private String storageKey(S3ObjectDto object) {
+        return metadataRepository.findByObjectId(UUID.fromString(object.getObjectId())).getObjectKey();
+    }
+
+    private S3ObjectContentEntity content(String digest) {
+        return contentRepository.findById(digest).orElseThrow();
+    }
+
+    private static String sha256(byte[] content) {
+        MessageDigest digest = S3ContentIndex.newDigest();
+        return HexFormat.of().formatHex(digest.digest(content));
+    }
+}
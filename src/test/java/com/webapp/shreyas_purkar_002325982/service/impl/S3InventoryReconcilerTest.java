@@ -0,0 +1,107 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.repository.S3DeleteQueueRepository;
+import com.webapp.shreyas_purkar_002325982.repository.S3ObjectMetadataRepository;
+import com.webapp.shreyas_purkar_002325982.service.S3Service;
+import com.webapp.shreyas_purkar_002325982.service.StorageBackend;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "aws.s3.reconciliation.repair=true",
+        "aws.s3.reconciliation.min-age=0s",
+        "aws.s3.reconciliation.page-size=2",
+        "aws.s3.delete-queue.poll-interval=1h"
+})
+public class S3InventoryReconcilerTest {
+
+    @Autowired
+    private S3InventoryReconciler reconciler;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private S3ObjectMetadataRepository metadataRepository;
+
+    @Autowired
+    private S3DeleteQueueRepository deleteQueueRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void reconcile_QueuesOrphanedObjectsAndDeletesDanglingRows() throws InterruptedException {
+        List<S3ObjectDto> kept = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            kept.add(upload("kept-" + i + ".txt"));
+        }
+
+        // More orphans in one partition than fit on a page, so the listing is merged across pages
+        List<String> orphanKeys = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String key = "ab" + UUID.randomUUID().toString().substring(2) + "/orphan-" + i + ".txt";
+            byte[] content = key.getBytes(StandardCharsets.UTF_8);
+            storage.putObject(key, new ByteArrayInputStream(content), content.length);
+            orphanKeys.add(key);
+        }
+
+        S3ObjectDto dangling = upload("dangling.txt");
+        storage.deleteObject(storageKey(dangling));
+
+        // The minimum age is zero, objects stored in the same instant as the cutoff are not older than it
+        Thread.sleep(10);
+        S3InventoryReconciler.Report report = reconciler.reconcile();
+
+        assertNotNull(report);
+        assertEquals(256, report.partitions());
+        assertTrue(report.orphanedObjects() >= orphanKeys.size());
+        assertTrue(report.danglingRows() >= 1);
+
+        assertEquals(orphanKeys.size(), deleteQueueRepository.findQueuedKeys(orphanKeys).size());
+        assertNull(metadataRepository.findByObjectId(UUID.fromString(dangling.getObjectId())));
+        for (S3ObjectDto object : kept) {
+            String key = storageKey(object);
+            assertNotNull(storage.headObject(key));
+            assertTrue(deleteQueueRepository.findQueuedKeys(List.of(key)).isEmpty());
+        }
+    }
+
+    @Test
+    void reconcile_RunningOnAnotherInstance_SkipsRun() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("select pg_advisory_lock(hashtext('s3_inventory_reconciliation'))");
+            try {
+                assertNull(reconciler.reconcile());
+            } finally {
+                statement.execute("select pg_advisory_unlock(hashtext('s3_inventory_reconciliation'))");
+            }
+        }
+    }
+
+    private S3ObjectDto upload(String fileName) {
+        byte[] content = (fileName + " " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        return s3Service.uploadObject(new MockMultipartFile("file", fileName, "text/plain", content));
+    }
+
+    private String storageKey(S3ObjectDto object) {
+        return metadataRepository.findByObjectId(UUID.fromString(object.getObjectId())).getObjectKey();
+    }
+}
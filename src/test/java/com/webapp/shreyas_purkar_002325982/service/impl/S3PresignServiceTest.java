@@ -0,0 +1,120 @@
+package com.webapp.shreyas_purkar_002325982.service.impl;
+
+import com.webapp.shreyas_purkar_002325982.dto.S3ObjectDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignRequestDto;
+import com.webapp.shreyas_purkar_002325982.dto.S3PresignedUrlDto;
+import com.webapp.shreyas_purkar_002325982.exception.InvalidUploadException;
+import com.webapp.shreyas_purkar_002325982.exception.S3ObjectNotFoundException;
+import com.webapp.shreyas_purkar_002325982.service.S3PresignService;
+import com.webapp.shreyas_purkar_002325982.util.InMemoryS3Client;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "aws.s3.presign.max-content-length=1KB")
+public class S3PresignServiceTest {
+
+    @Autowired
+    private S3PresignService presignService;
+
+    @Autowired
+    private InMemoryS3Client s3Client;
+
+    @Test
+    void presignedUpload_CompletedAndDownloaded() throws IOException {
+        byte[] content = ("presigned round trip " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+
+        S3PresignedUrlDto upload = presignService.presignUpload(request("report.txt", content.length));
+        String key = upload.getObjectId() + "/report.txt";
+
+        assertEquals("PUT", upload.getMethod());
+        assertTrue(URI.create(upload.getUrl()).getPath().endsWith("/" + key));
+        assertEquals(String.valueOf(content.length), header(upload, "Content-Length"));
+
+        s3Client.putObject(PutObjectRequest.builder().key(key).contentType("text/plain").build(), RequestBody.fromBytes(content));
+
+        S3ObjectDto recorded = presignService.completeUpload(upload.getObjectId());
+        assertEquals(upload.getObjectId(), recorded.getObjectId());
+        assertEquals("report.txt", recorded.getFileName());
+        assertEquals(recorded.getObjectId(), presignService.completeUpload(upload.getObjectId()).getObjectId());
+
+        S3PresignedUrlDto download = presignService.presignDownload(upload.getObjectId());
+        assertEquals("GET", download.getMethod());
+        assertTrue(URI.create(download.getUrl()).getPath().endsWith("/" + key));
+
+        try (InputStream stored = s3Client.getObject(GetObjectRequest.builder().key(key).build())) {
+            assertArrayEquals(content, stored.readAllBytes());
+        }
+    }
+
+    @Test
+    void completeUpload_NothingUploaded_ThrowsNotFound() {
+        S3PresignedUrlDto upload = presignService.presignUpload(request("missing.txt", 10));
+
+        assertThrows(S3ObjectNotFoundException.class, () -> presignService.completeUpload(upload.getObjectId()));
+    }
+
+    @Test
+    void presignUpload_ContentLengthMissingOrOverLimit_ThrowsBadRequest() {
+        S3PresignRequestDto withoutLength = request("report.txt", 10);
+        withoutLength.setContentLength(null);
+
+        assertThrows(InvalidUploadException.class, () -> presignService.presignUpload(withoutLength));
+        assertThrows(InvalidUploadException.class, () -> presignService.presignUpload(request("report.txt", 0)));
+        assertThrows(InvalidUploadException.class, () -> presignService.presignUpload(request("report.txt", 1025)));
+    }
+
+    private static S3PresignRequestDto request(String fileName, long contentLength) {
+        S3PresignRequestDto request = new S3PresignRequestDto();
+        request.setFileName(fileName);
+        request.setContentType("text/plain");
+        request.setContentLength(contentLength);
+        return request;
+    }
+
+    private static String header(S3PresignedUrlDto dto, String name) {
+        return dto.getHeaders().entrySet().stream()
+                  .filter(header -> header.getKey().equalsIgnoreCase(name))
+                  .map(Map.Entry::getValue)
+                  .findFirst()
+                  .orElse(null);
+    }
+
+    @TestConfiguration
+    static class InMemoryS3Configuration {
+
+        @Bean
+        @Primary
+        public InMemoryS3Client inMemoryS3Client() {
+            return new InMemoryS3Client();
+        }
+
+        @Bean
+        @Primary
+        public S3Presigner testS3Presigner() {
+            return S3Presigner.builder()
+                              .region(Region.US_EAST_1)
+                              .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                              .build();
+        }
+    }
+}
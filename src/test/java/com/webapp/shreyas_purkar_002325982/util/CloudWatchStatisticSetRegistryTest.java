@@ -0,0 +1,276 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import io.micrometer.cloudwatch2.CloudWatchConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CloudWatchStatisticSetRegistryTest {
+
+    private static final Duration STEP = Duration.ofDays(1);
+
+    private final MockClock clock = new MockClock();
+
+    private final StubCloudWatchClient client = new StubCloudWatchClient();
+
+    private CloudWatchStatisticSetRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        client.failure = null;
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    @Test
+    void publish_ServerError_SpoolsBatchAndResendsItOnceEndpointRecovers() {
+        registry = registry(1000, 5);
+        Counter uploads = registry.counter("uploads");
+
+        uploads.increment(3);
+        Instant failedAt = step();
+        client.failure = serviceError(503, "ServiceUnavailable");
+        registry.publish();
+
+        assertTrue(spoolSize() > 0);
+        assertTrue(sent("uploads").isEmpty());
+
+        client.failure = null;
+        step();
+        registry.publish();
+
+        assertEquals(0, spoolSize());
+        List<MetricDatum> resent = sent("uploads");
+        assertEquals(1, resent.size());
+        assertEquals(3, resent.get(0).value());
+        assertEquals(failedAt, resent.get(0).timestamp());
+    }
+
+    @Test
+    void publish_Throttled_SpoolsBatch() {
+        registry = registry(1000, 5);
+        registry.counter("uploads").increment();
+
+        step();
+        client.failure = serviceError(400, "Throttling");
+        registry.publish();
+
+        assertTrue(spoolSize() > 0);
+        assertEquals(0, dropped());
+    }
+
+    @Test
+    void publish_InvalidBatch_DropsBatchInsteadOfSpooling() {
+        registry = registry(1000, 5);
+        registry.counter("uploads").increment();
+
+        step();
+        client.failure = serviceError(400, "InvalidParameterValue");
+        registry.publish();
+
+        assertEquals(0, spoolSize());
+        assertTrue(dropped() > 0);
+
+        client.failure = null;
+        step();
+        registry.publish();
+        assertTrue(sent("uploads").isEmpty());
+    }
+
+    @Test
+    void drainSpool_ResendsOldestBatchFirst() {
+        registry = registry(1000, 1);
+        Counter uploads = registry.counter("uploads");
+        client.failure = serviceError(500, "InternalFailure");
+
+        uploads.increment(1);
+        step();
+        registry.publish();
+
+        uploads.increment(2);
+        step();
+        registry.publish();
+
+        client.failure = null;
+        step();
+        registry.publish();
+        assertEquals(List.of(1.0), values(sent("uploads")));
+
+        step();
+        registry.publish();
+        assertEquals(List.of(1.0, 2.0), values(sent("uploads")));
+        assertEquals(0, spoolSize());
+    }
+
+    @Test
+    void spool_Full_DropsOldestBatch() {
+        registry = registry(3, 5);
+        Counter uploads = registry.counter("uploads");
+        client.failure = serviceError(503, "ServiceUnavailable");
+
+        uploads.increment(1);
+        step();
+        registry.publish();
+
+        uploads.increment(2);
+        step();
+        registry.publish();
+
+        assertTrue(dropped() > 0);
+        assertTrue(spoolSize() <= 3);
+
+        client.failure = null;
+        step();
+        registry.publish();
+        assertEquals(List.of(2.0), values(sent("uploads")));
+    }
+
+    @Test
+    void publish_CounterWithoutIncrements_IsNotSent() {
+        registry = registry(1000, 5);
+        registry.counter("uploads");
+
+        step();
+        registry.publish();
+
+        assertFalse(client.requests.isEmpty());
+        assertTrue(sent("uploads").isEmpty());
+    }
+
+    @Test
+    void publish_TimerAndSummary_SendMinimumOfStep() {
+        registry = registry(1000, 5);
+        Timer timer = registry.timer("requests");
+        DistributionSummary summary = registry.summary("payload");
+
+        timer.record(Duration.ofMillis(20));
+        timer.record(Duration.ofMillis(5));
+        timer.record(Duration.ofMillis(40));
+        summary.record(300);
+        summary.record(120);
+        step();
+        registry.publish();
+
+        StatisticSet requests = sent("requests").get(0).statisticValues();
+        assertEquals(3, requests.sampleCount());
+        assertEquals(5, requests.minimum());
+        assertEquals(40, requests.maximum());
+        assertEquals(120, sent("payload").get(0).statisticValues().minimum());
+        assertTrue(registry.find("requests.histogram").meters().isEmpty());
+
+        timer.record(Duration.ofMillis(30));
+        step();
+        registry.publish();
+
+        assertEquals(30, sent("requests").get(1).statisticValues().minimum());
+    }
+
+    @Test
+    void batches_StayWithinPayloadLimit() {
+        registry = registry(1000, 5);
+        String value = "x".repeat(250);
+        List<MetricDatum> data = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            List<Dimension> dimensions = new ArrayList<>();
+            for (int d = 0; d < 10; d++) {
+                dimensions.add(Dimension.builder().name("dimension" + d).value(value).build());
+            }
+            data.add(MetricDatum.builder().metricName("metric" + i).dimensions(dimensions).value(1.0).build());
+        }
+
+        List<List<MetricDatum>> batches = registry.batches(data);
+
+        assertTrue(batches.size() > 1);
+        assertEquals(data.size(), batches.stream().mapToInt(List::size).sum());
+        for (List<MetricDatum> batch : batches) {
+            int bytes = batch.stream()
+                             .mapToInt(datum -> datum.dimensions().stream().mapToInt(d -> d.name().length() + d.value().length()).sum())
+                             .sum();
+            assertTrue(bytes < CloudWatchStatisticSetRegistry.MAX_PAYLOAD_BYTES);
+        }
+    }
+
+    private CloudWatchStatisticSetRegistry registry(int spoolCapacity, int drainBatchesPerStep) {
+        Map<String, String> properties = Map.of("cloudwatch.namespace", "Test", "cloudwatch.step", STEP.toString());
+        CloudWatchConfig config = properties::get;
+        return new CloudWatchStatisticSetRegistry(config, clock, client, 1000, spoolCapacity, drainBatchesPerStep,
+                                                  Duration.ofSeconds(1));
+    }
+
+    private Instant step() {
+        clock.add(STEP);
+        return Instant.ofEpochMilli(clock.wallTime());
+    }
+
+    private double spoolSize() {
+        return registry.get("cloudwatch.export.spool.size").gauge().value();
+    }
+
+    private double dropped() {
+        return registry.get("cloudwatch.export.dropped.count").gauge().value();
+    }
+
+    private List<MetricDatum> sent(String metricName) {
+        return client.requests.stream()
+                              .flatMap(request -> request.metricData().stream())
+                              .filter(datum -> datum.metricName().equals(metricName))
+                              .toList();
+    }
+
+    private static List<Double> values(List<MetricDatum> data) {
+        return data.stream().map(MetricDatum::value).toList();
+    }
+
+    private static CloudWatchException serviceError(int statusCode, String errorCode) {
+        return (CloudWatchException) CloudWatchException.builder()
+                                                        .statusCode(statusCode)
+                                                        .awsErrorDetails(AwsErrorDetails.builder().errorCode(errorCode).errorMessage(errorCode).build())
+                                                        .build();
+    }
+
+    /**
+     * CloudWatch client recording the accepted requests, failing every request while a failure is set
+     */
+    private static class StubCloudWatchClient implements CloudWatchAsyncClient {
+
+        private final List<PutMetricDataRequest> requests = new ArrayList<>();
+
+        private volatile CloudWatchException failure;
+
+        @Override
+        public CompletableFuture<PutMetricDataResponse> putMetricData(PutMetricDataRequest request) {
+            if (failure != null) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            synchronized (requests) {
+                requests.add(request);
+            }
+            return CompletableFuture.completedFuture(PutMetricDataResponse.builder().build());
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
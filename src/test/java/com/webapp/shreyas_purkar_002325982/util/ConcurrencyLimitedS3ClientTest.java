@@ -0,0 +1,53 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitedS3ClientTest {
+
+    private final CountDownLatch headStarted = new CountDownLatch(1);
+
+    private final CountDownLatch headReleased = new CountDownLatch(1);
+
+    private final InMemoryS3Client delegate = new InMemoryS3Client() {
+        @Override
+        public HeadObjectResponse headObject(HeadObjectRequest request) {
+            headStarted.countDown();
+            try {
+                headReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.headObject(request);
+        }
+    };
+
+    private final ConcurrencyLimitedS3Client client = new ConcurrencyLimitedS3Client(delegate, 1, Duration.ofMillis(50));
+
+    @Test
+    void invokeOperation_NoPermitWithinTimeout_FailsInsteadOfWaiting() throws Exception {
+        delegate.putObject(PutObjectRequest.builder().bucket("bucket").key("key").build(), RequestBody.fromString("content"));
+        HeadObjectRequest head = HeadObjectRequest.builder().bucket("bucket").key("key").build();
+
+        CompletableFuture<HeadObjectResponse> holding = CompletableFuture.supplyAsync(() -> client.headObject(head));
+        assertTrue(headStarted.await(5, TimeUnit.SECONDS));
+
+        assertThrows(SdkClientException.class,
+                     () -> client.putObject(PutObjectRequest.builder().bucket("bucket").key("other").build(), RequestBody.fromString("content")));
+
+        headReleased.countDown();
+        assertNotNull(holding.get(5, TimeUnit.SECONDS));
+        assertNotNull(client.putObject(PutObjectRequest.builder().bucket("bucket").key("other").build(), RequestBody.fromString("content")));
+    }
+}
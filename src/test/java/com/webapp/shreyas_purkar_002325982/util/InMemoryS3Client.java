@@ -0,0 +1,193 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import software.amazon.awssdk.awscore.AwsResponseMetadata;
+import software.amazon.awssdk.awscore.DefaultAwsResponseMetadata;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process stand-in for S3 used by the tests and benchmarks, so they run without a bucket and measure the
+ * application and not the network. Objects are kept in memory, only the operations used by the application
+ * are supported.
+ */
+public class InMemoryS3Client implements S3Client {
+
+    private static final AwsResponseMetadata RESPONSE_METADATA = DefaultAwsResponseMetadata.create(
+            Map.of("AWS_REQUEST_ID", "benchmark-request-id", "S3_EXTENDED_REQUEST_ID", "benchmark-extended-request-id"));
+
+    private final Map<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Map<Integer, byte[]>> multipartUploads = new ConcurrentHashMap<>();
+
+    /**
+     * Number of objects currently stored
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        objects.clear();
+        multipartUploads.clear();
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+        byte[] content = read(requestBody);
+        objects.put(request.key(), new StoredObject(content, request.contentType(), Instant.now()));
+
+        return (PutObjectResponse) PutObjectResponse.builder()
+                                                    .eTag(etag(content))
+                                                    .serverSideEncryption(ServerSideEncryption.AES256)
+                                                    .responseMetadata(RESPONSE_METADATA)
+                                                    .build();
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        StoredObject object = find(request.key());
+
+        return (HeadObjectResponse) HeadObjectResponse.builder()
+                                                      .eTag(etag(object.content()))
+                                                      .acceptRanges("bytes")
+                                                      .lastModified(object.lastModified())
+                                                      .contentLength((long) object.content().length)
+                                                      .contentType(object.contentType())
+                                                      .serverSideEncryption(ServerSideEncryption.AES256)
+                                                      .responseMetadata(RESPONSE_METADATA)
+                                                      .build();
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+        StoredObject object = find(request.key());
+
+        GetObjectResponse response = GetObjectResponse.builder()
+                                                      .eTag(etag(object.content()))
+                                                      .contentLength((long) object.content().length)
+                                                      .contentType(object.contentType())
+                                                      .lastModified(object.lastModified())
+                                                      .build();
+        return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(object.content())));
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+        String prefix = request.prefix() != null ? request.prefix() : "";
+        int maxKeys = request.maxKeys() != null ? request.maxKeys() : 1000;
+
+        List<S3Object> contents = new ArrayList<>();
+        for (Map.Entry<String, StoredObject> entry : objects.entrySet()) {
+            if (contents.size() == maxKeys) {
+                break;
+            }
+            if (entry.getKey().startsWith(prefix)) {
+                contents.add(S3Object.builder()
+                                     .key(entry.getKey())
+                                     .size((long) entry.getValue().content().length)
+                                     .eTag(etag(entry.getValue().content()))
+                                     .lastModified(entry.getValue().lastModified())
+                                     .build());
+            }
+        }
+        return ListObjectsV2Response.builder().prefix(prefix).contents(contents).keyCount(contents.size()).build();
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        objects.remove(request.key());
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+        List<DeletedObject> deleted = new ArrayList<>();
+        for (ObjectIdentifier identifier : request.delete().objects()) {
+            objects.remove(identifier.key());
+            deleted.add(DeletedObject.builder().key(identifier.key()).build());
+        }
+        return DeleteObjectsResponse.builder().deleted(deleted).build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        multipartUploads.put(uploadId, new ConcurrentSkipListMap<>());
+        return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody requestBody) {
+        byte[] content = read(requestBody);
+        multipartUploads.get(request.uploadId()).put(request.partNumber(), content);
+        return UploadPartResponse.builder().eTag(etag(content)).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Map<Integer, byte[]> parts = multipartUploads.remove(request.uploadId());
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            content.writeBytes(parts.get(part.partNumber()));
+        }
+        objects.put(request.key(), new StoredObject(content.toByteArray(), "application/octet-stream", Instant.now()));
+
+        return (CompleteMultipartUploadResponse) CompleteMultipartUploadResponse.builder()
+                                                                                .eTag(etag(content.toByteArray()))
+                                                                                .serverSideEncryption(ServerSideEncryption.AES256)
+                                                                                .responseMetadata(RESPONSE_METADATA)
+                                                                                .build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        multipartUploads.remove(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    private StoredObject find(String key) {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            throw NoSuchKeyException.builder().statusCode(404).message("The specified key does not exist.").build();
+        }
+        return object;
+    }
+
+    private static byte[] read(RequestBody requestBody) {
+        try (InputStream inputStream = requestBody.contentStreamProvider().newStream()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etag(byte[] content) {
+        return "\"" + Integer.toHexString(content.length) + "\"";
+    }
+
+    private record StoredObject(byte[] content, String contentType, Instant lastModified) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.webapp.shreyas_purkar_002325982.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class S3AsyncModeConfigTest {
+
+    @Test
+    void asyncMode_WithFileSystemBackend_FailsStartup() {
+        assertThrows(IllegalStateException.class, () -> new S3AsyncModeConfig("filesystem", false));
+    }
+
+    @Test
+    void asyncMode_WithMemoryBackend_FailsStartup() {
+        assertThrows(IllegalStateException.class, () -> new S3AsyncModeConfig("memory", false));
+    }
+
+    @Test
+    void asyncMode_WithDedup_FailsStartup() {
+        assertThrows(IllegalStateException.class, () -> new S3AsyncModeConfig("s3", true));
+    }
+
+    @Test
+    void asyncMode_WithoutDedup_Starts() {
+        assertDoesNotThrow(() -> new S3AsyncModeConfig("s3", false));
+    }
+}